@@ -9,6 +9,7 @@ import org.jboss.netty.handler.timeout.IdleStateHandler;
 import org.traccar.geocode.ReverseGeocoder;
 import org.traccar.helper.Log;
 import org.traccar.database.DataManager;
+import org.traccar.notification.NotificationDispatcher;
 
 /**
   * Base pipeline factory
@@ -17,6 +18,7 @@ public abstract class BasePipelineFactory implements ChannelPipelineFactory {
 
     private final TrackerServer server;
     private final DataManager dataManager;
+    private final NotificationDispatcher notificationDispatcher;
     private final Boolean loggerEnabled;
     private final ReverseGeocoder reverseGeocoder;
     private FilterHandler filterHandler;
@@ -74,6 +76,7 @@ public abstract class BasePipelineFactory implements ChannelPipelineFactory {
     public BasePipelineFactory(ServerManager serverManager, TrackerServer server, String protocol) {
         this.server = server;
         dataManager = serverManager.getDataManager();
+        notificationDispatcher = serverManager.getNotificationDispatcher();
         loggerEnabled = serverManager.isLoggerEnabled();
         reverseGeocoder = serverManager.getReverseGeocoder();
 
@@ -84,7 +87,7 @@ public abstract class BasePipelineFactory implements ChannelPipelineFactory {
 
         String enableFilter = serverManager.getProperties().getProperty("filter.enable");
         if (enableFilter != null && Boolean.valueOf(enableFilter)) {
-            filterHandler = new FilterHandler(serverManager.getProperties());
+            filterHandler = new FilterHandler(serverManager.getProperties(), dataManager.getDeviceStateStore());
         }
 
         if (reverseGeocoder != null) {
@@ -103,6 +106,7 @@ public abstract class BasePipelineFactory implements ChannelPipelineFactory {
     @Override
     public ChannelPipeline getPipeline() {
         ChannelPipeline pipeline = Channels.pipeline();
+        pipeline.addLast("metrics", WorkerMetrics.getHandler());
         if (resetDelay != null) {
             pipeline.addLast("idleHandler", new IdleStateHandler(GlobalTimer.getTimer(), resetDelay, 0, 0));
         }
@@ -117,7 +121,7 @@ public abstract class BasePipelineFactory implements ChannelPipelineFactory {
         if (reverseGeocoder != null) {
             pipeline.addLast("geocoder", new ReverseGeocoderHandler(reverseGeocoder, processInvalidPositions));
         }
-        pipeline.addLast("handler", new TrackerEventHandler(dataManager));
+        pipeline.addLast("handler", new TrackerEventHandler(dataManager, notificationDispatcher));
         return pipeline;
     }
 
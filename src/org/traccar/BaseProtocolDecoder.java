@@ -16,6 +16,7 @@
 package org.traccar;
 
 import java.net.SocketAddress;
+import java.sql.SQLException;
 import java.util.Date;
 import java.util.Properties;
 
@@ -27,6 +28,9 @@ import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.handler.codec.oneone.OneToOneDecoder;
 
 import org.traccar.database.DataManager;
+import org.traccar.database.DeviceStateStore;
+import org.traccar.helper.ImeiKey;
+import org.traccar.model.Device;
 import org.traccar.model.Position;
 
 /**
@@ -90,17 +94,124 @@ public abstract class BaseProtocolDecoder extends OneToOneDecoder {
         
     }
 
+    /**
+     * Device resolved for a connection, stored as the channel attachment
+     */
+    protected static class DeviceBinding {
+
+        private final String uniqueId;
+        private final long imeiKey;
+        private final Device device;
+        private final Long deviceId;
+        private final long version;
+
+        public DeviceBinding(String uniqueId, Device device, long version) {
+            this.uniqueId = uniqueId;
+            this.imeiKey = ImeiKey.INVALID;
+            this.device = device;
+            this.deviceId = device.getId();
+            this.version = version;
+        }
+
+        /**
+         * Binding by numeric identifier keeps only the device id
+         */
+        public DeviceBinding(long imeiKey, Long deviceId, long version) {
+            this.uniqueId = null;
+            this.imeiKey = imeiKey;
+            this.device = null;
+            this.deviceId = deviceId;
+            this.version = version;
+        }
+
+        public String getUniqueId() {
+            return uniqueId;
+        }
+
+        public long getImeiKey() {
+            return imeiKey;
+        }
+
+        public Device getDevice() {
+            return device;
+        }
+
+        public Long getDeviceId() {
+            return deviceId;
+        }
+
+        /**
+         * Registry version read before the lookup
+         */
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * Binding of the channel unless its device was modified or removed after the binding lookup
+     */
+    protected DeviceBinding getDeviceBinding(Channel channel) {
+        if (channel != null && channel.getAttachment() instanceof DeviceBinding) {
+            DeviceBinding binding = (DeviceBinding) channel.getAttachment();
+            if (dataManager.getDeviceRegistry().getGeneration(binding.getDeviceId()) <= binding.getVersion()) {
+                return binding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolve the device by identifier, repeated messages on the same connection reuse the previous result
+     *
+     * Alternative identifiers are tried in order when the first one is unknown, the binding is kept under the
+     * identifier received from the device.
+     */
+    protected Device identify(Channel channel, String uniqueId, String... alternatives) throws SQLException {
+        DeviceBinding binding = getDeviceBinding(channel);
+        if (binding != null && uniqueId.equals(binding.getUniqueId())) {
+            return binding.getDevice();
+        }
+
+        long version = dataManager.getDeviceRegistry().getVersion();
+        Device device = dataManager.getDeviceByImei(uniqueId);
+        for (int i = 0; device == null && i < alternatives.length; i++) {
+            device = dataManager.getDeviceByImei(alternatives[i]);
+        }
+        if (device != null && channel != null) {
+            channel.setAttachment(new DeviceBinding(uniqueId, device, version));
+        }
+        return device;
+    }
+
+    /**
+     * Resolve the device id by a numeric identifier read from the message, no strings are created on a hit
+     *
+     * Decoders pass the identifier as sent by the device only when the key is invalid, otherwise null.
+     */
+    protected Long identify(Channel channel, long imeiKey, String imei) throws SQLException {
+        if (imeiKey == ImeiKey.INVALID) {
+            Device device = imei != null ? identify(channel, imei) : null;
+            return device != null ? device.getId() : null;
+        }
+
+        DeviceBinding binding = getDeviceBinding(channel);
+        if (binding != null && binding.getImeiKey() == imeiKey) {
+            return binding.getDeviceId();
+        }
+
+        long version = dataManager.getDeviceRegistry().getVersion();
+        Long deviceId = dataManager.getDeviceIdByImeiKey(imeiKey, null);
+        if (deviceId != null && channel != null) {
+            channel.setAttachment(new DeviceBinding(imeiKey, deviceId, version));
+        }
+        return deviceId;
+    }
+
     public void getLastLocation(Position position, Date deviceTime) {
-        Position last = getDataManager().getLatestPosition(position.getDeviceId());
+        DeviceStateStore.State last = getDataManager().getDeviceStateStore().get(position.getDeviceId());
         if (last != null) {
-            position.setTime(last.getTime());
-            position.setStartTime(last.getStartTime());
-            position.setValid(last.getValid());
-            position.setLatitude(last.getLatitude());
-            position.setLongitude(last.getLongitude());
-            position.setAltitude(last.getAltitude());
-            position.setSpeed(last.getSpeed());
-            position.setCourse(last.getCourse());
+            last.copyTo(position);
         } else {
             position.setValid(true);
             position.setTime(new Date(0));
@@ -15,14 +15,13 @@
  */
 package org.traccar;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.handler.codec.oneone.OneToOneDecoder;
+import org.traccar.database.DeviceStateStore;
 import org.traccar.helper.DistanceCalculator;
 import org.traccar.helper.Log;
 import org.traccar.model.Position;
@@ -34,8 +33,8 @@ public class FilterHandler extends OneToOneDecoder {
     private boolean filterDuplicate;
     private int filterDistance;
     private long filterLimit;
-    
-    private final Map<Long, Position> lastPositions = new HashMap<Long, Position>();
+
+    private final DeviceStateStore stateStore;
 
     public FilterHandler(
             boolean filterInvalid,
@@ -44,6 +43,7 @@ public class FilterHandler extends OneToOneDecoder {
             int filterDistance,
             long filterLimit) {
 
+        stateStore = new DeviceStateStore(null);
         this.filterInvalid = filterInvalid;
         this.filterZero = filterZero;
         this.filterDuplicate = filterDuplicate;
@@ -51,7 +51,9 @@ public class FilterHandler extends OneToOneDecoder {
         this.filterLimit = filterLimit;
     }
     
-    public FilterHandler(Properties properties) {
+    public FilterHandler(Properties properties, DeviceStateStore stateStore) {
+
+        this.stateStore = stateStore;
 
         String value = properties.getProperty("filter.invalid");
         if (value != null) filterInvalid = Boolean.valueOf(value);
@@ -81,9 +83,9 @@ public class FilterHandler extends OneToOneDecoder {
     
     private boolean filterDuplicate(Position position) {
         if (filterDuplicate) {
-            Position last = lastPositions.get(position.getDeviceId());
+            DeviceStateStore.State last = stateStore.get(position.getDeviceId());
             if (last != null) {
-                return position.getTime().equals(last.getTime()) &&
+                return position.getTime().getTime() == last.getTime() &&
                         ((last.getExtendedInfo()==null && position.getExtendedInfo()==null) ||
                                 (position.getExtendedInfo()==null) ||
                                 (last.getExtendedInfo()!=null && last.getExtendedInfo().equalsIgnoreCase(position.getExtendedInfo())));
@@ -97,7 +99,7 @@ public class FilterHandler extends OneToOneDecoder {
     
     private boolean filterDistance(Position position) {
         if (filterDistance != 0) {
-            Position last = lastPositions.get(position.getDeviceId());
+            DeviceStateStore.State last = stateStore.get(position.getDeviceId());
             if (last != null) {
                 double distance = DistanceCalculator.distance(
                         position.getLatitude(), position.getLongitude(),
@@ -113,9 +115,9 @@ public class FilterHandler extends OneToOneDecoder {
     
     private boolean filterLimit(Position position) {
         if (filterLimit != 0) {
-            Position last = lastPositions.get(position.getDeviceId());
+            DeviceStateStore.State last = stateStore.get(position.getDeviceId());
             if (last != null) {
-                return (position.getTime().getTime() - last.getTime().getTime()) > filterLimit;
+                return (position.getTime().getTime() - last.getTime()) > filterLimit;
             } else {
                 return false;
             }
@@ -125,7 +127,7 @@ public class FilterHandler extends OneToOneDecoder {
     }
 
     private boolean isDataChanged(Position p){
-        Position last = lastPositions.get(p.getDeviceId());
+        DeviceStateStore.State last = stateStore.get(p.getDeviceId());
         if(last==null || (p.getExtendedInfo()==null && last.getExtendedInfo()==null))
             return false;
         else if (last.getExtendedInfo()==null || !last.getExtendedInfo().equalsIgnoreCase(p.getExtendedInfo()))
@@ -150,14 +152,14 @@ public class FilterHandler extends OneToOneDecoder {
         else result = true;
 
         if (!result) {
-            if(!isDataChanged && filterDistance(p)){
+            DeviceStateStore.State last = stateStore.get(p.getDeviceId());
+            if(!isDataChanged && filterDistance(p) && last != null && last.getDatabaseId() != null){
                 Log.info("Distance has not changed, update existing record.");
                 //update existing record
-                Position last = lastPositions.get(p.getDeviceId());
-                p.setStartTime(last.getStartTime());
+                p.setStartTime(last.getStartTimeDate());
                 p.setDatabaseId(last.getDatabaseId());
             }
-            lastPositions.put(p.getDeviceId(), p);
+            stateStore.update(p);
         }
         else
             Log.info("Position filtered from " + p.getDeviceId());
@@ -15,18 +15,46 @@
  */
 package org.traccar;
 
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import org.jboss.netty.channel.ChannelFactory;
 import org.jboss.netty.channel.socket.DatagramChannelFactory;
 import org.jboss.netty.channel.socket.nio.NioDatagramChannelFactory;
+import org.jboss.netty.channel.socket.nio.NioDatagramWorkerPool;
+import org.jboss.netty.channel.socket.nio.NioServerBossPool;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.jboss.netty.channel.socket.nio.NioWorkerPool;
 
+/**
+ * Boss and worker pools shared by all TCP servers and a worker pool shared by all UDP servers
+ */
 public class GlobalChannelFactory {
 
+    private static final int DEFAULT_WORKERS = Runtime.getRuntime().availableProcessors() * 2;
+
+    private static int bossThreads = 1;
+    private static int workerThreads = DEFAULT_WORKERS;
+    private static int datagramThreads = DEFAULT_WORKERS;
+
     private static ChannelFactory channelFactory = null;
     private static DatagramChannelFactory datagramChannelFactory = null;
 
-    public static void release() {
+    /**
+     * Read pool sizes, has to be called before the first server is created
+     */
+    public static synchronized void init(Properties properties) {
+        String value = properties.getProperty("server.bossThreads");
+        bossThreads = value != null ? Integer.valueOf(value) : 1;
+
+        value = properties.getProperty("server.workerThreads");
+        workerThreads = value != null ? Integer.valueOf(value) : DEFAULT_WORKERS;
+
+        value = properties.getProperty("server.datagramThreads");
+        datagramThreads = value != null ? Integer.valueOf(value) : DEFAULT_WORKERS;
+    }
+
+    public static synchronized void release() {
         if (channelFactory != null) {
             channelFactory.releaseExternalResources();
         }
@@ -37,16 +65,23 @@ public class GlobalChannelFactory {
         datagramChannelFactory = null;
     }
 
-    public static ChannelFactory getFactory() {
+    private static ExecutorService createExecutor(String name) {
+        return Executors.newCachedThreadPool(WorkerMetrics.createThreadFactory(name));
+    }
+
+    public static synchronized ChannelFactory getFactory() {
         if (channelFactory == null) {
-            channelFactory = new NioServerSocketChannelFactory();
+            channelFactory = new NioServerSocketChannelFactory(
+                    new NioServerBossPool(createExecutor("tcp-boss"), bossThreads, null),
+                    new NioWorkerPool(createExecutor("tcp-worker"), workerThreads));
         }
         return channelFactory;
     }
-    
-    public static DatagramChannelFactory getDatagramFactory() {
+
+    public static synchronized DatagramChannelFactory getDatagramFactory() {
         if (datagramChannelFactory == null) {
-            datagramChannelFactory = new NioDatagramChannelFactory();
+            datagramChannelFactory = new NioDatagramChannelFactory(
+                    new NioDatagramWorkerPool(createExecutor("udp-worker"), datagramThreads));
         }
         return datagramChannelFactory;
     }
@@ -32,15 +32,29 @@ import org.traccar.geocode.NominatimReverseGeocoder;
 import org.traccar.geocode.ReverseGeocoder;
 import org.traccar.helper.Log;
 import org.traccar.http.WebServer;
+import org.traccar.notification.GcmSink;
+import org.traccar.notification.LocalSink;
+import org.traccar.notification.NotificationDispatcher;
+import org.traccar.notification.PositionSink;
+import org.traccar.notification.PubNubSink;
+import org.traccar.notification.SnsSink;
 import org.traccar.protocol.*;
 
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Server Manager
@@ -65,6 +79,12 @@ public class ServerManager {
         return dataManager;
     }
 
+    private NotificationDispatcher notificationDispatcher;
+
+    public NotificationDispatcher getNotificationDispatcher() {
+        return notificationDispatcher;
+    }
+
     private ReverseGeocoder reverseGeocoder;
 
     public ReverseGeocoder getReverseGeocoder() {
@@ -83,7 +103,34 @@ public class ServerManager {
         return  properties;
     }
 
+    /**
+     * Creates servers of a protocol and adds them to the server list
+     */
+    private interface ProtocolFactory {
+        void init(String protocol);
+    }
+
+    private static final long DEFAULT_PRELOAD_TIMEOUT = 60;
+    private static final int MAX_BIND_THREADS = 16;
+
+    private final Map<String, Long> startupTimings = new LinkedHashMap<String, Long>();
+    private long phaseStart;
+
+    /**
+     * Duration of each startup phase in milliseconds, in the order they ran
+     */
+    public Map<String, Long> getStartupTimings() {
+        return startupTimings;
+    }
+
+    private void endPhase(String name) {
+        long now = System.currentTimeMillis();
+        startupTimings.put(name, now - phaseStart);
+        phaseStart = now;
+    }
+
     public void init(String[] arguments) throws Exception {
+        phaseStart = System.currentTimeMillis();
 
         // Load properties
         properties = new Properties();
@@ -97,102 +144,99 @@ public class ServerManager {
             Log.setupLogger(properties);
         }
 
+        endPhase("configuration");
+
+        GlobalChannelFactory.init(properties);
+        String metricsInterval = properties.getProperty("server.metricsInterval");
+        if (metricsInterval != null) {
+            WorkerMetrics.schedule(Long.valueOf(metricsInterval));
+        }
+
+        // Devices are preloaded in background while protocols are initialized
         dataManager = new DataManager(properties);
+        endPhase("database");
+
+        initPositionSinks(properties);
 
         initGeocoder(properties);
 
-        initGps103Server("gps103");
-        initTk103Server("tk103");
-        initGl100Server("gl100");
-        initGl200Server("gl200");
-        initT55Server("t55");
-        initXexunServer("xexun");
-        initTotemServer("totem");
-        initEnforaServer("enfora");
-        initMeiligaoServer("meiligao");
-        initMaxonServer("maxon");
-        initSuntechServer("suntech");
-        initProgressServer("progress");
-        initH02Server("h02");
-        initJt600Server("jt600");
-        initEv603Server("ev603");
-        initV680Server("v680");
-        initPt502Server("pt502");
-        initTr20Server("tr20");
-        initNavisServer("navis");
-        initMeitrackServer("meitrack");
-        initSkypatrolServer("skypatrol");
-        initGt02Server("gt02");
-        initGt06Server("gt06");
-        initMegastekServer("megastek");
-        initNavigilServer("navigil");
-        initGpsGateServer("gpsgate");
-        initTeltonikaServer("teltonika");
-        initMta6Server("mta6");
-        initMta6CanServer("mta6can");
-        initTlt2hServer("tlt2h");
-        initSyrusServer("syrus");
-        initWondexServer("wondex");
-        initCellocatorServer("cellocator");
-        initGalileoServer("galileo");
-        initYwtServer("ywt");
-        initTk102Server("tk102");
-        initIntellitracServer("intellitrac");
-        initXt7Server("xt7");
-        initWialonServer("wialon");
-        initCarscopServer("carscop");
-        initApelServer("apel");
-        initManPowerServer("manpower");
-        initGlobalSatServer("globalsat");
-        initAtrackServer("atrack");
-        initPt3000Server("pt3000");
-        initRuptelaServer("ruptela");
-        initTopflytechServer("topflytech");
-        initLaipacServer("laipac");
-        initAplicomServer("aplicom");
-        initGotopServer("gotop");
-        initSanavServer("sanav");
-        initGatorServer("gator");
-        initNoranServer("noran");
-        initM2mServer("m2m");
-        initOsmAndServer("osmand");
-        initEasyTrackServer("easytrack");
-        initTaipServer("taip");
-        initKhdServer("khd");
-        initPiligrimServer("piligrim");
-        initStl060Server("stl060");
-        initCarTrackServer("cartrack");
-        initMiniFinderServer("minifinder");
-        initHaicomServer("haicom");
-        initEelinkServer("eelink");
-        initBoxServer("box");
-        initFreedomServer("freedom");
-        initTelikServer("telik");
-        initTrackboxServer("trackbox");
-        initVisiontekServer("visiontek");
-        initOrionServer("orion");
-        initRitiServer("riti");
-        initUlbotechServer("ulbotech");
-        initTramigoServer("tramigo");
-        initTr900Server("tr900");
-        initArdi01Server("ardi01");
-        initXt013Server("xt013");
-        initAutoFonServer("autofon");
+        for (Map.Entry<String, ProtocolFactory> entry : createProtocolFactories().entrySet()) {
+            if (isProtocolEnabled(properties, entry.getKey())) {
+                entry.getValue().init(entry.getKey());
+            }
+        }
 
         initProtocolDetector();
+        endPhase("protocols");
 
         // Initialize web server
         if (Boolean.valueOf(properties.getProperty("http.enable"))) {
             webServer = new WebServer(properties, dataManager.getDataSource());
         }
+        endPhase("web");
     }
 
-    public void start() {
+    public void start() throws InterruptedException {
+        phaseStart = System.currentTimeMillis();
         if (webServer != null) {
             webServer.start();
         }
-        for (Object server: serverList) {
-            ((TrackerServer) server).start();
+
+        // Trackers reconnecting after a restart should not race the initial devices load
+        String value = properties.getProperty("database.preloadTimeout");
+        long timeout = (value != null ? Long.valueOf(value) : DEFAULT_PRELOAD_TIMEOUT) * 1000;
+        if (!dataManager.getDeviceRegistry().awaitReady(timeout)) {
+            Log.warning("Devices are not loaded yet, accepting connections anyway");
+        }
+        endPhase("devices");
+
+        bindServers();
+        endPhase("bind");
+
+        StringBuilder message = new StringBuilder("Startup timings (ms):");
+        for (Map.Entry<String, Long> entry : startupTimings.entrySet()) {
+            message.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        message.append(", devices loaded: ").append(dataManager.getDeviceRegistry().size());
+        Log.info(message.toString());
+    }
+
+    /**
+     * Bind all servers concurrently, the first failure is rethrown once every bind has finished
+     */
+    private void bindServers() throws InterruptedException {
+        if (serverList.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(serverList.size(), MAX_BIND_THREADS));
+        try {
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(serverList.size());
+            for (final TrackerServer server : serverList) {
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        server.start();
+                        return null;
+                    }
+                });
+            }
+            RuntimeException failure = null;
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException error) {
+                    Log.warning(error.getCause());
+                    if (failure == null) {
+                        failure = error.getCause() instanceof RuntimeException
+                                ? (RuntimeException) error.getCause() : new RuntimeException(error.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdown();
         }
     }
 
@@ -201,6 +245,14 @@ public class ServerManager {
             ((TrackerServer) server).stop();
         }
 
+        // Flush pending writes, stored positions are still delivered to sinks
+        if (dataManager != null) {
+            dataManager.stop();
+        }
+        if (notificationDispatcher != null) {
+            notificationDispatcher.stop();
+        }
+
         // Release resources
         GlobalChannelFactory.release();
         GlobalTimer.release();
@@ -214,6 +266,35 @@ public class ServerManager {
         serverList.clear();
     }
 
+    /**
+     * Built-in sinks are enabled by their own options, custom ones are listed in sink.classes
+     */
+    private void initPositionSinks(Properties properties) throws Exception {
+        notificationDispatcher = new NotificationDispatcher(properties);
+        if (GcmSink.isEnabled(dataManager, properties)) {
+            notificationDispatcher.addSink(new GcmSink(dataManager, properties));
+        }
+        if (PubNubSink.isEnabled(properties)) {
+            notificationDispatcher.addSink(new PubNubSink(dataManager, properties));
+        }
+        if (SnsSink.isEnabled(properties)) {
+            notificationDispatcher.addSink(new SnsSink(dataManager, properties));
+        }
+        if (LocalSink.isEnabled(properties)) {
+            notificationDispatcher.addSink(new LocalSink(dataManager, properties));
+        }
+        String classes = properties.getProperty("sink.classes");
+        if (classes != null) {
+            for (String name : classes.split("[\\s,]+")) {
+                if (!name.isEmpty()) {
+                    notificationDispatcher.addSink((PositionSink) Class.forName(name)
+                            .getConstructor(DataManager.class, Properties.class)
+                            .newInstance(dataManager, properties));
+                }
+            }
+        }
+    }
+
     private void initGeocoder(Properties properties) throws IOException {
         if (Boolean.parseBoolean(properties.getProperty("geocoder.enable"))) {
             String type = properties.getProperty("geocoder.type");
@@ -251,1049 +332,1172 @@ public class ServerManager {
             });
         }
     }
-    private void initGps103Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, "\r\n", "\n", ";"));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new Gps103ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-            serverList.add(new TrackerServer(this, new ConnectionlessBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new Gps103ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initTk103Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, ')'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new Tk103ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-            serverList.add(new TrackerServer(this, new ConnectionlessBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new Tk103ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initGl100Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '\0'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new Gl100ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
 
-    private void initGl200Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, "$", "\0"));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new Gl200ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initT55Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new T55ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
+    /**
+     * Server factories of supported protocols in the order their servers are created, decoder classes are
+     * referenced only from pipelines, so they are loaded when the first channel is opened
+     */
+    private Map<String, ProtocolFactory> createProtocolFactories() {
+        Map<String, ProtocolFactory> factories = new LinkedHashMap<String, ProtocolFactory>();
 
-    private void initXexunServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    if (Boolean.valueOf(properties.getProperty(protocol + ".extended"))) {
-                        pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024)); // tracker bug \n\r
+        factories.put("gps103", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, "\r\n", "\n", ";"));
                         pipeline.addLast("stringDecoder", new StringDecoder());
-                        pipeline.addLast("objectDecoder", new Xexun2ProtocolDecoder(dataManager, protocol, properties));
-                    } else {
-                        pipeline.addLast("frameDecoder", new XexunFrameDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new Gps103ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+                serverList.add(new TrackerServer(ServerManager.this, new ConnectionlessBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
                         pipeline.addLast("stringDecoder", new StringDecoder());
-                        pipeline.addLast("objectDecoder", new XexunProtocolDecoder(dataManager, protocol, properties));
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new Gps103ProtocolDecoder(dataManager, protocol, properties));
                     }
-                }
-            });
-        }
-    }
-
-    private void initTotemServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new TotemFrameDecoder());
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new TotemProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initEnforaServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(1024, 0, 2, -2, 2));
-                    pipeline.addLast("objectDecoder", new EnforaProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initMeiligaoServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new MeiligaoFrameDecoder());
-                    pipeline.addLast("objectDecoder", new MeiligaoProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initMaxonServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new MaxonProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
+                });
+            }
+        });
+
+        factories.put("tk103", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, ')'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new Tk103ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+                serverList.add(new TrackerServer(ServerManager.this, new ConnectionlessBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new Tk103ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("gl100", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '\0'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new Gl100ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("gl200", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, "$", "\0"));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new Gl200ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("t55", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new T55ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("xexun", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        if (Boolean.valueOf(properties.getProperty(protocol + ".extended"))) {
+                            pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024)); // tracker bug \n\r
+                            pipeline.addLast("stringDecoder", new StringDecoder());
+                            pipeline.addLast("objectDecoder",
+                                    new Xexun2ProtocolDecoder(dataManager, protocol, properties));
+                        } else {
+                            pipeline.addLast("frameDecoder", new XexunFrameDecoder());
+                            pipeline.addLast("stringDecoder", new StringDecoder());
+                            pipeline.addLast("objectDecoder",
+                                    new XexunProtocolDecoder(dataManager, protocol, properties));
+                        }
+                    }
+                });
+            }
+        });
+
+        factories.put("totem", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new TotemFrameDecoder());
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder", new TotemProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("enfora", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(1024, 0, 2, -2, 2));
+                        pipeline.addLast("objectDecoder", new EnforaProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("meiligao", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new MeiligaoFrameDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new MeiligaoProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("maxon", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new MaxonProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("suntech", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '\r'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new SuntechProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("progress", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                TrackerServer server = new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(1024, 2, 2, 4, 0));
+                        pipeline.addLast("objectDecoder",
+                                new ProgressProtocolDecoder(dataManager, protocol, properties));
+                    }
+                };
+                server.setEndianness(ByteOrder.LITTLE_ENDIAN);
+                serverList.add(server);
+            }
+        });
+
+        factories.put("h02", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new H02FrameDecoder());
+                        pipeline.addLast("objectDecoder", new H02ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("jt600", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new Jt600FrameDecoder());
+                        pipeline.addLast("objectDecoder", new Jt600ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("ev603", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, ';'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder", new Ev603ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("v680", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, "##"));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder", new V680ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("pt502", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                TrackerServer server = new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new Pt502FrameDecoder());
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder", new Pt502ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                };
+                server.setEndianness(ByteOrder.LITTLE_ENDIAN);
+                serverList.add(server);
+            }
+        });
+
+        factories.put("tr20", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new Tr20ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("navis", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                TrackerServer server = new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(4 * 1024, 12, 2, 2, 0));
+                        pipeline.addLast("objectDecoder", new NavisProtocolDecoder(dataManager, protocol, properties));
+                    }
+                };
+                server.setEndianness(ByteOrder.LITTLE_ENDIAN);
+                serverList.add(server);
+            }
+        });
+
+        factories.put("meitrack", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                TrackerServer server = new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new MeitrackFrameDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder",
+                                new MeitrackProtocolDecoder(dataManager, protocol, properties));
+                    }
+                };
+                server.setEndianness(ByteOrder.LITTLE_ENDIAN);
+                serverList.add(server);
+            }
+        });
+
+        factories.put("skypatrol", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ConnectionlessBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("objectDecoder",
+                                new SkypatrolProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("gt02", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(256, 2, 1, 2, 0));
+                        pipeline.addLast("objectDecoder", new Gt02ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("gt06", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new Gt06FrameDecoder());
+                        pipeline.addLast("objectDecoder", new Gt06ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("megastek", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder",
+                                new MegastekProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("navigil", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                TrackerServer server = new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new NavigilFrameDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new NavigilProtocolDecoder(dataManager, protocol, properties));
+                    }
+                };
+                server.setEndianness(ByteOrder.LITTLE_ENDIAN);
+                serverList.add(server);
+            }
+        });
+
+        factories.put("gpsgate", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder",
+                                new GpsGateProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("teltonika", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new TeltonikaFrameDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new TeltonikaProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("mta6", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("httpDecoder", new HttpRequestDecoder());
+                        pipeline.addLast("httpEncoder", new HttpResponseEncoder());
+                        pipeline.addLast("objectDecoder",
+                                new Mta6ProtocolDecoder(dataManager, protocol, properties, false));
+                    }
+                });
+            }
+        });
+
+        factories.put("mta6can", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("httpDecoder", new HttpRequestDecoder());
+                        pipeline.addLast("httpEncoder", new HttpResponseEncoder());
+                        pipeline.addLast("objectDecoder",
+                                new Mta6ProtocolDecoder(dataManager, protocol, properties, true));
+                    }
+                });
+            }
+        });
+
+        factories.put("tlt2h", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(32 * 1024, "##"));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new Tlt2hProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("syrus", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '<'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder",
+                                new SyrusProtocolDecoder(dataManager, protocol, properties, true));
+                    }
+                });
+            }
+        });
+
+        factories.put("wondex", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new WondexFrameDecoder());
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder", new WondexProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("cellocator", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                TrackerServer server = new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CellocatorFrameDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new CellocatorProtocolDecoder(dataManager, protocol, properties));
+                    }
+                };
+                server.setEndianness(ByteOrder.LITTLE_ENDIAN);
+                serverList.add(server);
+            }
+        });
+
+        factories.put("galileo", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                TrackerServer server = new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new GalileoFrameDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new GalileoProtocolDecoder(dataManager, protocol, properties));
+                    }
+                };
+                server.setEndianness(ByteOrder.LITTLE_ENDIAN);
+                serverList.add(server);
+            }
+        });
+
+        factories.put("ywt", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new YwtProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("tk102", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, ']'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new Tk102ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("intellitrac", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new IntellitracFrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder",
+                                new IntellitracProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("xt7", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(256, 20, 1, 5, 0));
+                        pipeline.addLast("objectDecoder", new Xt7ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("wialon", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new WialonProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("carscop", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '^'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder",
+                                new CarscopProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("apel", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                TrackerServer server = new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(1024, 2, 2, 4, 0));
+                        pipeline.addLast("objectDecoder", new ApelProtocolDecoder(dataManager, protocol, properties));
+                    }
+                };
+                server.setEndianness(ByteOrder.LITTLE_ENDIAN);
+                serverList.add(server);
+            }
+        });
+
+        factories.put("manpower", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, ';'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder",
+                                new ManPowerProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("globalsat", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '!'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder",
+                                new GlobalSatProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("atrack", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new AtrackFrameDecoder());
+                        pipeline.addLast("objectDecoder", new AtrackProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+                serverList.add(new TrackerServer(ServerManager.this, new ConnectionlessBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("objectDecoder", new AtrackProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
 
-    private void initSuntechServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '\r'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new SuntechProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initProgressServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            TrackerServer server = new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(1024, 2, 2, 4, 0));
-                    pipeline.addLast("objectDecoder", new ProgressProtocolDecoder(dataManager, protocol, properties));
-                }
-            };
-            server.setEndianness(ByteOrder.LITTLE_ENDIAN);
-            serverList.add(server);
-        }
-    }
-
-    private void initH02Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new H02FrameDecoder());
-                    pipeline.addLast("objectDecoder", new H02ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initJt600Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new Jt600FrameDecoder());
-                    pipeline.addLast("objectDecoder", new Jt600ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initEv603Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, ';'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new Ev603ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initV680Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, "##"));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new V680ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initPt502Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            TrackerServer server = new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new Pt502FrameDecoder());
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new Pt502ProtocolDecoder(dataManager, protocol, properties));
-                }
-            };
-            server.setEndianness(ByteOrder.LITTLE_ENDIAN);
-            serverList.add(server);
-        }
-    }
-
-    private void initTr20Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new Tr20ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initNavisServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            TrackerServer server = new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(4 * 1024, 12, 2, 2, 0));
-                    pipeline.addLast("objectDecoder", new NavisProtocolDecoder(dataManager, protocol, properties));
-                }
-            };
-            server.setEndianness(ByteOrder.LITTLE_ENDIAN);
-            serverList.add(server);
-        }
-    }
-
-    private void initMeitrackServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            TrackerServer server = new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new MeitrackFrameDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new MeitrackProtocolDecoder(dataManager, protocol, properties));
-                }
-            };
-            server.setEndianness(ByteOrder.LITTLE_ENDIAN);
-            serverList.add(server);
-        }
-    }
-
-    private void initSkypatrolServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ConnectionlessBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("objectDecoder", new SkypatrolProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initGt02Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(256, 2, 1, 2, 0));
-                    pipeline.addLast("objectDecoder", new Gt02ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initGt06Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new Gt06FrameDecoder());
-                    pipeline.addLast("objectDecoder", new Gt06ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initMegastekServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new MegastekProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initNavigilServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            TrackerServer server = new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new NavigilFrameDecoder());
-                    pipeline.addLast("objectDecoder", new NavigilProtocolDecoder(dataManager, protocol, properties));
-                }
-            };
-            server.setEndianness(ByteOrder.LITTLE_ENDIAN);
-            serverList.add(server);
-        }
-    }
-
-    private void initGpsGateServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new GpsGateProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initTeltonikaServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new TeltonikaFrameDecoder());
-                    pipeline.addLast("objectDecoder", new TeltonikaProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-    
-    private void initMta6Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("httpDecoder", new HttpRequestDecoder());
-                    pipeline.addLast("httpEncoder", new HttpResponseEncoder());
-                    pipeline.addLast("objectDecoder", new Mta6ProtocolDecoder(dataManager, protocol, properties, false));
-                }
-            });
-        }
-    }
-
-    private void initMta6CanServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("httpDecoder", new HttpRequestDecoder());
-                    pipeline.addLast("httpEncoder", new HttpResponseEncoder());
-                    pipeline.addLast("objectDecoder", new Mta6ProtocolDecoder(dataManager, protocol, properties, true));
-                }
-            });
-        }
-    }
-    
-    private void initTlt2hServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(32 * 1024, "##"));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new Tlt2hProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-    
-    private void initSyrusServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '<'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new SyrusProtocolDecoder(dataManager, protocol, properties, true));
-                }
-            });
-        }
-    }
-
-    private void initWondexServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new WondexFrameDecoder());
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new WondexProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initCellocatorServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            TrackerServer server = new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CellocatorFrameDecoder());
-                    pipeline.addLast("objectDecoder", new CellocatorProtocolDecoder(dataManager, protocol, properties));
-                }
-            };
-            server.setEndianness(ByteOrder.LITTLE_ENDIAN);
-            serverList.add(server);
-        }
-    }
-
-    private void initGalileoServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            TrackerServer server = new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new GalileoFrameDecoder());
-                    pipeline.addLast("objectDecoder", new GalileoProtocolDecoder(dataManager, protocol, properties));
-                }
-            };
-            server.setEndianness(ByteOrder.LITTLE_ENDIAN);
-            serverList.add(server);
-        }
-    }
-
-    private void initYwtServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new YwtProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initTk102Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, ']'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new Tk102ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-    
-    private void initIntellitracServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new IntellitracFrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new IntellitracProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initXt7Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(256, 20, 1, 5, 0));
-                    pipeline.addLast("objectDecoder", new Xt7ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initWialonServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new WialonProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initCarscopServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '^'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new CarscopProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initApelServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            TrackerServer server = new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(1024, 2, 2, 4, 0));
-                    pipeline.addLast("objectDecoder", new ApelProtocolDecoder(dataManager, protocol, properties));
-                }
-            };
-            server.setEndianness(ByteOrder.LITTLE_ENDIAN);
-            serverList.add(server);
-        }
-    }
-
-    private void initManPowerServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, ';'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new ManPowerProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initGlobalSatServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '!'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new GlobalSatProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initAtrackServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new AtrackFrameDecoder());
-                    pipeline.addLast("objectDecoder", new AtrackProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-            serverList.add(new TrackerServer(this, new ConnectionlessBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("objectDecoder", new AtrackProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-
-        }
-    }
-
-    private void initPt3000Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, 'd')); // probably wrong
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new Pt3000ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initRuptelaServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(1024, 0, 2, 2, 0));
-                    pipeline.addLast("objectDecoder", new RuptelaProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initTopflytechServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, ')'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new TopflytechProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initLaipacServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new LaipacProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initAplicomServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new AplicomFrameDecoder());
-                    pipeline.addLast("objectDecoder", new AplicomProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initGotopServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '#'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new GotopProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initSanavServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '*'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new SanavProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initGatorServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ConnectionlessBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("objectDecoder", new GatorProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initNoranServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            TrackerServer server = new TrackerServer(this, new ConnectionlessBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("objectDecoder", new NoranProtocolDecoder(dataManager, protocol, properties));
-                }
-            };
-            server.setEndianness(ByteOrder.LITTLE_ENDIAN);
-            serverList.add(server);
-        }
-    }
-
-    private void initM2mServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new FixedLengthFrameDecoder(23));
-                    pipeline.addLast("objectDecoder", new M2mProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-    
-    private void initOsmAndServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("httpDecoder", new HttpRequestDecoder());
-                    pipeline.addLast("httpEncoder", new HttpResponseEncoder());
-                    pipeline.addLast("objectDecoder", new OsmAndProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initEasyTrackServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '#'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new EasyTrackProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initTaipServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ConnectionlessBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new SyrusProtocolDecoder(dataManager, protocol, properties, false));
-                }
-            });
-        }
-    }
-
-    private void initKhdServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(256, 3, 2));
-                    pipeline.addLast("objectDecoder", new KhdProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-    
-    private void initPiligrimServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("httpDecoder", new HttpRequestDecoder());
-                    pipeline.addLast("httpAggregator", new HttpChunkAggregator(16384));
-                    pipeline.addLast("httpEncoder", new HttpResponseEncoder());
-                    pipeline.addLast("objectDecoder", new PiligrimProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initStl060Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new Stl060FrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new Stl060ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initCarTrackServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, "##"));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new CarTrackProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initMiniFinderServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, ';'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new MiniFinderProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initHaicomServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '*'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new HaicomProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initEelinkServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(1024, 3, 2));
-                    pipeline.addLast("objectDecoder", new EelinkProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initBoxServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '\r'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new BoxProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initFreedomServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new FreedomProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initTelikServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '\0'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new TelikProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initTrackboxServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new TrackboxProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initVisiontekServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '#'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new VisiontekProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initOrionServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            TrackerServer server = new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new OrionFrameDecoder());
-                    pipeline.addLast("objectDecoder", new OrionProtocolDecoder(dataManager, protocol, properties));
-                }
-            };
-            server.setEndianness(ByteOrder.LITTLE_ENDIAN);
-            serverList.add(server);
-        }
-    }
-
-    private void initRitiServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            TrackerServer server = new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(1024, 105, 2, 3, 0));
-                    pipeline.addLast("objectDecoder", new RitiProtocolDecoder(dataManager, protocol, properties));
-                }
-            };
-            server.setEndianness(ByteOrder.LITTLE_ENDIAN);
-            serverList.add(server);
-        }
-    }
-
-    private void initUlbotechServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new UlbotechFrameDecoder());
-                    pipeline.addLast("objectDecoder", new UlbotechProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initTramigoServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            TrackerServer server = new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new TramigoFrameDecoder());
-                    pipeline.addLast("objectDecoder", new TramigoProtocolDecoder(dataManager, protocol, properties));
-                }
-            };
-            server.setEndianness(ByteOrder.LITTLE_ENDIAN);
-            serverList.add(server);
-        }
-    }
-
-    private void initTr900Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '!'));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("stringEncoder", new StringEncoder());
-                    pipeline.addLast("objectDecoder", new Tr900ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initArdi01Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new Ardi01ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
-
-    private void initXt013Server(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
-                    pipeline.addLast("stringDecoder", new StringDecoder());
-                    pipeline.addLast("objectDecoder", new Xt013ProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
-    }
+            }
+        });
+
+        factories.put("pt3000", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder",
+                                new CharacterDelimiterFrameDecoder(1024, 'd')); // probably wrong
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new Pt3000ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("ruptela", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(1024, 0, 2, 2, 0));
+                        pipeline.addLast("objectDecoder",
+                                new RuptelaProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("topflytech", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, ')'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new TopflytechProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("laipac", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new LaipacProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("aplicom", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new AplicomFrameDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new AplicomProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("gotop", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '#'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder", new GotopProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("sanav", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '*'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder", new SanavProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("gator", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ConnectionlessBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("objectDecoder", new GatorProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("noran", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                TrackerServer server = new TrackerServer(ServerManager.this, new ConnectionlessBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("objectDecoder", new NoranProtocolDecoder(dataManager, protocol, properties));
+                    }
+                };
+                server.setEndianness(ByteOrder.LITTLE_ENDIAN);
+                serverList.add(server);
+            }
+        });
+
+        factories.put("m2m", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new FixedLengthFrameDecoder(23));
+                        pipeline.addLast("objectDecoder", new M2mProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("osmand", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("httpDecoder", new HttpRequestDecoder());
+                        pipeline.addLast("httpEncoder", new HttpResponseEncoder());
+                        pipeline.addLast("objectDecoder", new OsmAndProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("easytrack", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '#'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new EasyTrackProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("taip", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ConnectionlessBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new SyrusProtocolDecoder(dataManager, protocol, properties, false));
+                    }
+                });
+            }
+        });
+
+        factories.put("khd", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(256, 3, 2));
+                        pipeline.addLast("objectDecoder", new KhdProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("piligrim", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("httpDecoder", new HttpRequestDecoder());
+                        pipeline.addLast("httpAggregator", new HttpChunkAggregator(16384));
+                        pipeline.addLast("httpEncoder", new HttpResponseEncoder());
+                        pipeline.addLast("objectDecoder",
+                                new PiligrimProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("stl060", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new Stl060FrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder", new Stl060ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("cartrack", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, "##"));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new CarTrackProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("minifinder", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, ';'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new MiniFinderProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("haicom", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '*'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder", new HaicomProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("eelink", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(1024, 3, 2));
+                        pipeline.addLast("objectDecoder", new EelinkProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("box", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '\r'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder", new BoxProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("freedom", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new FreedomProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("telik", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '\0'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder", new TelikProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("trackbox", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder",
+                                new TrackboxProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("visiontek", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '#'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new VisiontekProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("orion", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                TrackerServer server = new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new OrionFrameDecoder());
+                        pipeline.addLast("objectDecoder", new OrionProtocolDecoder(dataManager, protocol, properties));
+                    }
+                };
+                server.setEndianness(ByteOrder.LITTLE_ENDIAN);
+                serverList.add(server);
+            }
+        });
+
+        factories.put("riti", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                TrackerServer server = new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(1024, 105, 2, 3, 0));
+                        pipeline.addLast("objectDecoder", new RitiProtocolDecoder(dataManager, protocol, properties));
+                    }
+                };
+                server.setEndianness(ByteOrder.LITTLE_ENDIAN);
+                serverList.add(server);
+            }
+        });
+
+        factories.put("ulbotech", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new UlbotechFrameDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new UlbotechProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("tramigo", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                TrackerServer server = new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new TramigoFrameDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new TramigoProtocolDecoder(dataManager, protocol, properties));
+                    }
+                };
+                server.setEndianness(ByteOrder.LITTLE_ENDIAN);
+                serverList.add(server);
+            }
+        });
+
+        factories.put("tr900", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new CharacterDelimiterFrameDecoder(1024, '!'));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("stringEncoder", new StringEncoder());
+                        pipeline.addLast("objectDecoder", new Tr900ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("ardi01", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder", new Ardi01ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("xt013", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(1024));
+                        pipeline.addLast("stringDecoder", new StringDecoder());
+                        pipeline.addLast("objectDecoder", new Xt013ProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
+
+        factories.put("autofon", new ProtocolFactory() {
+            @Override
+            public void init(final String protocol) {
+                serverList.add(new TrackerServer(ServerManager.this, new ServerBootstrap(), protocol) {
+                    @Override
+                    protected void addSpecificHandlers(ChannelPipeline pipeline) {
+                        pipeline.addLast("frameDecoder", new AutoFonFrameDecoder());
+                        pipeline.addLast("objectDecoder",
+                                new AutoFonProtocolDecoder(dataManager, protocol, properties));
+                    }
+                });
+            }
+        });
 
-    private void initAutoFonServer(final String protocol) throws SQLException {
-        if (isProtocolEnabled(properties, protocol)) {
-            serverList.add(new TrackerServer(this, new ServerBootstrap(), protocol) {
-                @Override
-                protected void addSpecificHandlers(ChannelPipeline pipeline) {
-                    pipeline.addLast("frameDecoder", new AutoFonFrameDecoder());
-                    pipeline.addLast("objectDecoder", new AutoFonProtocolDecoder(dataManager, protocol, properties));
-                }
-            });
-        }
+        return factories;
     }
 
 }
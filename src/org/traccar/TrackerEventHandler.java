@@ -21,7 +21,9 @@ import org.jboss.netty.handler.timeout.IdleStateAwareChannelHandler;
 import org.jboss.netty.handler.timeout.IdleStateEvent;
 import org.traccar.helper.Log;
 import org.traccar.database.DataManager;
+import org.traccar.database.PositionWriter;
 import org.traccar.model.Position;
+import org.traccar.notification.NotificationDispatcher;
 
 /**
  * Tracker message handler
@@ -34,11 +36,14 @@ public class TrackerEventHandler extends IdleStateAwareChannelHandler {
      */
     private DataManager dataManager;
 
-    TrackerEventHandler(DataManager newDataManager) {
+    private final NotificationDispatcher notificationDispatcher;
+
+    TrackerEventHandler(DataManager newDataManager, NotificationDispatcher notificationDispatcher) {
         dataManager = newDataManager;
+        this.notificationDispatcher = notificationDispatcher;
     }
 
-    private Long processSinglePosition(Position position) {
+    private void logPosition(Position position) {
         if (position == null) {
             Log.info("processSinglePosition null message");
         } else {
@@ -49,24 +54,79 @@ public class TrackerEventHandler extends IdleStateAwareChannelHandler {
             s.append("lon: ").append(position.getLongitude());
             Log.info(s.toString());
         }
+    }
+
+    private void sendMessages(Position position) {
+        notificationDispatcher.dispatch(position);
+    }
+
+    private Long processSinglePosition(Position position) {
+        logPosition(position);
 
         // Write position to database
         Long id = null;
+        if (position != null && dataManager.isSpoolPending(position.getDeviceId()) && dataManager.spoolPosition(position)) {
+            return null;
+        }
         try {
             id = dataManager.addPosition(position);
-            if(id!=null) {
-                dataManager.sendGcmMessage(position);
-                dataManager.sendPubNubMessage(position);
-                dataManager.sendSnsMessage(position);
-            }
         } catch (Exception error) {
             Log.warning(error);
+            if (position != null) {
+                dataManager.spoolPosition(position);
+            }
+        }
+        if (id != null) {
+            sendMessages(position);
         }
         return id;
     }
 
+    /**
+     * Queue position for the batch writer, notifications are sent once it is stored
+     */
+    private void writeSinglePosition(PositionWriter writer, Position position, final boolean latest) {
+        logPosition(position);
+        if (position == null) {
+            return;
+        }
+
+        try {
+            writer.write(position, new PositionWriter.Callback() {
+                @Override
+                public void onStored(Position position, Long id) {
+                    if (id != null) {
+                        sendMessages(position);
+                        if (latest) {
+                            try {
+                                dataManager.updateLatestPosition(position, id);
+                            } catch (Exception error) {
+                                Log.warning(error);
+                            }
+                        }
+                    }
+                }
+            });
+        } catch (InterruptedException error) {
+            Log.warning(error);
+        }
+    }
+
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
+        PositionWriter writer = dataManager.getPositionWriter();
+        if (writer != null) {
+            if (e.getMessage() instanceof Position) {
+                writeSinglePosition(writer, (Position) e.getMessage(), true);
+            } else if (e.getMessage() instanceof List) {
+                List<Position> positions = (List<Position>) e.getMessage();
+                for (int i = 0; i < positions.size(); i++) {
+                    writeSinglePosition(writer, positions.get(i), i == positions.size() - 1);
+                }
+            }
+            return;
+        }
+
         Long id = null;
         Position lastPostition = null;
         if (e.getMessage() instanceof Position) {
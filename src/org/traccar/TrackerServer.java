@@ -17,6 +17,7 @@ package org.traccar;
 
 import java.net.InetSocketAddress;
 import java.nio.ByteOrder;
+import java.util.Properties;
 import org.jboss.netty.bootstrap.Bootstrap;
 import org.jboss.netty.bootstrap.ConnectionlessBootstrap;
 import org.jboss.netty.bootstrap.ServerBootstrap;
@@ -57,6 +58,8 @@ public abstract class TrackerServer {
         String portProperty = serverManager.getProperties().getProperty(protocol + ".port");
         port = Integer.valueOf(portProperty);
 
+        setSocketOptions(serverManager.getProperties());
+
         bootstrap.setPipelineFactory(new BasePipelineFactory(serverManager, this, protocol) {
             @Override
             protected void addSpecificHandlers(ChannelPipeline pipeline) {
@@ -67,6 +70,37 @@ public abstract class TrackerServer {
 
     protected abstract void addSpecificHandlers(ChannelPipeline pipeline);
 
+    private String getOption(Properties properties, String name) {
+        String value = properties.getProperty(protocol + "." + name);
+        return value != null ? value : properties.getProperty("server." + name);
+    }
+
+    /**
+     * Socket options from protocol keys, falling back to global server keys
+     */
+    private void setSocketOptions(Properties properties) {
+        String receiveBufferSize = getOption(properties, "receiveBufferSize");
+        if (bootstrap instanceof ServerBootstrap) {
+            String value = getOption(properties, "backlog");
+            if (value != null) {
+                bootstrap.setOption("backlog", Integer.valueOf(value));
+            }
+            value = getOption(properties, "tcpNoDelay");
+            if (value != null) {
+                bootstrap.setOption("child.tcpNoDelay", Boolean.valueOf(value));
+            }
+            value = getOption(properties, "keepAlive");
+            if (value != null) {
+                bootstrap.setOption("child.keepAlive", Boolean.valueOf(value));
+            }
+            if (receiveBufferSize != null) {
+                bootstrap.setOption("child.receiveBufferSize", Integer.valueOf(receiveBufferSize));
+            }
+        } else if (receiveBufferSize != null) {
+            bootstrap.setOption("receiveBufferSize", Integer.valueOf(receiveBufferSize));
+        }
+    }
+
     /**
      * Server port
      */
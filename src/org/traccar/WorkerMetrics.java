@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.netty.channel.ChannelHandler;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+import org.traccar.helper.Log;
+
+/**
+ * Per thread load of the I/O pools: open channels, socket reads and CPU usage since the last report
+ */
+public class WorkerMetrics {
+
+    private static final ThreadLocal<Counters> CURRENT = new ThreadLocal<Counters>();
+    private static final List<Counters> ALL = new CopyOnWriteArrayList<Counters>();
+
+    private static final class Counters {
+
+        private final Thread thread;
+        private final AtomicInteger channels = new AtomicInteger();
+        private final AtomicLong reads = new AtomicLong();
+        private long reportedReads;
+        private long reportedCpuTime;
+
+        private Counters(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    private WorkerMetrics() {
+    }
+
+    /**
+     * Threads created by the factory are named after the pool and tracked until they exit
+     */
+    public static ThreadFactory createThreadFactory(final String name) {
+        final AtomicInteger index = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Counters counters = new Counters(Thread.currentThread());
+                        CURRENT.set(counters);
+                        ALL.add(counters);
+                        try {
+                            runnable.run();
+                        } finally {
+                            ALL.remove(counters);
+                        }
+                    }
+                }, name + "-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Counts events on the I/O thread that delivers them, one instance is shared by all pipelines
+     */
+    @ChannelHandler.Sharable
+    public static class Handler extends SimpleChannelUpstreamHandler {
+
+        @Override
+        public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+            Counters counters = CURRENT.get();
+            if (counters != null) {
+                counters.channels.incrementAndGet();
+            }
+            super.channelConnected(ctx, e);
+        }
+
+        @Override
+        public void channelDisconnected(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+            Counters counters = CURRENT.get();
+            if (counters != null) {
+                counters.channels.decrementAndGet();
+            }
+            super.channelDisconnected(ctx, e);
+        }
+
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+            Counters counters = CURRENT.get();
+            if (counters != null) {
+                counters.reads.incrementAndGet();
+            }
+            super.messageReceived(ctx, e);
+        }
+    }
+
+    private static final Handler HANDLER = new Handler();
+
+    public static Handler getHandler() {
+        return HANDLER;
+    }
+
+    private static long lastReport = System.nanoTime();
+
+    /**
+     * One line per thread, CPU usage is relative to the time passed since the previous report
+     */
+    public static synchronized String report() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long now = System.nanoTime();
+        long elapsed = Math.max(now - lastReport, 1);
+        lastReport = now;
+
+        StringBuilder result = new StringBuilder();
+        for (Counters counters : ALL) {
+            long reads = counters.reads.get();
+            long cpuTime = threadBean.isThreadCpuTimeSupported()
+                    ? threadBean.getThreadCpuTime(counters.thread.getId()) : -1;
+            result.append(counters.thread.getName())
+                    .append(" channels=").append(counters.channels.get())
+                    .append(" reads=").append(reads - counters.reportedReads);
+            if (cpuTime >= 0) {
+                result.append(" cpu=").append((cpuTime - counters.reportedCpuTime) * 100 / elapsed).append('%');
+                counters.reportedCpuTime = cpuTime;
+            }
+            result.append('\n');
+            counters.reportedReads = reads;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Log the report every interval seconds using the global timer
+     */
+    public static void schedule(final long interval) {
+        GlobalTimer.getTimer().newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) {
+                Log.info("I/O thread load:\n" + report());
+                try {
+                    timeout.getTimer().newTimeout(this, interval, TimeUnit.SECONDS);
+                } catch (IllegalStateException error) {
+                    // Timer is stopped on shutdown
+                }
+            }
+        }, interval, TimeUnit.SECONDS);
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+
+/**
+ * Bulk insert through PostgreSQL COPY FROM STDIN, derived from a plain INSERT statement
+ *
+ * COPY does not return generated keys, so when a key query is given identifiers are taken from it
+ * in advance and written explicitly into the key column.
+ */
+public class CopyStatement {
+
+    private final NamedParameterStatement statement;
+    private final DataSource dataSource;
+    private final NamedParameterStatement keysQuery;
+    private final String copyQuery;
+
+    private static final NamedParameterStatement.ResultSetProcessor<Long> KEY_PROCESSOR =
+            new NamedParameterStatement.ResultSetProcessor<Long>() {
+        @Override
+        public Long processNextRow(ResultSet rs) throws SQLException {
+            return rs.getLong(1);
+        }
+    };
+
+    /**
+     * Keys query takes :count parameter and returns one new key per row
+     */
+    public CopyStatement(
+            NamedParameterStatement statement, DataSource dataSource, String keysQuery, String keyColumn) {
+        this.statement = statement;
+        this.dataSource = dataSource;
+        if (keysQuery != null) {
+            this.keysQuery = new NamedParameterStatement(keysQuery, dataSource);
+            this.copyQuery = statement.getCopyQuery(keyColumn);
+        } else {
+            this.keysQuery = null;
+            this.copyQuery = statement.getCopyQuery(null);
+        }
+    }
+
+    /**
+     * Check that the statement can be converted and the database speaks COPY protocol
+     */
+    public boolean isSupported() {
+        if (copyQuery == null) {
+            return false;
+        }
+        Connection conn = null;
+        try {
+            conn = dataSource.getConnection();
+            return conn.isWrapperFor(PGConnection.class);
+        } catch (SQLException error) {
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException sqex) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy all items in one round trip, returns keys if key query is configured
+     */
+    public <T> List<Long> execute(List<T> batch, NamedParameterStatement.Binding<? super T> binding)
+            throws SQLException {
+        Connection conn = dataSource.getConnection();
+        try {
+            return execute(conn, batch, binding);
+        } finally {
+            conn.close();
+        }
+    }
+
+    /**
+     * Copy all items on the given connection, within its transaction if one is open
+     */
+    public <T> List<Long> execute(Connection conn, List<T> batch, NamedParameterStatement.Binding<? super T> binding)
+            throws SQLException {
+        List<Long> keys = null;
+        if (keysQuery != null) {
+            keys = keysQuery.prepare().setInt("count", batch.size()).executeQuery(KEY_PROCESSOR);
+            if (keys.size() != batch.size()) {
+                throw new SQLException("Expected " + batch.size() + " keys, got " + keys.size());
+            }
+            keys = new ArrayList<Long>(keys);
+        }
+
+        StringBuilder data = new StringBuilder(batch.size() * 128);
+        NamedParameterStatement.RowBinder binder = statement.createRowBinder();
+        for (int i = 0; i < batch.size(); i++) {
+            if (keys != null) {
+                data.append(keys.get(i)).append('\t');
+            }
+            binding.bind(binder, batch.get(i));
+            binder.appendRow(data);
+        }
+
+        try {
+            conn.unwrap(PGConnection.class).getCopyAPI().copyIn(copyQuery, new StringReader(data.toString()));
+        } catch (IOException error) {
+            throw new SQLException(error);
+        }
+
+        return keys;
+    }
+
+}
@@ -15,9 +15,6 @@
  */
 package org.traccar.database;
 
-import com.amazonaws.services.sns.AmazonSNSClient;
-import com.amazonaws.services.sns.model.PublishRequest;
-import com.amazonaws.services.sns.model.PublishResult;
 import com.amazon.sqs.javamessaging.AmazonSQSMessagingClientWrapper;
 import com.amazon.sqs.javamessaging.SQSConnection;
 import com.amazon.sqs.javamessaging.SQSConnectionFactory;
@@ -25,39 +22,23 @@ import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
-import com.google.android.gcm.server.Message;
-import com.google.android.gcm.server.MulticastResult;
-import com.google.android.gcm.server.Sender;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
-import com.mchange.v2.c3p0.ComboPooledDataSource;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.sql.*;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.jms.*;
 import javax.jms.Queue;
 import javax.sql.DataSource;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
-import com.pubnub.api.PNConfiguration;
-import com.pubnub.api.PubNub;
-import com.pubnub.api.PubNubException;
 import org.traccar.helper.DriverDelegate;
+import org.traccar.helper.ImeiKey;
 import org.traccar.helper.Log;
 import org.traccar.model.Device;
 import org.traccar.model.Position;
-import org.traccar.model.SNSMessage;
-import org.xml.sax.InputSource;
 
 /**
  * Database abstraction class
@@ -65,45 +46,180 @@ import org.xml.sax.InputSource;
 public class DataManager {
 
     public DataManager(Properties properties) throws Exception {
+        deviceStateStore = new DeviceStateStore(properties);
         if (properties != null) {
             initDatabase(properties);
+            initUnknownDevices(properties);
             initGcm(properties);
-            initPubNub(properties);
 
-            // Refresh delay
-            String refreshDelay = properties.getProperty("database.refreshDelay");
-            if (refreshDelay != null) {
-                devicesRefreshDelay = Long.valueOf(refreshDelay) * 1000;
-            } else {
-                devicesRefreshDelay = DEFAULT_REFRESH_DELAY * 1000;
+            if (Boolean.valueOf(properties.getProperty("database.writer.enable"))) {
+                positionWriter = new PositionWriter(this, properties);
+            }
+
+            initSpool(properties);
+
+            if (Boolean.valueOf(properties.getProperty("database.latest.coalesce"))) {
+                latestPositionUpdater = new LatestPositionUpdater(this, properties);
             }
+
+            initDeviceRegistry(properties);
+            deviceInvalidation = new DeviceInvalidation(this, properties);
         }
     }
     
-    private DataSource dataSource;
-    
+    private final List<DatabaseShard> shards = new ArrayList<DatabaseShard>();
+
+    /**
+     * Data source of the first shard, which is the main database
+     */
     public DataSource getDataSource() {
-        return dataSource;
+        return shards.isEmpty() ? null : shards.get(0).getDataSource();
     }
 
-    private final Map<Long, Position> lastPositions = new HashMap<Long, Position>();
+    public DataSource getShardDataSource(int index) {
+        return shards.get(index).getDataSource();
+    }
 
-    private Sender gcmSender;
-    private PubNub pubNub;
+    public int getShardCount() {
+        return shards.size();
+    }
 
     /**
-     * Database statements
+     * Shard holding the device and its positions, stable as long as the number of shards does not change
      */
-    private NamedParameterStatement queryGetDevices;
+    public int getShardIndex(Long deviceId) {
+        if (shards.size() <= 1 || deviceId == null) {
+            return 0;
+        }
+        return (deviceId.hashCode() & Integer.MAX_VALUE) % shards.size();
+    }
+
+    private DatabaseShard getShard(Long deviceId) {
+        return shards.isEmpty() ? null : shards.get(getShardIndex(deviceId));
+    }
+
+    private PositionWriter positionWriter;
+
+    public PositionWriter getPositionWriter() {
+        return positionWriter;
+    }
+
+    private final List<PositionSpool> positionSpools = new ArrayList<PositionSpool>();
+
+    private LatestPositionUpdater latestPositionUpdater;
+
+    private static final int DEFAULT_SPOOL_BATCH_SIZE = 100;
+    private static final long DEFAULT_SPOOL_RETRY_DELAY = 5000;
+
+    /**
+     * One spool per shard, the main database uses the configured directory and others a subdirectory of it
+     */
+    private void initSpool(Properties properties) throws IOException {
+        String path = properties.getProperty("database.spool.path");
+        if (path == null) {
+            return;
+        }
+
+        String value = properties.getProperty("database.spool.segmentSize");
+        int segmentSize = value != null ? Integer.valueOf(value) : 0;
+
+        value = properties.getProperty("database.spool.batchSize");
+        int batchSize = value != null ? Integer.valueOf(value) : DEFAULT_SPOOL_BATCH_SIZE;
+
+        value = properties.getProperty("database.spool.retryDelay");
+        long retryDelay = value != null ? Long.valueOf(value) : DEFAULT_SPOOL_RETRY_DELAY;
+
+        for (int i = 0; i < Math.max(shards.size(), 1); i++) {
+            File directory = i == 0 ? new File(path) : new File(path, "shard-" + i);
+            positionSpools.add(new PositionSpool(directory, segmentSize));
+        }
+        for (int i = 0; i < positionSpools.size(); i++) {
+            positionSpools.get(i).startReplay(this, i, batchSize, retryDelay);
+        }
+    }
+
+    /**
+     * Spool of the device shard, null if spool is not configured
+     */
+    PositionSpool getPositionSpool(Long deviceId) {
+        return positionSpools.isEmpty() ? null : positionSpools.get(getShardIndex(deviceId));
+    }
+
+    /**
+     * Check whether earlier positions of the device shard are still waiting in the spool
+     */
+    public boolean isSpoolPending(Long deviceId) {
+        PositionSpool positionSpool = getPositionSpool(deviceId);
+        return positionSpool != null && !positionSpool.isEmpty();
+    }
+
+    /**
+     * Keep position in the spool of its shard until the shard is available, returns false if spool is not configured
+     */
+    public boolean spoolPosition(Position position) {
+        PositionSpool positionSpool = getPositionSpool(position.getDeviceId());
+        if (positionSpool != null) {
+            try {
+                positionSpool.append(position);
+                return true;
+            } catch (IOException error) {
+                Log.warning(error);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Store positions replayed from the spool of a shard
+     *
+     * Positions of other shards, left by a run with a different shard count, are moved to their own spool once
+     * the rest is stored, so a failed attempt can be retried as a whole.
+     */
+    void replayPositions(int shard, List<Position> positions) throws SQLException {
+        List<Position> own = new ArrayList<Position>(positions.size());
+        List<Position> other = new ArrayList<Position>();
+        for (Position position : positions) {
+            if (getShardIndex(position.getDeviceId()) == shard) {
+                own.add(position);
+            } else {
+                other.add(position);
+            }
+        }
+
+        if (!own.isEmpty() && !shards.isEmpty() && shard < shards.size()) {
+            List<Position> batch = new ArrayList<Position>(own.size());
+            for (Position position : own) {
+                if (shards.get(shard).canStore(position)) {
+                    batch.add(position);
+                }
+            }
+            if (!batch.isEmpty()) {
+                shards.get(shard).addPositions(batch);
+                for (Position position : batch) {
+                    deviceStateStore.update(position);
+                }
+            }
+        }
+
+        for (Position position : other) {
+            spoolPosition(position);
+        }
+    }
+
+    private final DeviceStateStore deviceStateStore;
+
+    public DeviceStateStore getDeviceStateStore() {
+        return deviceStateStore;
+    }
+
     private String awsAccessKeyId;
     private String awsSecretAccessKey;
-    private AmazonSNSClient snsClient;
-    private Gson gson;
-    private NamedParameterStatement queryAddPosition;
-    private NamedParameterStatement queryUpdatePosition;
-    private NamedParameterStatement queryUpdateLatestPosition;
     private NamedParameterStatement queryGetGcmIds;
-    private static final DateFormat DATE_FORMAT = new SimpleDateFormat("d/MM/yyyy h:mm:ssa");
+    private NamedParameterStatement queryGetAllGcmIds;
+    private GcmIdCache gcmIds;
+
+    private static final int DEFAULT_GCM_CACHE_SIZE = 100000;
+    private static final long DEFAULT_GCM_CACHE_TIMEOUT = 300;
 
     /**
      * Initialize database
@@ -125,22 +241,16 @@ public class DataManager {
             }
         }
         
-        // Initialize data source
-        ComboPooledDataSource ds = new ComboPooledDataSource();
-        ds.setDriverClass(properties.getProperty("database.driver"));
-        ds.setJdbcUrl(properties.getProperty("database.url"));
-        ds.setUser(properties.getProperty("database.user"));
-        ds.setPassword(properties.getProperty("database.password"));
-        ds.setIdleConnectionTestPeriod(600);
-        ds.setTestConnectionOnCheckin(true);
-        dataSource = ds;
-
-        // Load statements from configuration
-        String query;
-
-        query = properties.getProperty("database.selectDevice");
-        if (query != null) {
-            queryGetDevices = new NamedParameterStatement(query, dataSource);
+        // Main database is the first shard, additional ones are numbered from 1
+        shards.add(new DatabaseShard(this, properties, properties.getProperty("database.url"),
+                properties.getProperty("database.user"), properties.getProperty("database.password")));
+        for (int i = 1; properties.getProperty("database.shard." + i + ".url") != null; i++) {
+            String prefix = "database.shard." + i + ".";
+            shards.add(new DatabaseShard(this, properties, properties.getProperty(prefix + "url"),
+                    properties.getProperty(prefix + "user"), properties.getProperty(prefix + "password")));
+        }
+        if (shards.size() > 1) {
+            Log.info("Using " + shards.size() + " database shards");
         }
 
         awsAccessKeyId = properties.getProperty("aws.accessKey");
@@ -169,11 +279,6 @@ public class DataManager {
 
                 }
             };
-            snsClient = new AmazonSNSClient(credentialsProvider);
-            snsClient.setRegion(Region.getRegion(Regions.AP_SOUTHEAST_1));
-            GsonBuilder builder = new GsonBuilder();
-            gson = builder.create();
-
             if (awsSQSQueueName != null) {
                 // Create the connection factory using the environment variable credential provider.
                 // Connections this factory creates can talk to the queues in us-east-1 region.
@@ -210,72 +315,83 @@ public class DataManager {
                 connection.start();
             }
         }
-
-        query = properties.getProperty("database.insertPosition");
-        if (query != null) {
-            queryAddPosition = new NamedParameterStatement(query, dataSource, Statement.RETURN_GENERATED_KEYS);
-        }
-
-        query = properties.getProperty("database.updatePosition");
-        if (query != null) {
-            queryUpdatePosition = new NamedParameterStatement(query, dataSource);
-        }
-
-        query = properties.getProperty("database.updateLatestPosition");
-        if (query != null) {
-            queryUpdateLatestPosition = new NamedParameterStatement(query, dataSource);
-        }
     }
 
+    /**
+     * GCM registration ids are read by GcmSink, the queries stay here with the rest of the database access
+     */
     private void initGcm(Properties properties) throws Exception {
-        String enableGcm = properties.getProperty("gcm.enable");
-        String gcmApiKey = properties.getProperty("gcm.apiKey");
         String query = properties.getProperty("database.getGcmIds");
-        if (enableGcm != null && Boolean.valueOf(enableGcm) && gcmApiKey!=null && gcmApiKey.length()>10 && query != null) {
-            gcmSender = new Sender(gcmApiKey);
-            Log.info("Created GCM Sender");
-            queryGetGcmIds = new NamedParameterStatement(query, dataSource);
+        if (Boolean.valueOf(properties.getProperty("gcm.enable")) && query != null) {
+            queryGetGcmIds = new NamedParameterStatement(query, getDataSource());
             Log.info("GCM Id query: "+queryGetGcmIds);
+
+            String size = properties.getProperty("gcm.cacheSize");
+            String timeout = properties.getProperty("gcm.cacheTimeout");
+            gcmIds = new GcmIdCache(
+                    size != null ? Integer.valueOf(size) : DEFAULT_GCM_CACHE_SIZE,
+                    (timeout != null ? Long.valueOf(timeout) : DEFAULT_GCM_CACHE_TIMEOUT) * 1000);
+            String allQuery = properties.getProperty("database.getAllGcmIds");
+            if (allQuery != null) {
+                queryGetAllGcmIds = new NamedParameterStatement(allQuery, getDataSource());
+            }
         }
     }
 
-    private void initPubNub(Properties properties) throws Exception {
-        String enablePubNub = properties.getProperty("pubnub.enable");
-        String pubNubPublishKey = properties.getProperty("pubnub.publishKey");
-        String pubNubSubscribeKey = properties.getProperty("pubnub.subscribeKey");
-        if (enablePubNub != null && Boolean.valueOf(enablePubNub) && pubNubSubscribeKey!=null && pubNubSubscribeKey.length()>10) {
-            PNConfiguration pnConfiguration = new PNConfiguration();
-            pnConfiguration.setPublishKey(pubNubPublishKey);
-            pnConfiguration.setSubscribeKey(pubNubSubscribeKey);
-            pnConfiguration.setSecure(true);
-            pnConfiguration.setUuid("gps.jooleh.com");
-            pubNub = new PubNub(pnConfiguration);
-            Log.info("Created PubNub publisher");
+    /**
+     * Builds devices from rows, optional columns are looked up once per result set
+     */
+    private abstract static class DeviceRowHandler implements NamedParameterStatement.RowHandler {
+
+        private int id;
+        private int imei;
+        private int uid;
+        private int topic;
+        private int externalId;
+        private int resId;
+
+        private static int findColumn(ResultSetMetaData metaData, String label) throws SQLException {
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                if (metaData.getColumnLabel(i).equalsIgnoreCase(label)) {
+                    return i;
+                }
+            }
+            return 0;
         }
-    }
 
-    private final NamedParameterStatement.ResultSetProcessor<Device> deviceResultSetProcessor = new NamedParameterStatement.ResultSetProcessor<Device>() {
         @Override
-        public Device processNextRow(ResultSet rs) throws SQLException {
-            Device device = new Device();
-            device.setId(rs.getLong("id"));
-            device.setImei(rs.getString("imei"));
+        public void prepare(ResultSet rs) throws SQLException {
             ResultSetMetaData metaData = rs.getMetaData();
-            if(metaData.getColumnCount()>2 && metaData.getColumnLabel(3).equals("uid")){
-                device.setUniqueId(rs.getString("uid"));
+            id = rs.findColumn("id");
+            imei = rs.findColumn("imei");
+            uid = findColumn(metaData, "uid");
+            topic = findColumn(metaData, "topic");
+            externalId = findColumn(metaData, "external_id");
+            resId = findColumn(metaData, "res_id");
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            Device device = new Device();
+            device.setId(rs.getLong(id));
+            device.setImei(rs.getString(imei));
+            if (uid > 0) {
+                device.setUniqueId(rs.getString(uid));
             }
-            if(metaData.getColumnCount()>3 && metaData.getColumnLabel(4).equals("topic")){
-                device.setSnsTopicName(rs.getString("topic"));
+            if (topic > 0) {
+                device.setSnsTopicName(rs.getString(topic));
             }
-            if(metaData.getColumnCount()>4 && metaData.getColumnLabel(5).equals("external_id")){
-                device.setExternalId(rs.getString("external_id"));
+            if (externalId > 0) {
+                device.setExternalId(rs.getString(externalId));
             }
-            if(metaData.getColumnCount()>5 && metaData.getColumnLabel(6).equals("res_id")){
-                device.setResId(rs.getString("res_id"));
+            if (resId > 0) {
+                device.setResId(rs.getString(resId));
             }
-            return device;
+            processDevice(device);
         }
-    };
+
+        protected abstract void processDevice(Device device);
+    }
 
     private final NamedParameterStatement.ResultSetProcessor<String> gcmResultSetProcessor =
             new NamedParameterStatement.ResultSetProcessor<String>() {
@@ -286,73 +402,123 @@ public class DataManager {
     };
 
     public List<Device> getDevices() throws SQLException {
-        if (queryGetDevices != null) {
-            return queryGetDevices.prepare().executeQuery(deviceResultSetProcessor);
-        } else {
-            return new LinkedList<Device>();
+        final List<Device> result = new ArrayList<Device>();
+        for (DatabaseShard shard : shards) {
+            shard.loadDevices(new DeviceRowHandler() {
+                @Override
+                protected void processDevice(Device device) {
+                    result.add(device);
+                }
+            });
         }
+        return result;
     }
 
-
-    public void sendPubNubMessage(Position position) throws SQLException, IOException {
-        Device device = getDeviceById(position.getDeviceId());
-        if(pubNub!=null && device!=null) {
-            JsonObject message = new JsonObject();
-            message.addProperty("uid", device.getUniqueId());
-            message.addProperty("latitude", position.getLatitude());
-            message.addProperty("longitude", position.getLongitude());
-            message.addProperty("time", DATE_FORMAT.format(position.getTime()));
-            message.addProperty("start_time", DATE_FORMAT.format(position.getStartTime()));
-            JsonObject pubNubPacket = new JsonObject();
-            pubNubPacket.add("data", message);
-            pubNubPacket.addProperty("collapse_key", "gps_data");
-            pubNubPacket.addProperty("time_to_live", 600);
-
-            Log.info("Sending PubNbub message:"+pubNubPacket.toString()+" to channels: "+"rider_"+device.getUniqueId() + ", "+"outlet_"+device.getResId());
-            try {
-                pubNub.publish().message(pubNubPacket).channel("rider_"+device.getUniqueId()).sync();
-                pubNub.publish().message(pubNubPacket).channel("outlet_"+device.getResId()).sync();
-            } catch (PubNubException e) {
-                Log.warning("PubNub error: ", e);
+    /**
+     * Load devices modified since the given time, false if some shard has no changes query
+     */
+    boolean loadChangedDevices(Date since, final List<Device> result) throws SQLException {
+        for (DatabaseShard shard : shards) {
+            if (!shard.isChangedDevicesSupported()) {
+                return false;
             }
         }
+        for (DatabaseShard shard : shards) {
+            shard.loadChangedDevices(since, new DeviceRowHandler() {
+                @Override
+                protected void processDevice(Device device) {
+                    result.add(device);
+                }
+            });
+        }
+        return !shards.isEmpty();
     }
 
-    public void sendGcmMessage(Position position) throws SQLException, IOException {
-        if (queryGetGcmIds != null && getDeviceById(position.getDeviceId())!=null) {
-            List<String> gcmIds = assignGcmVariables(queryGetGcmIds.prepare(), position).executeQuery(gcmResultSetProcessor);
-            if(gcmIds.size()>0){
-                Message message = new Message.Builder()
-                        .collapseKey("gps_data")
-                        .timeToLive(600)
-                        .addData("uid", String.valueOf(getDeviceById(position.getDeviceId()).getUniqueId()))
-                        .addData("latitude", String.valueOf(position.getLatitude()))
-                        .addData("longitude", String.valueOf(position.getLongitude()))
-                        .addData("time", DATE_FORMAT.format(position.getTime()))
-                        .addData("start_time", DATE_FORMAT.format(position.getStartTime()))
-                        .build();
-                Log.info("Sending GCM message:"+message.getData()+" to gcmIds: "+gcmIds);
-                MulticastResult result = gcmSender.send(message, gcmIds, 1);
-                Log.info("GCM Server Response:"+result.toString());
+    /**
+     * Load the given devices from their shards, false if there is no query by id
+     */
+    boolean loadDevices(Set<Long> ids, final List<Device> result) throws SQLException {
+        for (DatabaseShard shard : shards) {
+            if (!shard.isDeviceByIdSupported()) {
+                return false;
+            }
+        }
+        DeviceRowHandler handler = new DeviceRowHandler() {
+            @Override
+            protected void processDevice(Device device) {
+                result.add(device);
             }
+        };
+        for (Long id : ids) {
+            getShard(id).loadDevice(id, handler);
         }
+        return !shards.isEmpty();
     }
 
-    public void sendSnsMessage(Position position) throws SQLException, IOException {
-        Device device = getDeviceById(position.getDeviceId());
-        if (device!=null && device.getSnsTopicName()!=null && !device.getSnsTopicName().equals("")) {
-            //publish to an SNS topic
-            String msg = gson.toJson(SNSMessage.fromPosition(position, device.getImei(), device.getExternalId()));
-            Log.info("Sending SNS message:"+msg+" to topic: "+device.getSnsTopicName());
-            PublishRequest publishRequest = new PublishRequest(device.getSnsTopicName(), msg);
-            PublishResult publishResult = snsClient.publish(publishRequest);
-            Log.info("SNS Message id:"+publishResult.getMessageId());
+    /**
+     * Stream devices straight into the index builder without an intermediate list
+     */
+    void loadDevices(final DeviceIndex.Builder builder) throws SQLException {
+        for (DatabaseShard shard : shards) {
+            shard.loadDevices(new DeviceRowHandler() {
+                @Override
+                protected void processDevice(Device device) {
+                    builder.add(device);
+                }
+            });
         }
+        loadAllGcmIds();
     }
 
-    private NamedParameterStatement.Params assignGcmVariables(NamedParameterStatement.Params params, Position position) throws SQLException {
-        params.setLong("device_id", position.getDeviceId());
-        return params;
+    public boolean hasGcmIds() {
+        return queryGetGcmIds != null;
+    }
+
+    /**
+     * Registration ids of the device, queried only when the cache has no valid entry
+     */
+    public List<String> getGcmIds(long deviceId) throws SQLException {
+        long time = System.currentTimeMillis();
+        List<String> result = gcmIds.get(deviceId, time);
+        if (result == null) {
+            result = queryGetGcmIds.prepare().setLong("device_id", deviceId).executeQuery(gcmResultSetProcessor);
+            gcmIds.put(deviceId, result, time);
+        }
+        return result;
+    }
+
+    /**
+     * Load ids of all devices with one query, called with every full device refresh
+     */
+    private void loadAllGcmIds() {
+        if (queryGetAllGcmIds == null) {
+            return;
+        }
+        long time = System.currentTimeMillis();
+        final Map<Long, List<String>> result = new HashMap<Long, List<String>>();
+        try {
+            queryGetAllGcmIds.prepare().executeQuery(new NamedParameterStatement.RowHandler() {
+                @Override
+                public void prepare(ResultSet rs) {
+                }
+
+                @Override
+                public void processRow(ResultSet rs) throws SQLException {
+                    long deviceId = rs.getLong(1);
+                    List<String> ids = result.get(deviceId);
+                    if (ids == null) {
+                        ids = new ArrayList<String>();
+                        result.put(deviceId, ids);
+                    }
+                    ids.add(rs.getString(2));
+                }
+            });
+        } catch (SQLException error) {
+            Log.warning("GCM ids load failed", error);
+            return;
+        }
+        gcmIds.load(result, time);
+        Log.info("Loaded GCM ids of " + result.size() + " devices");
     }
 
     class AWSSqsMessageListener implements MessageListener {
@@ -361,10 +527,7 @@ public class DataManager {
             try {
                 // Cast the received message as TextMessage and print the text to screen.
                 if (message != null) {
-                    devices.clear();
-                    deviceIdMap.clear();
-                    System.setProperty(DEVICE_CACHE_UPDATED_AT, String.valueOf(Calendar.getInstance().getTimeInMillis()));
-                    Log.warning("Received message to clear devices cache " + ((TextMessage) message).getText() + " at: " + new Date());
+                    deviceInvalidation.handleMessage(((TextMessage) message).getText());
                 }
             } catch (JMSException e) {
                 Log.warning(e.getMessage(), e);
@@ -375,114 +538,275 @@ public class DataManager {
     /**
      * Devices cache
      */
-    private static final Map<String, Device> devices = new HashMap<String, Device>();
-    private static final Map<Long, Device> deviceIdMap = new HashMap<Long, Device>();
-    private static Calendar devicesLastUpdate = Calendar.getInstance();
-    private static long devicesRefreshDelay;
     private static final long DEFAULT_REFRESH_DELAY = 300;
-    public static final String DEVICE_CACHE_UPDATED_AT = "DEVICE_CACHE_UPDATED_AT";
+    private static final long DEFAULT_FULL_REFRESH_DELAY = 3600;
+    private static final long DEFAULT_SNAPSHOT_INTERVAL = 60;
 
-    public Device getDeviceByImei(String imei) throws SQLException {
-        if (!devices.containsKey(imei) ||
-                (Calendar.getInstance().getTimeInMillis() - devicesLastUpdate.getTimeInMillis() > devicesRefreshDelay)
-                || Long.parseLong(System.getProperty(DEVICE_CACHE_UPDATED_AT))> devicesLastUpdate.getTimeInMillis()) {
-            Log.info("Refreshing Devices map: " + new Date());
-            devices.clear();
-            deviceIdMap.clear();
-            for (Device device : getDevices()) {
-                devices.put(device.getImei(), device);
-                deviceIdMap.put(device.getId(), device);
+    private DeviceRegistry deviceRegistry =
+            new DeviceRegistry(this, DEFAULT_REFRESH_DELAY * 1000, DEFAULT_FULL_REFRESH_DELAY * 1000);
+
+    /**
+     * Devices are refreshed in background, with a changes query only modified rows are loaded between full reloads
+     */
+    private void initDeviceRegistry(Properties properties) {
+        String refreshDelay = properties.getProperty("database.refreshDelay");
+        String fullRefreshDelay = properties.getProperty("database.fullRefreshDelay");
+        deviceRegistry = new DeviceRegistry(this,
+                (refreshDelay != null ? Long.valueOf(refreshDelay) : DEFAULT_REFRESH_DELAY) * 1000,
+                (fullRefreshDelay != null ? Long.valueOf(fullRefreshDelay) : DEFAULT_FULL_REFRESH_DELAY) * 1000);
+        String path = properties.getProperty("snapshot.path");
+        if (path != null) {
+            String interval = properties.getProperty("snapshot.interval");
+            stateSnapshot = new StateSnapshot(new File(path),
+                    (interval != null ? Long.valueOf(interval) : DEFAULT_SNAPSHOT_INTERVAL) * 1000,
+                    deviceRegistry, deviceStateStore);
+            stateSnapshot.load();
+        }
+
+        deviceRegistry.start();
+        if (stateSnapshot != null) {
+            stateSnapshot.start();
+        }
+    }
+
+    private StateSnapshot stateSnapshot;
+
+    public DeviceRegistry getDeviceRegistry() {
+        return deviceRegistry;
+    }
+
+    private DeviceInvalidation deviceInvalidation = new DeviceInvalidation(this);
+
+    public DeviceInvalidation getDeviceInvalidation() {
+        return deviceInvalidation;
+    }
+
+    /**
+     * Reload listed devices, identifiers are also removed from the unknown devices cache
+     */
+    public void invalidateDevices(Set<Long> ids, Set<String> imeis) {
+        Set<Long> deviceIds = new HashSet<Long>(ids);
+        for (String imei : imeis) {
+            unknownDevices.remove(imei);
+            Device device = deviceRegistry.getByImei(imei);
+            if (device != null) {
+                deviceIds.add(device.getId());
             }
-            devicesLastUpdate = Calendar.getInstance();
         }
+        if (deviceIds.isEmpty()) {
+            return;
+        }
+        if (gcmIds != null) {
+            for (Long id : deviceIds) {
+                gcmIds.invalidate(id);
+            }
+        }
+        try {
+            deviceRegistry.reload(deviceIds);
+        } catch (SQLException error) {
+            Log.warning("Device reload failed, reloading all devices", error);
+            deviceRegistry.invalidate();
+        }
+        for (Long id : deviceIds) {
+            Device device = deviceRegistry.getById(id);
+            if (device != null) {
+                unknownDevices.remove(device.getImei());
+            }
+        }
+    }
 
-        return devices.get(imei);
+    public void invalidateAllDevices() {
+        unknownDevices.clear();
+        if (gcmIds != null) {
+            gcmIds.clear();
+        }
+        deviceRegistry.invalidate();
     }
 
-    public Device getDeviceById(Long id){
-        return deviceIdMap.get(id);
+    private static final int DEFAULT_UNKNOWN_DEVICE_CACHE_SIZE = 10000;
+    private static final long DEFAULT_UNKNOWN_DEVICE_TIMEOUT = 60;
+    private UnknownDeviceCache unknownDevices =
+            new UnknownDeviceCache(DEFAULT_UNKNOWN_DEVICE_CACHE_SIZE, DEFAULT_UNKNOWN_DEVICE_TIMEOUT * 1000);
+    private final AtomicLong unknownDeviceCount = new AtomicLong();
+
+    private void initUnknownDevices(Properties properties) {
+        String size = properties.getProperty("database.unknownDevice.cacheSize");
+        String timeout = properties.getProperty("database.unknownDevice.timeout");
+        unknownDevices = new UnknownDeviceCache(
+                size != null ? Integer.valueOf(size) : DEFAULT_UNKNOWN_DEVICE_CACHE_SIZE,
+                (timeout != null ? Long.valueOf(timeout) : DEFAULT_UNKNOWN_DEVICE_TIMEOUT) * 1000);
     }
 
-    private NamedParameterStatement.ResultSetProcessor<Long> generatedKeysResultSetProcessor = new NamedParameterStatement.ResultSetProcessor<Long>() {
-        @Override
-        public Long processNextRow(ResultSet rs) throws SQLException {
-            return rs.getLong(1);
+    /**
+     * Number of lookups rejected because the identifier does not belong to any device
+     */
+    public long getUnknownDeviceCount() {
+        return unknownDeviceCount.get();
+    }
+
+    public Device getDeviceByImei(String imei) throws SQLException {
+        Device device = deviceRegistry.getByImei(imei);
+        if (device == null) {
+            long time = System.currentTimeMillis();
+            if (unknownDevices.contains(imei, time)) {
+                unknownDeviceCount.incrementAndGet();
+                return null;
+            }
+            deviceRegistry.refresh(time);
+            device = deviceRegistry.getByImei(imei);
+            if (device == null) {
+                unknownDevices.add(imei, time);
+                Log.info("Ignoring unknown device " + imei + ", "
+                        + unknownDeviceCount.incrementAndGet() + " unknown device lookups so far");
+            }
         }
-    };
+        return device;
+    }
+
+    /**
+     * Device id for a numeric identifier read straight from a message, see ImeiKey
+     *
+     * The identifier string as sent by the device is only needed when the key is invalid, for example when it
+     * holds other characters than digits, and is looked up like any other identifier.
+     */
+    public Long getDeviceIdByImeiKey(long key, String imei) throws SQLException {
+        Long id = null;
+        if (key != ImeiKey.INVALID) {
+            id = deviceRegistry.getIdByImeiKey(key);
+            imei = id == null ? ImeiKey.toString(key) : null;
+        }
+        if (id == null && imei != null) {
+            // Slow path with unknown devices cache and refresh
+            Device device = getDeviceByImei(imei);
+            if (device != null) {
+                id = device.getId();
+            }
+        }
+        return id;
+    }
 
-    public synchronized Long addPosition(Position position) throws SQLException {
+    public Device getDeviceById(Long id){
+        return deviceRegistry.getById(id);
+    }
+
+    public Long addPosition(Position position) throws SQLException {
         if (position.getTime().getTime()!=position.getStartTime().getTime()){
             Log.info("Start and end time different on position, should update instead of create.");
         }
-        if (position.getTime().getTime()!=position.getStartTime().getTime() && queryUpdatePosition != null){
-            Log.info("Updating existing record instead of creating.");
-            assignVariables(queryUpdatePosition.prepare(), position).setLong("database_id", position.getDatabaseId()).executeUpdate();
-            return position.getDatabaseId();
-        }
-        else if (queryAddPosition != null) {
-            List<Long> result = assignVariables(queryAddPosition.prepare(), position).executeUpdate(generatedKeysResultSetProcessor);
-            if (result != null && !result.isEmpty()) {
-                long databaseId = result.iterator().next();
-                position.setDatabaseId(databaseId);
-                return databaseId;
+        DatabaseShard shard = getShard(position.getDeviceId());
+        if (shard != null && shard.canStore(position)) {
+            if (shard.isUpdate(position)) {
+                Log.info("Updating existing record instead of creating.");
             }
+            Long id = shard.addPosition(position);
+            deviceStateStore.update(position);
+            return id;
         }
         return null;
     }
 
+    /**
+     * Store positions in batches per shard, generated keys are assigned to the inserted positions
+     */
+    public void addPositions(List<Position> positions) throws SQLException {
+        if (shards.isEmpty()) {
+            return;
+        }
+
+        List<List<Position>> batches = new ArrayList<List<Position>>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            batches.add(new ArrayList<Position>());
+        }
+        for (Position position : positions) {
+            int index = getShardIndex(position.getDeviceId());
+            if (shards.get(index).canStore(position)) {
+                batches.get(index).add(position);
+            }
+        }
+
+        for (int i = 0; i < shards.size(); i++) {
+            if (!batches.get(i).isEmpty()) {
+                shards.get(i).addPositions(batches.get(i));
+                for (Position position : batches.get(i)) {
+                    deviceStateStore.update(position);
+                }
+            }
+        }
+    }
+
+    public void stop() {
+        deviceInvalidation.stop();
+        deviceRegistry.stop();
+        if (positionWriter != null) {
+            positionWriter.stop();
+        }
+        for (PositionSpool positionSpool : positionSpools) {
+            positionSpool.stop();
+        }
+        if (latestPositionUpdater != null) {
+            latestPositionUpdater.stop();
+        }
+        for (DatabaseShard shard : shards) {
+            shard.stop();
+        }
+        // Final snapshot includes database ids assigned while the queues drained
+        if (stateSnapshot != null) {
+            stateSnapshot.stop();
+        }
+    }
+
     public void updateLatestPosition(Position position, Long positionId) throws SQLException {
-        if (queryUpdateLatestPosition != null) {
-            assignVariables(queryUpdateLatestPosition.prepare(), position).setLong("id", positionId).executeUpdate();
+        if (latestPositionUpdater != null) {
+            latestPositionUpdater.update(position, positionId);
+        } else {
+            DatabaseShard shard = getShard(position.getDeviceId());
+            if (shard != null) {
+                shard.updateLatestPosition(new LatestPosition(position, positionId));
+            }
         }
     }
 
-    public Position getLatestPosition(Long deviceId){
-        return lastPositions.get(deviceId);
+    void updateLatestPositions(List<LatestPosition> positions) throws SQLException {
+        if (shards.size() <= 1) {
+            if (!shards.isEmpty()) {
+                shards.get(0).updateLatestPositions(positions);
+            }
+            return;
+        }
+        List<List<LatestPosition>> batches = new ArrayList<List<LatestPosition>>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            batches.add(new ArrayList<LatestPosition>());
+        }
+        for (LatestPosition position : positions) {
+            batches.get(getShardIndex(position.getPosition().getDeviceId())).add(position);
+        }
+        for (int i = 0; i < shards.size(); i++) {
+            if (!batches.get(i).isEmpty()) {
+                shards.get(i).updateLatestPositions(batches.get(i));
+            }
+        }
     }
 
-    private NamedParameterStatement.Params assignVariables(NamedParameterStatement.Params params, Position position) throws SQLException {
+    /**
+     * Position with the identifier of its stored record
+     */
+    static class LatestPosition {
 
-        lastPositions.put(position.getDeviceId(), position);
+        private final Position position;
+        private final Long id;
 
-        params.setLong("device_id", position.getDeviceId());
-        params.setTimestamp("time", position.getTime());
-        params.setBoolean("valid", position.getValid());
-        params.setDouble("altitude", position.getAltitude());
-        params.setDouble("latitude", position.getLatitude());
-        params.setDouble("longitude", position.getLongitude());
-        params.setDouble("speed", position.getSpeed());
-        params.setDouble("course", position.getCourse());
-        params.setString("address", position.getAddress());
-        params.setString("extended_info", position.getExtendedInfo());
-        Device device = getDeviceById(position.getDeviceId());
-        params.setString("gps_imei", device!=null? device.getImei() : null);
+        LatestPosition(Position position, Long id) {
+            this.position = position;
+            this.id = id;
+        }
 
-        if(position.getExtendedInfo()!=null) {
-            // DELME: Temporary compatibility support
-            XPath xpath = XPathFactory.newInstance().newXPath();
-            try {
-                InputSource source = new InputSource(new StringReader(position.getExtendedInfo()));
-                String index = xpath.evaluate("/info/index", source);
-                if (!index.isEmpty()) {
-                    params.setLong("id", Long.valueOf(index));
-                } else {
-                    params.setLong("id", null);
-                }
-                source = new InputSource(new StringReader(position.getExtendedInfo()));
-                String power = xpath.evaluate("/info/power", source);
-                if (!power.isEmpty()) {
-                    params.setDouble("power", Double.valueOf(power));
-                } else {
-                    params.setLong("power", null);
-                }
-            } catch (XPathExpressionException e) {
-                Log.warning("Error in XML: " + position.getExtendedInfo(), e);
-                params.setLong("id", null);
-                params.setLong("power", null);
-            }
+        Position getPosition() {
+            return position;
         }
 
-        return params;
+        Long getId() {
+            return id;
+        }
     }
 
 }
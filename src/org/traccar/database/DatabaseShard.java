@@ -0,0 +1,488 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.sql.DataSource;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import org.traccar.helper.Log;
+import org.traccar.model.Attributes;
+import org.traccar.model.Device;
+import org.traccar.model.Position;
+
+/**
+ * One database holding devices and positions, with its own connection pool and statements
+ */
+public class DatabaseShard {
+
+    private static final int DEFAULT_STATEMENT_CACHE = 20;
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final int DEFAULT_ROWS_PER_STATEMENT = 100;
+    private static final int DEFAULT_PARTITIONS_AHEAD = 1;
+    private static final String INSERT_MODE_BATCH = "batch";
+    private static final String INSERT_MODE_MULTIROW = "multirow";
+    private static final String INSERT_MODE_COPY = "copy";
+
+    private final DataManager dataManager;
+    private final DataSource dataSource;
+
+    private NamedParameterStatement queryGetDevices;
+    private NamedParameterStatement queryGetChangedDevices;
+    private NamedParameterStatement queryGetDevice;
+    private NamedParameterStatement queryAddPosition;
+    private NamedParameterStatement queryUpdatePosition;
+    private NamedParameterStatement queryUpdateLatestPosition;
+    private boolean jsonExtendedInfo;
+    private PositionBinding addPositionBinding;
+    private PositionBinding updatePositionBinding;
+    private LatestPositionBinding updateLatestPositionBinding;
+    private String insertMode;
+    private int rowsPerStatement;
+    private CopyStatement copyAddPosition;
+    private String copyKeysQuery;
+    private String copyKeyColumn;
+    private final ConcurrentMap<NamedParameterStatement, CopyStatement> copyPartitions =
+            new ConcurrentHashMap<NamedParameterStatement, CopyStatement>();
+    private PartitionedStatement addPositionPartitions;
+    private PartitionedStatement updatePositionPartitions;
+
+    /**
+     * Connection parameters are given separately, statements are shared by all shards
+     */
+    public DatabaseShard(DataManager dataManager, Properties properties, String url, String user, String password)
+            throws Exception {
+        this.dataManager = dataManager;
+
+        ComboPooledDataSource ds = new ComboPooledDataSource();
+        ds.setDriverClass(properties.getProperty("database.driver"));
+        ds.setJdbcUrl(url);
+        ds.setUser(user);
+        ds.setPassword(password);
+        ds.setIdleConnectionTestPeriod(600);
+        ds.setTestConnectionOnCheckin(true);
+
+        // Reuse prepared statements per pooled connection
+        String statementCache = properties.getProperty("database.statementCache");
+        ds.setMaxStatementsPerConnection(
+                statementCache != null ? Integer.valueOf(statementCache) : DEFAULT_STATEMENT_CACHE);
+        dataSource = ds;
+
+        initStatements(properties);
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    private void initStatements(Properties properties) throws SQLException {
+        String query;
+
+        query = properties.getProperty("database.selectDevice");
+        if (query != null) {
+            queryGetDevices = new NamedParameterStatement(query, dataSource);
+            String fetchSize = properties.getProperty("database.fetchSize");
+            queryGetDevices.setFetchSize(fetchSize != null ? Integer.valueOf(fetchSize) : DEFAULT_FETCH_SIZE);
+        }
+
+        query = properties.getProperty("database.selectDeviceChanges");
+        if (query != null) {
+            queryGetChangedDevices = new NamedParameterStatement(query, dataSource);
+        }
+
+        query = properties.getProperty("database.selectDeviceById");
+        if (query != null) {
+            queryGetDevice = new NamedParameterStatement(query, dataSource);
+        }
+
+        jsonExtendedInfo = "json".equalsIgnoreCase(properties.getProperty("database.extendedInfoFormat"));
+
+        query = properties.getProperty("database.insertPosition");
+        if (query != null) {
+            queryAddPosition = new NamedParameterStatement(query, dataSource, Statement.RETURN_GENERATED_KEYS);
+            addPositionBinding = new PositionBinding(queryAddPosition);
+            if (PartitionedStatement.isPartitioned(query)) {
+                String value = properties.getProperty("database.partition.ahead");
+                addPositionPartitions = new PartitionedStatement(query, dataSource, Statement.RETURN_GENERATED_KEYS,
+                        properties.getProperty("database.partition.mode"),
+                        properties.getProperty("database.createPartition"),
+                        value != null ? Integer.valueOf(value) : DEFAULT_PARTITIONS_AHEAD);
+                addPositionPartitions.createAhead(new Date());
+                addPositionPartitions.start();
+            }
+            initInsertMode(properties);
+        }
+
+        query = properties.getProperty("database.updatePosition");
+        if (query != null) {
+            queryUpdatePosition = new NamedParameterStatement(query, dataSource);
+            updatePositionBinding = new PositionBinding(queryUpdatePosition);
+            if (PartitionedStatement.isPartitioned(query)) {
+                updatePositionPartitions = new PartitionedStatement(query, dataSource, Statement.NO_GENERATED_KEYS,
+                        properties.getProperty("database.partition.mode"), null, 0);
+            }
+        }
+
+        query = properties.getProperty("database.updateLatestPosition");
+        if (query != null) {
+            queryUpdateLatestPosition = new NamedParameterStatement(query, dataSource);
+            updateLatestPositionBinding = new LatestPositionBinding(queryUpdateLatestPosition);
+        }
+    }
+
+    /**
+     * Select how batched inserts are sent, COPY falls back to multi-row inserts on other databases
+     */
+    private void initInsertMode(Properties properties) {
+        String value = properties.getProperty("database.writer.mode");
+        insertMode = value != null ? value : INSERT_MODE_BATCH;
+
+        value = properties.getProperty("database.writer.rowsPerStatement");
+        rowsPerStatement = value != null ? Integer.valueOf(value) : DEFAULT_ROWS_PER_STATEMENT;
+
+        if (insertMode.equals(INSERT_MODE_COPY)) {
+            copyKeysQuery = properties.getProperty("database.selectPositionKeys");
+            copyKeyColumn = properties.getProperty("database.positionKeyColumn");
+            if (copyKeyColumn == null) {
+                copyKeyColumn = "id";
+            }
+            copyAddPosition = new CopyStatement(queryAddPosition, dataSource, copyKeysQuery, copyKeyColumn);
+            if (!copyAddPosition.isSupported()) {
+                Log.warning("COPY is not supported for position insert, using multi-row insert");
+                copyAddPosition = null;
+                insertMode = INSERT_MODE_MULTIROW;
+            }
+        }
+    }
+
+    /**
+     * Stream device rows into the handler
+     */
+    public void loadDevices(NamedParameterStatement.RowHandler handler) throws SQLException {
+        if (queryGetDevices != null) {
+            queryGetDevices.prepare().executeQuery(handler);
+        }
+    }
+
+    public boolean isChangedDevicesSupported() {
+        return queryGetChangedDevices != null;
+    }
+
+    /**
+     * Stream rows of devices modified since the given time into the handler
+     */
+    public void loadChangedDevices(Date since, NamedParameterStatement.RowHandler handler) throws SQLException {
+        if (queryGetChangedDevices != null) {
+            queryGetChangedDevices.prepare().setTimestamp("since", since).executeQuery(handler);
+        }
+    }
+
+    public boolean isDeviceByIdSupported() {
+        return queryGetDevice != null;
+    }
+
+    public void loadDevice(Long id, NamedParameterStatement.RowHandler handler) throws SQLException {
+        if (queryGetDevice != null) {
+            queryGetDevice.prepare().setLong("id", id).executeQuery(handler);
+        }
+    }
+
+    private final NamedParameterStatement.ResultSetProcessor<Long> generatedKeysResultSetProcessor =
+            new NamedParameterStatement.ResultSetProcessor<Long>() {
+        @Override
+        public Long processNextRow(ResultSet rs) throws SQLException {
+            return rs.getLong(1);
+        }
+    };
+
+    public boolean isUpdate(Position position) {
+        return position.getTime().getTime() != position.getStartTime().getTime() && queryUpdatePosition != null;
+    }
+
+    public boolean canStore(Position position) {
+        return isUpdate(position) || queryAddPosition != null;
+    }
+
+    private List<Long> insertPositions(Connection conn, NamedParameterStatement statement, List<Position> positions)
+            throws SQLException {
+        if (copyAddPosition != null) {
+            CopyStatement copy = copyAddPosition;
+            if (statement != queryAddPosition) {
+                copy = copyPartitions.get(statement);
+                if (copy == null) {
+                    copy = new CopyStatement(statement, dataSource, copyKeysQuery, copyKeyColumn);
+                    copyPartitions.put(statement, copy);
+                    // Drop copies of partitions whose statements are no longer kept
+                    copyPartitions.keySet().retainAll(addPositionPartitions.getStatements());
+                }
+            }
+            return copy.execute(conn, positions, addPositionBinding);
+        } else if (insertMode.equals(INSERT_MODE_MULTIROW)) {
+            return statement.executeMultiRow(
+                    conn, positions, addPositionBinding, generatedKeysResultSetProcessor, rowsPerStatement);
+        } else {
+            return statement.executeBatch(conn, positions, addPositionBinding, generatedKeysResultSetProcessor);
+        }
+    }
+
+    /**
+     * Insert statement for the position time partition
+     */
+    private NamedParameterStatement getAddPosition(Position position) throws SQLException {
+        return addPositionPartitions != null ? addPositionPartitions.get(position.getTime()) : queryAddPosition;
+    }
+
+    /**
+     * Update statement for the partition the position was inserted into, which is given by its start time
+     */
+    private NamedParameterStatement getUpdatePosition(Position position) throws SQLException {
+        return updatePositionPartitions != null
+                ? updatePositionPartitions.get(position.getStartTime()) : queryUpdatePosition;
+    }
+
+    private static void group(
+            Map<NamedParameterStatement, List<Position>> groups, NamedParameterStatement statement, Position position) {
+        List<Position> list = groups.get(statement);
+        if (list == null) {
+            list = new ArrayList<Position>();
+            groups.put(statement, list);
+        }
+        list.add(position);
+    }
+
+    public Long addPosition(Position position) throws SQLException {
+        if (isUpdate(position)) {
+            getUpdatePosition(position).executeUpdate(position, updatePositionBinding, null);
+            return position.getDatabaseId();
+        } else if (queryAddPosition != null) {
+            Long databaseId = getAddPosition(position).executeUpdate(
+                    position, addPositionBinding, generatedKeysResultSetProcessor);
+            if (databaseId != null) {
+                position.setDatabaseId(databaseId);
+                return databaseId;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Store positions as JDBC batches in one transaction, generated keys are assigned once it is committed
+     */
+    public void addPositions(List<Position> positions) throws SQLException {
+        final Map<NamedParameterStatement, List<Position>> inserts =
+                new LinkedHashMap<NamedParameterStatement, List<Position>>();
+        final Map<NamedParameterStatement, List<Position>> updates =
+                new LinkedHashMap<NamedParameterStatement, List<Position>>();
+
+        for (Position position : positions) {
+            if (isUpdate(position)) {
+                group(updates, getUpdatePosition(position), position);
+            } else if (queryAddPosition != null) {
+                group(inserts, getAddPosition(position), position);
+            }
+        }
+
+        if (updates.isEmpty() && inserts.isEmpty()) {
+            return;
+        }
+
+        // A failed batch leaves nothing behind, so it can be retried without duplicate rows
+        List<List<Long>> results = NamedParameterStatement.inTransaction(dataSource,
+                new NamedParameterStatement.Work<List<List<Long>>>() {
+            @Override
+            public List<List<Long>> execute(Connection conn) throws SQLException {
+                for (Map.Entry<NamedParameterStatement, List<Position>> entry : updates.entrySet()) {
+                    entry.getKey().executeBatch(conn, entry.getValue(), updatePositionBinding, null);
+                }
+                List<List<Long>> results = new ArrayList<List<Long>>(inserts.size());
+                for (Map.Entry<NamedParameterStatement, List<Position>> entry : inserts.entrySet()) {
+                    results.add(insertPositions(conn, entry.getKey(), entry.getValue()));
+                }
+                return results;
+            }
+        });
+
+        int index = 0;
+        for (List<Position> list : inserts.values()) {
+            List<Long> result = results.get(index++);
+            for (int i = 0; result != null && i < list.size() && i < result.size(); i++) {
+                list.get(i).setDatabaseId(result.get(i));
+            }
+        }
+    }
+
+    public void stop() {
+        if (addPositionPartitions != null) {
+            addPositionPartitions.stop();
+        }
+    }
+
+    public void updateLatestPosition(DataManager.LatestPosition position) throws SQLException {
+        if (queryUpdateLatestPosition != null) {
+            queryUpdateLatestPosition.executeUpdate(position, updateLatestPositionBinding, null);
+        }
+    }
+
+    public void updateLatestPositions(List<DataManager.LatestPosition> positions) throws SQLException {
+        if (queryUpdateLatestPosition != null) {
+            queryUpdateLatestPosition.executeBatch(positions, updateLatestPositionBinding, null);
+        }
+    }
+
+    /**
+     * Position parameter slots, resolved once per statement
+     */
+    private class PositionBinding implements NamedParameterStatement.Binding<Position> {
+
+        private final int deviceId;
+        private final int time;
+        private final int valid;
+        private final int altitude;
+        private final int latitude;
+        private final int longitude;
+        private final int speed;
+        private final int course;
+        private final int address;
+        private final int extendedInfo;
+        private final int gpsImei;
+        private final int index;
+        private final int power;
+        private final int databaseId;
+
+        PositionBinding(NamedParameterStatement statement) {
+            deviceId = statement.getSlot("device_id");
+            time = statement.getSlot("time");
+            valid = statement.getSlot("valid");
+            altitude = statement.getSlot("altitude");
+            latitude = statement.getSlot("latitude");
+            longitude = statement.getSlot("longitude");
+            speed = statement.getSlot("speed");
+            course = statement.getSlot("course");
+            address = statement.getSlot("address");
+            extendedInfo = statement.getSlot("extended_info");
+            gpsImei = statement.getSlot("gps_imei");
+            index = statement.getSlot("id");
+            power = statement.getSlot("power");
+            databaseId = statement.getSlot("database_id");
+        }
+
+        private void setDouble(NamedParameterStatement.Binder binder, int slot, Double value) throws SQLException {
+            if (value != null) {
+                binder.setDouble(slot, value);
+            } else {
+                binder.setNull(slot, Types.DOUBLE);
+            }
+        }
+
+        private void setLong(NamedParameterStatement.Binder binder, int slot, Long value) throws SQLException {
+            if (value != null) {
+                binder.setLong(slot, value);
+            } else {
+                binder.setNull(slot, Types.INTEGER);
+            }
+        }
+
+        @Override
+        public void bind(NamedParameterStatement.Binder binder, Position position) throws SQLException {
+            setLong(binder, deviceId, position.getDeviceId());
+            binder.setTimestamp(time, position.getTime());
+            if (position.getValid() != null) {
+                binder.setBoolean(valid, position.getValid());
+            } else {
+                binder.setNull(valid, Types.BOOLEAN);
+            }
+            setDouble(binder, altitude, position.getAltitude());
+            setDouble(binder, latitude, position.getLatitude());
+            setDouble(binder, longitude, position.getLongitude());
+            setDouble(binder, speed, position.getSpeed());
+            setDouble(binder, course, position.getCourse());
+            binder.setString(address, position.getAddress());
+            if (extendedInfo >= 0) {
+                if (jsonExtendedInfo && position.getAttributes() != null) {
+                    binder.setString(extendedInfo, position.getAttributes().toJson());
+                } else {
+                    binder.setString(extendedInfo, position.getExtendedInfo());
+                }
+            }
+            if (gpsImei >= 0) {
+                Device device = dataManager.getDeviceById(position.getDeviceId());
+                binder.setString(gpsImei, device != null ? device.getImei() : null);
+            }
+            if (databaseId >= 0) {
+                setLong(binder, databaseId, position.getDatabaseId());
+            }
+
+            Attributes attributes = position.getAttributes();
+            if (attributes != null && attributes.hasNumber("index")) {
+                binder.setLong(index, attributes.getLong("index"));
+            } else {
+                binder.setNull(index, Types.INTEGER);
+            }
+            if (attributes != null && attributes.hasNumber("power")) {
+                binder.setDouble(power, attributes.getDouble("power"));
+            } else {
+                binder.setNull(power, Types.DOUBLE);
+            }
+        }
+    }
+
+    /**
+     * Binds position id and device id, other position fields only if a custom query uses them
+     */
+    private class LatestPositionBinding implements NamedParameterStatement.Binding<DataManager.LatestPosition> {
+
+        private final PositionBinding positionBinding;
+        private final int deviceId;
+        private final int id;
+
+        LatestPositionBinding(NamedParameterStatement statement) {
+            deviceId = statement.getSlot("device_id");
+            id = statement.getSlot("id");
+            int used = (deviceId >= 0 ? 1 : 0) + (id >= 0 ? 1 : 0);
+            positionBinding = statement.getSlotCount() > used ? new PositionBinding(statement) : null;
+        }
+
+        @Override
+        public void bind(NamedParameterStatement.Binder binder, DataManager.LatestPosition item)
+                throws SQLException {
+            if (positionBinding != null) {
+                positionBinding.bind(binder, item.getPosition());
+            } else if (item.getPosition().getDeviceId() != null) {
+                binder.setLong(deviceId, item.getPosition().getDeviceId());
+            } else {
+                binder.setNull(deviceId, Types.INTEGER);
+            }
+            if (item.getId() != null) {
+                binder.setLong(id, item.getId());
+            } else {
+                binder.setNull(id, Types.INTEGER);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.traccar.helper.ImeiKey;
+import org.traccar.model.Device;
+
+/**
+ * Immutable compact device storage with open addressing indexes by id and IMEI
+ *
+ * Keys and interned attributes of a row are packed next to each other in primitive and reference arrays, so a
+ * lookup touches few cache lines. Numeric IMEIs are stored as ImeiKey values, other identifiers use a regular map.
+ * Devices are materialized on lookup.
+ */
+public final class DeviceIndex {
+
+    private static final long NOT_NUMERIC = ImeiKey.INVALID;
+
+    // Layout of a row in keys
+    private static final int KEY_ID = 0;
+    private static final int KEY_IMEI = 1;
+    private static final int KEY_COUNT = 2;
+
+    // Layout of a row in attributes
+    private static final int ATTRIBUTE_IMEI = 0;
+    private static final int ATTRIBUTE_UNIQUE_ID = 1;
+    private static final int ATTRIBUTE_SNS_TOPIC_NAME = 2;
+    private static final int ATTRIBUTE_EXTERNAL_ID = 3;
+    private static final int ATTRIBUTE_RES_ID = 4;
+    private static final int ATTRIBUTE_COUNT = 5;
+
+    private final int rows;
+    private final int size;
+    private final long[] keys;
+    private final String[] attributes;
+
+    private final int[] idTable;
+    private final int[] imeiTable;
+    private final Map<String, Integer> textImeis;
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private static int tableSize(int count) {
+        int capacity = 4;
+        while (capacity < count * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private DeviceIndex(Builder builder) {
+        rows = builder.rows;
+        keys = Arrays.copyOf(builder.keys, rows * KEY_COUNT);
+        attributes = Arrays.copyOf(builder.attributes, rows * ATTRIBUTE_COUNT);
+
+        // Slots hold row + 1, zero marks an empty slot
+        idTable = new int[tableSize(rows)];
+        imeiTable = new int[tableSize(rows)];
+        textImeis = new HashMap<String, Integer>();
+
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            if (put(idTable, KEY_ID, keys[row * KEY_COUNT + KEY_ID], row)) {
+                count += 1;
+            }
+        }
+        size = count;
+
+        // Rows replaced by a later one with the same id are not indexed by IMEI
+        for (int row = 0; row < rows; row++) {
+            if (find(idTable, KEY_ID, keys[row * KEY_COUNT + KEY_ID]) != row) {
+                continue;
+            }
+            long imeiKey = keys[row * KEY_COUNT + KEY_IMEI];
+            if (imeiKey != NOT_NUMERIC) {
+                put(imeiTable, KEY_IMEI, imeiKey, row);
+            } else if (attributes[row * ATTRIBUTE_COUNT + ATTRIBUTE_IMEI] != null) {
+                textImeis.put(attributes[row * ATTRIBUTE_COUNT + ATTRIBUTE_IMEI], row);
+            }
+        }
+    }
+
+    /**
+     * Insert or replace the row for the key, returns true for a new key
+     */
+    private boolean put(int[] table, int offset, long key, int row) {
+        int mask = table.length - 1;
+        for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+            int value = table[slot];
+            if (value == 0) {
+                table[slot] = row + 1;
+                return true;
+            }
+            if (keys[(value - 1) * KEY_COUNT + offset] == key) {
+                table[slot] = row + 1;
+                return false;
+            }
+        }
+    }
+
+    private int find(int[] table, int offset, long key) {
+        int mask = table.length - 1;
+        for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+            int value = table[slot];
+            if (value == 0) {
+                return -1;
+            }
+            if (keys[(value - 1) * KEY_COUNT + offset] == key) {
+                return value - 1;
+            }
+        }
+    }
+
+    private String getImei(int row) {
+        long imeiKey = keys[row * KEY_COUNT + KEY_IMEI];
+        return imeiKey != NOT_NUMERIC ? ImeiKey.toString(imeiKey) : attributes[row * ATTRIBUTE_COUNT + ATTRIBUTE_IMEI];
+    }
+
+    private Device createDevice(int row, String imei) {
+        int index = row * ATTRIBUTE_COUNT;
+        Device device = new Device();
+        device.setId(keys[row * KEY_COUNT + KEY_ID]);
+        device.setImei(imei);
+        device.setUniqueId(attributes[index + ATTRIBUTE_UNIQUE_ID]);
+        device.setSnsTopicName(attributes[index + ATTRIBUTE_SNS_TOPIC_NAME]);
+        device.setExternalId(attributes[index + ATTRIBUTE_EXTERNAL_ID]);
+        device.setResId(attributes[index + ATTRIBUTE_RES_ID]);
+        return device;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private boolean isSameRow(int row, DeviceIndex other, int otherRow) {
+        for (int i = 0; i < KEY_COUNT; i++) {
+            if (keys[row * KEY_COUNT + i] != other.keys[otherRow * KEY_COUNT + i]) {
+                return false;
+            }
+        }
+        for (int i = 0; i < ATTRIBUTE_COUNT; i++) {
+            String value = attributes[row * ATTRIBUTE_COUNT + i];
+            String otherValue = other.attributes[otherRow * ATTRIBUTE_COUNT + i];
+            if (value == null ? otherValue != null : !value.equals(otherValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ids of devices of an older index that were modified or removed here, added devices are not included
+     */
+    public Set<Long> getChangedIds(DeviceIndex previous) {
+        Set<Long> result = new HashSet<Long>();
+        for (int row = 0; row < previous.rows; row++) {
+            long id = previous.keys[row * KEY_COUNT + KEY_ID];
+            if (previous.find(previous.idTable, KEY_ID, id) == row) {
+                int current = find(idTable, KEY_ID, id);
+                if (current < 0 || !isSameRow(current, previous, row)) {
+                    result.add(id);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Live devices in row order, replaced rows are skipped
+     */
+    public List<Device> getDevices() {
+        List<Device> devices = new ArrayList<Device>(size);
+        for (int row = 0; row < rows; row++) {
+            if (find(idTable, KEY_ID, keys[row * KEY_COUNT + KEY_ID]) == row) {
+                devices.add(createDevice(row, getImei(row)));
+            }
+        }
+        return devices;
+    }
+
+    public Device getById(Long id) {
+        if (id == null) {
+            return null;
+        }
+        int row = find(idTable, KEY_ID, id);
+        return row >= 0 ? createDevice(row, getImei(row)) : null;
+    }
+
+    /**
+     * Device id for a numeric identifier without creating the device
+     */
+    public Long getIdByImeiKey(long key) {
+        int row = key != NOT_NUMERIC ? find(imeiTable, KEY_IMEI, key) : -1;
+        return row >= 0 ? keys[row * KEY_COUNT + KEY_ID] : null;
+    }
+
+    public Device getByImei(String imei) {
+        if (imei == null) {
+            return null;
+        }
+        int row;
+        long key = ImeiKey.fromString(imei);
+        if (key != NOT_NUMERIC) {
+            row = find(imeiTable, KEY_IMEI, key);
+        } else {
+            Integer value = textImeis.get(imei);
+            row = value != null ? value : -1;
+        }
+        return row >= 0 ? createDevice(row, imei) : null;
+    }
+
+    /**
+     * Accumulates devices in growable arrays, later rows replace earlier ones with the same id or IMEI
+     */
+    public static class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final Map<String, String> strings = new HashMap<String, String>();
+
+        private int rows;
+        private long[] keys = new long[INITIAL_CAPACITY * KEY_COUNT];
+        private String[] attributes = new String[INITIAL_CAPACITY * ATTRIBUTE_COUNT];
+
+        /**
+         * Share equal attribute values, topics and outlets repeat across many devices
+         */
+        private String intern(String value) {
+            if (value == null) {
+                return null;
+            }
+            String result = strings.get(value);
+            if (result == null) {
+                strings.put(value, value);
+                result = value;
+            }
+            return result;
+        }
+
+        private void ensureCapacity(int count) {
+            int capacity = keys.length / KEY_COUNT;
+            if (count > capacity) {
+                while (count > capacity) {
+                    capacity *= 2;
+                }
+                keys = Arrays.copyOf(keys, capacity * KEY_COUNT);
+                attributes = Arrays.copyOf(attributes, capacity * ATTRIBUTE_COUNT);
+            }
+        }
+
+        public Builder add(Device device) {
+            ensureCapacity(rows + 1);
+            String imei = device.getImei();
+            long imeiKey = imei != null ? ImeiKey.fromString(imei) : NOT_NUMERIC;
+            keys[rows * KEY_COUNT + KEY_ID] = device.getId();
+            keys[rows * KEY_COUNT + KEY_IMEI] = imeiKey;
+
+            int index = rows * ATTRIBUTE_COUNT;
+            attributes[index + ATTRIBUTE_IMEI] = imeiKey == NOT_NUMERIC ? imei : null;
+            attributes[index + ATTRIBUTE_UNIQUE_ID] = intern(device.getUniqueId());
+            attributes[index + ATTRIBUTE_SNS_TOPIC_NAME] = intern(device.getSnsTopicName());
+            attributes[index + ATTRIBUTE_EXTERNAL_ID] = intern(device.getExternalId());
+            attributes[index + ATTRIBUTE_RES_ID] = intern(device.getResId());
+            rows += 1;
+            return this;
+        }
+
+        /**
+         * Copy rows of an existing index except the given ids, attributes are already interned there
+         */
+        public Builder addAll(DeviceIndex index, Set<Long> excludedIds) {
+            long[] excluded = new long[excludedIds.size()];
+            int count = 0;
+            for (Long id : excludedIds) {
+                excluded[count++] = id;
+            }
+            Arrays.sort(excluded);
+
+            ensureCapacity(rows + index.rows);
+            for (int row = 0; row < index.rows; row++) {
+                long id = index.keys[row * KEY_COUNT + KEY_ID];
+                if (Arrays.binarySearch(excluded, id) < 0 && index.find(index.idTable, KEY_ID, id) == row) {
+                    System.arraycopy(index.keys, row * KEY_COUNT, keys, rows * KEY_COUNT, KEY_COUNT);
+                    System.arraycopy(index.attributes, row * ATTRIBUTE_COUNT,
+                            attributes, rows * ATTRIBUTE_COUNT, ATTRIBUTE_COUNT);
+                    rows += 1;
+                }
+            }
+            return this;
+        }
+
+        public DeviceIndex build() {
+            strings.clear();
+            return new DeviceIndex(this);
+        }
+    }
+
+}
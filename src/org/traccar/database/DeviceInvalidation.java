@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.traccar.helper.Log;
+
+/**
+ * Receives device cache invalidation messages and evicts only the listed devices
+ *
+ * A message is a list of tokens separated by spaces, commas or semicolons: id:<device id>, imei:<identifier>
+ * or all. A message without any known token invalidates all devices, like the original SQS message did.
+ */
+public class DeviceInvalidation {
+
+    /**
+     * Source of invalidation messages
+     */
+    public interface Transport {
+
+        void start(DeviceInvalidation invalidation) throws Exception;
+
+        void stop();
+
+    }
+
+    private static final long DEFAULT_FILE_INTERVAL = 1000;
+
+    private final DataManager dataManager;
+    private final List<Transport> transports = new ArrayList<Transport>();
+
+    public DeviceInvalidation(DataManager dataManager) {
+        this.dataManager = dataManager;
+    }
+
+    public DeviceInvalidation(DataManager dataManager, Properties properties) throws Exception {
+        this(dataManager);
+
+        String value = properties.getProperty("invalidation.udp.port");
+        if (value != null) {
+            addTransport(new UdpInvalidationTransport(
+                    properties.getProperty("invalidation.udp.address", "127.0.0.1"), Integer.valueOf(value)));
+        }
+
+        value = properties.getProperty("invalidation.http.port");
+        if (value != null) {
+            addTransport(new HttpInvalidationTransport(
+                    properties.getProperty("invalidation.http.address", "127.0.0.1"), Integer.valueOf(value)));
+        }
+
+        value = properties.getProperty("invalidation.file");
+        if (value != null) {
+            String interval = properties.getProperty("invalidation.file.interval");
+            addTransport(new FileInvalidationTransport(
+                    new File(value), interval != null ? Long.valueOf(interval) : DEFAULT_FILE_INTERVAL));
+        }
+    }
+
+    public void addTransport(Transport transport) throws Exception {
+        transport.start(this);
+        transports.add(transport);
+    }
+
+    public void handleMessage(String message) {
+        Set<Long> ids = new HashSet<Long>();
+        Set<String> imeis = new HashSet<String>();
+        boolean all = false;
+
+        for (String token : message.trim().split("[\\s,;]+")) {
+            if (token.startsWith("id:")) {
+                try {
+                    ids.add(Long.valueOf(token.substring(3)));
+                } catch (NumberFormatException error) {
+                    Log.warning("Invalid device id in invalidation message: " + token);
+                }
+            } else if (token.startsWith("imei:")) {
+                imeis.add(token.substring(5));
+            } else if (token.equalsIgnoreCase("all")) {
+                all = true;
+            }
+        }
+
+        if (all || ids.isEmpty() && imeis.isEmpty()) {
+            Log.info("Invalidating all devices: " + message);
+            dataManager.invalidateAllDevices();
+        } else {
+            Log.info("Invalidating devices " + ids + " " + imeis);
+            dataManager.invalidateDevices(ids, imeis);
+        }
+    }
+
+    public void stop() {
+        for (Transport transport : transports) {
+            transport.stop();
+        }
+        transports.clear();
+    }
+
+}
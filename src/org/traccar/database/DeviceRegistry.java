@@ -0,0 +1,308 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.traccar.helper.Log;
+import org.traccar.model.Device;
+
+/**
+ * Devices lookup backed by an immutable snapshot, readers never lock and refresh replaces the whole snapshot
+ */
+public class DeviceRegistry {
+
+    private static final long RETRY_DELAY = 5000;
+    private static final int MAX_GENERATIONS = 100000;
+
+    private final DataManager dataManager;
+    private final long refreshDelay;
+    private final long fullRefreshDelay;
+
+    private volatile DeviceIndex snapshot = new DeviceIndex.Builder().build();
+    private volatile long version;
+
+    // Version in which a device was last modified or removed, older changes are folded into the minimum
+    private final ConcurrentMap<Long, Long> generations = new ConcurrentHashMap<Long, Long>();
+    private volatile long minGeneration;
+
+    private final Object refreshLock = new Object();
+    private volatile long lastRefresh;
+    private long lastRefreshStart;
+    private long lastFullRefresh;
+    private volatile boolean fullRefreshRequested;
+    private final CountDownLatch ready = new CountDownLatch(1);
+
+    private final Object lock = new Object();
+    private boolean running;
+    private Thread thread;
+
+    /**
+     * Delays are in milliseconds, full reload also picks up removed devices
+     */
+    public DeviceRegistry(DataManager dataManager, long refreshDelay, long fullRefreshDelay) {
+        this.dataManager = dataManager;
+        this.refreshDelay = refreshDelay;
+        this.fullRefreshDelay = fullRefreshDelay;
+    }
+
+    public Device getByImei(String imei) {
+        return snapshot.getByImei(imei);
+    }
+
+    public Long getIdByImeiKey(long key) {
+        return snapshot.getIdByImeiKey(key);
+    }
+
+    public Device getById(Long id) {
+        return snapshot.getById(id);
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    public long getLastRefresh() {
+        return lastRefresh;
+    }
+
+    /**
+     * Refresh unless another one started after the given time, concurrent callers share one query
+     */
+    public void refresh(long time) throws SQLException {
+        synchronized (refreshLock) {
+            if (lastRefresh > time) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            boolean full = fullRefreshRequested || lastFullRefresh == 0 || start - lastFullRefresh >= fullRefreshDelay;
+
+            if (!full) {
+                List<Device> changed = new ArrayList<Device>();
+                if (dataManager.loadChangedDevices(new Date(lastRefreshStart), changed)) {
+                    if (!changed.isEmpty()) {
+                        applyChanges(changed, Collections.<Long>emptySet());
+                    }
+                } else {
+                    full = true;
+                }
+            }
+
+            if (full) {
+                fullRefreshRequested = false;
+                Log.info("Refreshing Devices map: " + new Date(start));
+                DeviceIndex.Builder builder = new DeviceIndex.Builder();
+                try {
+                    dataManager.loadDevices(builder);
+                } catch (SQLException error) {
+                    fullRefreshRequested = true;
+                    throw error;
+                }
+                DeviceIndex index = builder.build();
+                setSnapshot(index, index.getChangedIds(snapshot));
+                lastFullRefresh = start;
+            }
+
+            lastRefreshStart = start;
+            lastRefresh = Math.max(start, time + 1);
+            ready.countDown();
+        }
+    }
+
+    /**
+     * Ready once devices are loaded from the database or restored from a snapshot
+     */
+    public boolean isReady() {
+        return ready.getCount() == 0;
+    }
+
+    /**
+     * Wait up to the timeout in milliseconds for the first load, returns false if it has not finished
+     */
+    public boolean awaitReady(long timeout) throws InterruptedException {
+        return ready.await(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replace changed devices and drop removed ones in a new snapshot
+     */
+    private void applyChanges(List<Device> changed, Set<Long> removedIds) {
+        Set<Long> changedIds = new HashSet<Long>(removedIds);
+        for (Device device : changed) {
+            changedIds.add(device.getId());
+        }
+        DeviceIndex.Builder builder = new DeviceIndex.Builder().addAll(snapshot, changedIds);
+        for (Device device : changed) {
+            builder.add(device);
+        }
+        setSnapshot(builder.build(), changedIds);
+    }
+
+    /**
+     * Generations are published before the version, so a reader of the new version sees them
+     */
+    private void setSnapshot(DeviceIndex snapshot, Collection<Long> changedIds) {
+        long next = version + 1;
+        if (generations.size() + changedIds.size() > MAX_GENERATIONS) {
+            minGeneration = next;
+            generations.clear();
+        } else {
+            for (Long id : changedIds) {
+                generations.put(id, next);
+            }
+        }
+        if (snapshot != null) {
+            this.snapshot = snapshot;
+        }
+        version = next;
+    }
+
+    /**
+     * Current devices, returns the start time of the refresh they are consistent with or zero before the first one
+     */
+    long getDevices(List<Device> devices) {
+        synchronized (refreshLock) {
+            devices.addAll(snapshot.getDevices());
+            return lastRefreshStart;
+        }
+    }
+
+    /**
+     * Serve devices saved earlier, the next refresh only loads changes made after the given time
+     */
+    void restore(DeviceIndex index, long time) {
+        synchronized (refreshLock) {
+            if (lastRefresh != 0) {
+                return;
+            }
+            setSnapshot(index, index.getChangedIds(snapshot));
+            lastRefreshStart = time;
+            lastFullRefresh = time;
+            ready.countDown();
+        }
+    }
+
+    /**
+     * Changes whenever devices are reloaded or evicted, read it before a lookup to check the result later
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Version in which the device was last modified or removed, a device found with an equal or later version
+     * is still current
+     */
+    public long getGeneration(Long deviceId) {
+        Long generation = deviceId != null ? generations.get(deviceId) : null;
+        return Math.max(minGeneration, generation != null ? generation : 0);
+    }
+
+    /**
+     * Reload only the given devices, devices missing from the database are removed
+     *
+     * Without a query by id the background thread does a full reload instead.
+     */
+    public void reload(Set<Long> ids) throws SQLException {
+        synchronized (refreshLock) {
+            List<Device> devices = new ArrayList<Device>();
+            if (dataManager.loadDevices(ids, devices)) {
+                applyChanges(devices, ids);
+                return;
+            }
+            // Results cached for these devices are stale even before the full reload
+            setSnapshot(null, ids);
+        }
+        invalidate();
+    }
+
+    /**
+     * Ask the background thread for a full reload as soon as possible
+     */
+    public void invalidate() {
+        fullRefreshRequested = true;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "device-registry");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void loop() {
+        long lastFailure = 0;
+        while (true) {
+            synchronized (lock) {
+                long deadline = lastFailure != 0
+                        ? lastFailure + Math.min(refreshDelay, RETRY_DELAY) : lastRefresh + refreshDelay;
+                long delay = deadline - System.currentTimeMillis();
+                if (running && delay > 0 && (!fullRefreshRequested || lastFailure != 0)) {
+                    try {
+                        lock.wait(delay);
+                    } catch (InterruptedException error) {
+                        Log.warning(error);
+                    }
+                    continue;
+                }
+                if (!running) {
+                    break;
+                }
+            }
+            try {
+                refresh(System.currentTimeMillis());
+                lastFailure = 0;
+            } catch (Exception error) {
+                Log.warning("Device refresh failed", error);
+                lastFailure = System.currentTimeMillis();
+            }
+        }
+    }
+
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException error) {
+                Log.warning(error);
+            }
+        }
+    }
+
+}
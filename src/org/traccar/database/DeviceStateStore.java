@@ -0,0 +1,320 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.traccar.model.Position;
+
+/**
+ * Last known state of every active device, shared by decoders, filters and the database layer
+ *
+ * Devices are spread over independently locked stripes. Each stripe keeps its devices in update order,
+ * so the eldest entry is the one idle for the longest time and is evicted first.
+ */
+public class DeviceStateStore {
+
+    private static final int DEFAULT_CACHE_SIZE = 100000;
+    private static final long DEFAULT_TIMEOUT = 24 * 60 * 60;
+    private static final int STRIPES = 16;
+
+    private static final long NO_ID = Long.MIN_VALUE;
+
+    /**
+     * Immutable copy of the position fields, a missing value is stored as NaN or a sentinel
+     */
+    public static final class State {
+
+        private static final int FLAG_VALID = 1;
+        private static final int FLAG_INVALID = 2;
+
+        private final long time;
+        private final long startTime;
+        private final int flags;
+        private final double latitude;
+        private final double longitude;
+        private final double altitude;
+        private final double speed;
+        private final double course;
+        private final long databaseId;
+        private final String extendedInfo;
+        private final long updated;
+
+        private State(Position position, long databaseId, long updated) {
+            time = toTime(position.getTime());
+            startTime = toTime(position.getStartTime());
+            if (position.getValid() != null) {
+                flags = position.getValid() ? FLAG_VALID : FLAG_INVALID;
+            } else {
+                flags = 0;
+            }
+            latitude = toDouble(position.getLatitude());
+            longitude = toDouble(position.getLongitude());
+            altitude = toDouble(position.getAltitude());
+            speed = toDouble(position.getSpeed());
+            course = toDouble(position.getCourse());
+            this.databaseId = databaseId;
+            extendedInfo = position.getExtendedInfo();
+            this.updated = updated;
+        }
+
+        private State(ByteBuffer buf) {
+            time = buf.getLong();
+            startTime = buf.getLong();
+            flags = buf.getInt();
+            latitude = buf.getDouble();
+            longitude = buf.getDouble();
+            altitude = buf.getDouble();
+            speed = buf.getDouble();
+            course = buf.getDouble();
+            databaseId = buf.getLong();
+            updated = buf.getLong();
+            extendedInfo = StateSnapshot.readString(buf);
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeLong(time);
+            out.writeLong(startTime);
+            out.writeInt(flags);
+            out.writeDouble(latitude);
+            out.writeDouble(longitude);
+            out.writeDouble(altitude);
+            out.writeDouble(speed);
+            out.writeDouble(course);
+            out.writeLong(databaseId);
+            out.writeLong(updated);
+            StateSnapshot.writeString(out, extendedInfo);
+        }
+
+        private State(State state, long updated) {
+            time = state.time;
+            startTime = state.startTime;
+            flags = state.flags;
+            latitude = state.latitude;
+            longitude = state.longitude;
+            altitude = state.altitude;
+            speed = state.speed;
+            course = state.course;
+            databaseId = state.databaseId;
+            extendedInfo = state.extendedInfo;
+            this.updated = updated;
+        }
+
+        private static long toTime(Date value) {
+            return value != null ? value.getTime() : NO_ID;
+        }
+
+        private static double toDouble(Double value) {
+            return value != null ? value : Double.NaN;
+        }
+
+        private static Double fromDouble(double value) {
+            return Double.isNaN(value) ? null : value;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public Date getTimeDate() {
+            return time != NO_ID ? new Date(time) : null;
+        }
+
+        public Date getStartTimeDate() {
+            return startTime != NO_ID ? new Date(startTime) : null;
+        }
+
+        public Boolean getValid() {
+            return flags != 0 ? (flags & FLAG_VALID) != 0 : null;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public Long getDatabaseId() {
+            return databaseId != NO_ID ? databaseId : null;
+        }
+
+        public String getExtendedInfo() {
+            return extendedInfo;
+        }
+
+        /**
+         * Copy stored fields into the position, times are restored without clock validation
+         */
+        public void copyTo(Position position) {
+            position.restoreTime(getTimeDate(), getStartTimeDate());
+            position.setValid(getValid());
+            position.setLatitude(fromDouble(latitude));
+            position.setLongitude(fromDouble(longitude));
+            position.setAltitude(fromDouble(altitude));
+            position.setSpeed(fromDouble(speed));
+            position.setCourse(fromDouble(course));
+        }
+    }
+
+    private final long timeout;
+    private final Map<Long, State>[] stripes;
+
+    public DeviceStateStore(Properties properties) {
+        this(getCacheSize(properties), getTimeout(properties));
+    }
+
+    private static int getCacheSize(Properties properties) {
+        String value = properties != null ? properties.getProperty("state.cacheSize") : null;
+        return value != null ? Integer.valueOf(value) : DEFAULT_CACHE_SIZE;
+    }
+
+    private static long getTimeout(Properties properties) {
+        String value = properties != null ? properties.getProperty("state.timeout") : null;
+        return (value != null ? Long.valueOf(value) : DEFAULT_TIMEOUT) * 1000;
+    }
+
+    @SuppressWarnings("unchecked")
+    public DeviceStateStore(int maxSize, long timeout) {
+        this.timeout = timeout;
+        final int stripeSize = Math.max((maxSize + STRIPES - 1) / STRIPES, 1);
+        stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LinkedHashMap<Long, State>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, State> eldest) {
+                    return size() > stripeSize;
+                }
+            };
+        }
+    }
+
+    private Map<Long, State> getStripe(long deviceId) {
+        long hash = deviceId * 0x9e3779b97f4a7c15L;
+        return stripes[(int) (hash >>> 60) & (STRIPES - 1)];
+    }
+
+    private void expire(Map<Long, State> stripe, long now) {
+        Iterator<State> iterator = stripe.values().iterator();
+        while (iterator.hasNext() && iterator.next().updated + timeout <= now) {
+            iterator.remove();
+        }
+    }
+
+    public State get(Long deviceId) {
+        if (deviceId == null) {
+            return null;
+        }
+        Map<Long, State> stripe = getStripe(deviceId);
+        synchronized (stripe) {
+            State state = stripe.get(deviceId);
+            if (state != null && state.updated + timeout <= System.currentTimeMillis()) {
+                stripe.remove(deviceId);
+                return null;
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Replace device state unless a newer position has already been recorded
+     */
+    public void update(Position position) {
+        if (position.getDeviceId() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Long databaseId = position.getDatabaseId();
+        State state = new State(position, databaseId != null ? databaseId : NO_ID, now);
+
+        Map<Long, State> stripe = getStripe(position.getDeviceId());
+        synchronized (stripe) {
+            State current = stripe.remove(position.getDeviceId());
+            if (current != null && current.time > state.time) {
+                state = new State(current, now);
+            }
+            stripe.put(position.getDeviceId(), state);
+            expire(stripe, now);
+        }
+    }
+
+    /**
+     * Write states as a count followed by records, stripes keep their order so eviction order survives a restart
+     */
+    void write(DataOutputStream out) throws IOException {
+        List<Long> ids = new ArrayList<Long>();
+        List<State> states = new ArrayList<State>();
+        for (Map<Long, State> stripe : stripes) {
+            synchronized (stripe) {
+                for (Map.Entry<Long, State> entry : stripe.entrySet()) {
+                    ids.add(entry.getKey());
+                    states.add(entry.getValue());
+                }
+            }
+        }
+        out.writeInt(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            out.writeLong(ids.get(i));
+            states.get(i).write(out);
+        }
+    }
+
+    /**
+     * Restore states written by write, expired ones and those older than current state are skipped
+     */
+    int read(ByteBuffer buf) {
+        long now = System.currentTimeMillis();
+        int restored = 0;
+        int count = buf.getInt();
+        for (int i = 0; i < count; i++) {
+            long deviceId = buf.getLong();
+            State state = new State(buf);
+            if (state.updated + timeout <= now) {
+                continue;
+            }
+            Map<Long, State> stripe = getStripe(deviceId);
+            synchronized (stripe) {
+                State current = stripe.get(deviceId);
+                if (current == null || current.time < state.time) {
+                    stripe.put(deviceId, state);
+                    restored += 1;
+                }
+            }
+        }
+        return restored;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<Long, State> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+}
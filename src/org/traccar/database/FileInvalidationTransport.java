@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+
+import org.traccar.helper.Log;
+
+/**
+ * Polls a local file and handles every line appended to it as a message, mostly for tests and scripts
+ */
+public class FileInvalidationTransport implements DeviceInvalidation.Transport {
+
+    private static final int BUFFER_SIZE = 4096;
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private final File file;
+    private final long interval;
+    private long offset;
+
+    private final Object lock = new Object();
+    private boolean running;
+    private Thread thread;
+
+    public FileInvalidationTransport(File file, long interval) {
+        this.file = file;
+        this.interval = interval;
+    }
+
+    /**
+     * Handle complete UTF-8 lines written since the last call, a truncated file is read from the start
+     */
+    void poll(DeviceInvalidation invalidation) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            if (input.length() < offset) {
+                offset = 0;
+            }
+            input.seek(offset);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long position = offset;
+            int length;
+            while ((length = input.read(buffer)) != -1) {
+                int start = 0;
+                for (int i = 0; i < length; i++) {
+                    if (buffer[i] == '\n') {
+                        line.write(buffer, start, i - start);
+                        invalidation.handleMessage(new String(line.toByteArray(), CHARSET));
+                        line.reset();
+                        start = i + 1;
+                        offset = position + start;
+                    }
+                }
+                line.write(buffer, start, length - start);
+                position += length;
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    @Override
+    public void start(final DeviceInvalidation invalidation) throws IOException {
+        // Only lines written after start are handled
+        offset = file.length();
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    synchronized (lock) {
+                        if (!running) {
+                            break;
+                        }
+                        try {
+                            lock.wait(interval);
+                        } catch (InterruptedException error) {
+                            Log.warning(error);
+                        }
+                    }
+                    try {
+                        poll(invalidation);
+                    } catch (IOException error) {
+                        Log.warning(error);
+                    }
+                }
+            }
+        }, "invalidation-file");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException error) {
+            Log.warning(error);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GCM registration ids per device, each entry expires after a fixed time
+ *
+ * After a bulk load the cache is complete until the timeout expires, so a device without an entry has no ids
+ * and does not need a query. Invalidated devices keep an expired entry to be looked up again.
+ */
+public class GcmIdCache {
+
+    private static final class Entry {
+
+        private final List<String> ids;
+        private final long expiration;
+
+        private Entry(List<String> ids, long expiration) {
+            this.ids = ids;
+            this.expiration = expiration;
+        }
+    }
+
+    private final int maxSize;
+    private final long timeout;
+    private final Map<Long, Entry> entries;
+    private long completeExpiration;
+
+    public GcmIdCache(final int maxSize, long timeout) {
+        this.maxSize = maxSize;
+        this.timeout = timeout;
+        entries = new LinkedHashMap<Long, Entry>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > maxSize) {
+                    completeExpiration = 0;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Cached ids of the device, null if they have to be loaded
+     */
+    public synchronized List<String> get(long deviceId, long time) {
+        Entry entry = entries.get(deviceId);
+        if (entry != null) {
+            return entry.expiration > time ? entry.ids : null;
+        }
+        return completeExpiration > time ? Collections.<String>emptyList() : null;
+    }
+
+    public synchronized void put(long deviceId, List<String> ids, long time) {
+        entries.remove(deviceId);
+        entries.put(deviceId, new Entry(Collections.unmodifiableList(ids), time + timeout));
+    }
+
+    /**
+     * Replace content with ids of all devices, devices missing from the map have no ids
+     */
+    public synchronized void load(Map<Long, List<String>> ids, long time) {
+        entries.clear();
+        for (Map.Entry<Long, List<String>> entry : ids.entrySet()) {
+            entries.put(entry.getKey(), new Entry(Collections.unmodifiableList(entry.getValue()), time + timeout));
+        }
+        completeExpiration = ids.size() <= maxSize ? time + timeout : 0;
+    }
+
+    public synchronized void invalidate(long deviceId) {
+        if (completeExpiration != 0) {
+            entries.put(deviceId, new Entry(Collections.<String>emptyList(), 0));
+        } else {
+            entries.remove(deviceId);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        completeExpiration = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Admin endpoint, POST /invalidate with a message body or GET /invalidate?id=1&amp;imei=123456789012345
+ *
+ * Binds to the loopback interface unless another address is configured.
+ */
+public class HttpInvalidationTransport implements DeviceInvalidation.Transport {
+
+    private static final String PATH = "/invalidate";
+
+    private final String address;
+    private final int port;
+    private HttpServer server;
+
+    public HttpInvalidationTransport(String address, int port) {
+        this.address = address;
+        this.port = port;
+    }
+
+    public int getLocalPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Query parameters become message tokens, for example id=1 turns into id:1
+     */
+    static String parseQuery(String query) throws IOException {
+        StringBuilder message = new StringBuilder();
+        for (String parameter : query.split("&")) {
+            int index = parameter.indexOf('=');
+            if (index > 0) {
+                message.append(URLDecoder.decode(parameter.substring(0, index), "UTF-8")).append(':');
+                message.append(URLDecoder.decode(parameter.substring(index + 1), "UTF-8")).append(' ');
+            } else if (!parameter.isEmpty()) {
+                message.append(URLDecoder.decode(parameter, "UTF-8")).append(' ');
+            }
+        }
+        return message.toString();
+    }
+
+    private static String readBody(InputStream input) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int length;
+        while ((length = input.read(buffer)) != -1) {
+            body.write(buffer, 0, length);
+        }
+        return body.toString("UTF-8");
+    }
+
+    @Override
+    public void start(final DeviceInvalidation invalidation) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        server.createContext(PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    String query = exchange.getRequestURI().getRawQuery();
+                    String message = readBody(exchange.getRequestBody());
+                    if (query != null) {
+                        message = parseQuery(query) + message;
+                    }
+                    invalidation.handleMessage(message);
+                    byte[] response = "OK\n".getBytes("UTF-8");
+                    exchange.sendResponseHeaders(200, response.length);
+                    OutputStream output = exchange.getResponseBody();
+                    output.write(response);
+                    output.close();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    @Override
+    public void stop() {
+        server.stop(0);
+    }
+
+}
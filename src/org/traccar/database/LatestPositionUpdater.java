@@ -0,0 +1,186 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.traccar.helper.Log;
+import org.traccar.model.Position;
+
+/**
+ * Keeps only the newest position per device and writes them as one batch
+ */
+public class LatestPositionUpdater {
+
+    private static final long DEFAULT_FLUSH_INTERVAL = 1000;
+    private static final long DEFAULT_MAX_STALENESS = 5000;
+
+    private final DataManager dataManager;
+    private final long flushInterval;
+    private final long maxStaleness;
+    private final ConcurrentMap<Long, DataManager.LatestPosition> pending =
+            new ConcurrentHashMap<Long, DataManager.LatestPosition>();
+
+    private final Object lock = new Object();
+    private long firstPendingTime;
+    private boolean running = true;
+    private final Thread thread;
+
+    public LatestPositionUpdater(DataManager dataManager, Properties properties) {
+        this.dataManager = dataManager;
+
+        String value = properties.getProperty("database.latest.flushInterval");
+        flushInterval = value != null ? Long.valueOf(value) : DEFAULT_FLUSH_INTERVAL;
+
+        value = properties.getProperty("database.latest.maxStaleness");
+        maxStaleness = value != null ? Long.valueOf(value) : DEFAULT_MAX_STALENESS;
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "latest-position-updater");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Compare by position time, then by database id when times are equal or missing
+     */
+    private static boolean isNewer(DataManager.LatestPosition item, DataManager.LatestPosition current) {
+        Position position = item.getPosition();
+        Position currentPosition = current.getPosition();
+        if (position.getTime() != null && currentPosition.getTime() != null) {
+            int result = position.getTime().compareTo(currentPosition.getTime());
+            if (result != 0) {
+                return result > 0;
+            }
+        }
+        if (item.getId() != null && current.getId() != null) {
+            return item.getId() >= current.getId();
+        }
+        return true;
+    }
+
+    /**
+     * Keep the newer of the pending and the given update
+     */
+    private void merge(Long deviceId, DataManager.LatestPosition item) {
+        while (true) {
+            DataManager.LatestPosition current = pending.putIfAbsent(deviceId, item);
+            if (current == null || !isNewer(item, current) || pending.replace(deviceId, current, item)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replace pending update for the device unless it is newer than the given one
+     */
+    public void update(Position position, Long id) {
+        merge(position.getDeviceId(), new DataManager.LatestPosition(position, id));
+        synchronized (lock) {
+            if (firstPendingTime == 0) {
+                firstPendingTime = System.currentTimeMillis();
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void loop() {
+        long lastFlush = System.currentTimeMillis();
+        while (true) {
+            synchronized (lock) {
+                long now = System.currentTimeMillis();
+                long deadline = lastFlush + flushInterval;
+                if (firstPendingTime != 0) {
+                    deadline = Math.min(deadline, firstPendingTime + maxStaleness);
+                }
+                if (running && deadline > now) {
+                    try {
+                        lock.wait(deadline - now);
+                    } catch (InterruptedException error) {
+                        Log.warning(error);
+                    }
+                    continue;
+                }
+            }
+            flush();
+            lastFlush = System.currentTimeMillis();
+            synchronized (lock) {
+                if (!running) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write pending updates ordered by device to keep row locks in a stable order
+     */
+    public void flush() {
+        synchronized (lock) {
+            firstPendingTime = 0;
+        }
+
+        Map<Long, DataManager.LatestPosition> batch = new TreeMap<Long, DataManager.LatestPosition>();
+        for (Long deviceId : pending.keySet()) {
+            DataManager.LatestPosition item = pending.remove(deviceId);
+            if (item != null) {
+                batch.put(deviceId, item);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            dataManager.updateLatestPositions(new ArrayList<DataManager.LatestPosition>(batch.values()));
+        } catch (Exception error) {
+            Log.warning("Failed to update " + batch.size() + " latest positions", error);
+            for (Map.Entry<Long, DataManager.LatestPosition> entry : batch.entrySet()) {
+                merge(entry.getKey(), entry.getValue());
+            }
+            synchronized (lock) {
+                if (firstPendingTime == 0) {
+                    firstPendingTime = System.currentTimeMillis();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop background thread after a final flush
+     */
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException error) {
+            Log.warning(error);
+        }
+    }
+
+}
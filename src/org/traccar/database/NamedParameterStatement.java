@@ -24,16 +24,251 @@ public class NamedParameterStatement {
 
     private final Map<String, List<Integer>> indexMap;
 
+    private final String[] slotNames;
+
+    private final int[][] slotIndexes;
+
     private final String parsedQuery;
 
     private final DataSource dataSource;
 
     private final int autoGeneratedKeys;
 
+    private int fetchSize;
+
+    /**
+     * Start and end of the VALUES group holding every parameter, null if the query can't be repeated per row
+     */
+    private final int[] valuesGroup;
+
+    private final int rowParameterCount;
+
     public interface ResultSetProcessor<T> {
         T processNextRow(ResultSet rs) throws SQLException;
     }
 
+    /**
+     * Consumes rows as they are fetched, prepare is called once per result set before the first row
+     */
+    public interface RowHandler {
+        void prepare(ResultSet rs) throws SQLException;
+        void processRow(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Rows fetched per round trip by streaming queries, 0 leaves the driver default
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Writes an item directly into statement parameters using slots resolved in advance
+     */
+    public interface Binding<T> {
+        void bind(Binder binder, T item) throws SQLException;
+    }
+
+    /**
+     * Slot based parameter setter, slot -1 stands for a parameter missing from the query
+     */
+    public class Binder {
+
+        private PreparedStatement stmt;
+
+        private int offset;
+
+        private void setStatement(PreparedStatement stmt) {
+            this.stmt = stmt;
+        }
+
+        private void setRow(int row) {
+            offset = row * rowParameterCount;
+        }
+
+        public Binder setNull(int slot, int type) throws SQLException {
+            if (slot >= 0) for (int index : slotIndexes[slot]) {
+                stmt.setNull(index + offset, type);
+            }
+            return this;
+        }
+
+        public Binder setInt(int slot, int value) throws SQLException {
+            if (slot >= 0) for (int index : slotIndexes[slot]) {
+                stmt.setInt(index + offset, value);
+            }
+            return this;
+        }
+
+        public Binder setLong(int slot, long value) throws SQLException {
+            if (slot >= 0) for (int index : slotIndexes[slot]) {
+                stmt.setLong(index + offset, value);
+            }
+            return this;
+        }
+
+        public Binder setDouble(int slot, double value) throws SQLException {
+            if (slot >= 0) for (int index : slotIndexes[slot]) {
+                stmt.setDouble(index + offset, value);
+            }
+            return this;
+        }
+
+        public Binder setBoolean(int slot, boolean value) throws SQLException {
+            if (slot >= 0) for (int index : slotIndexes[slot]) {
+                stmt.setBoolean(index + offset, value);
+            }
+            return this;
+        }
+
+        public Binder setString(int slot, String value) throws SQLException {
+            if (value == null) {
+                return setNull(slot, Types.VARCHAR);
+            }
+            if (slot >= 0) for (int index : slotIndexes[slot]) {
+                stmt.setString(index + offset, value);
+            }
+            return this;
+        }
+
+        public Binder setTimestamp(int slot, Date value) throws SQLException {
+            if (value == null) {
+                return setNull(slot, Types.TIMESTAMP);
+            }
+            if (slot >= 0) {
+                Timestamp timestamp = new Timestamp(value.getTime());
+                for (int index : slotIndexes[slot]) {
+                    stmt.setTimestamp(index + offset, timestamp);
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Collects values of one row as PostgreSQL COPY text format fields
+     */
+    class RowBinder extends Binder {
+
+        private final String[] values = new String[rowParameterCount];
+
+        private void set(int slot, String value) {
+            if (slot >= 0) for (int index : slotIndexes[slot]) {
+                values[index - 1] = value;
+            }
+        }
+
+        @Override
+        public Binder setNull(int slot, int type) {
+            set(slot, null);
+            return this;
+        }
+
+        @Override
+        public Binder setInt(int slot, int value) {
+            set(slot, String.valueOf(value));
+            return this;
+        }
+
+        @Override
+        public Binder setLong(int slot, long value) {
+            set(slot, String.valueOf(value));
+            return this;
+        }
+
+        @Override
+        public Binder setDouble(int slot, double value) {
+            set(slot, String.valueOf(value));
+            return this;
+        }
+
+        @Override
+        public Binder setBoolean(int slot, boolean value) {
+            set(slot, value ? "t" : "f");
+            return this;
+        }
+
+        @Override
+        public Binder setString(int slot, String value) {
+            set(slot, value);
+            return this;
+        }
+
+        @Override
+        public Binder setTimestamp(int slot, Date value) {
+            set(slot, value != null ? new Timestamp(value.getTime()).toString() : null);
+            return this;
+        }
+
+        /**
+         * Append collected values as a line, null is written as \N and special characters are escaped
+         */
+        void appendRow(StringBuilder s) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    s.append('\t');
+                }
+                String value = values[i];
+                if (value == null) {
+                    s.append("\\N");
+                } else {
+                    for (int j = 0; j < value.length(); j++) {
+                        char c = value.charAt(j);
+                        switch (c) {
+                            case '\\':
+                                s.append("\\\\");
+                                break;
+                            case '\t':
+                                s.append("\\t");
+                                break;
+                            case '\n':
+                                s.append("\\n");
+                                break;
+                            case '\r':
+                                s.append("\\r");
+                                break;
+                            default:
+                                s.append(c);
+                                break;
+                        }
+                    }
+                }
+                values[i] = null;
+            }
+            s.append('\n');
+        }
+    }
+
+    RowBinder createRowBinder() {
+        return new RowBinder();
+    }
+
+    private final Binding<Params> paramsBinding = new Binding<Params>() {
+        @Override
+        public void bind(Binder binder, Params params) throws SQLException {
+            params.setParams(binder.stmt);
+        }
+    };
+
+    /**
+     * Parameter slot, or -1 if the query does not use the parameter
+     */
+    public int getSlot(String name) {
+        for (int i = 0; i < slotNames.length; i++) {
+            if (slotNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Number of distinct parameters in the query
+     */
+    public int getSlotCount() {
+        return slotNames.length;
+    }
+
     public class Params {
         Map<String, Object> values;
         Map<String, Integer> types;
@@ -83,28 +318,71 @@ public class NamedParameterStatement {
             return this;
         }
 
-        public <T> List<T> executeQuery(ResultSetProcessor<T> processor) throws SQLException {
+        public <T> List<T> executeQuery(final ResultSetProcessor<T> processor) throws SQLException {
+            final List<T> result = new LinkedList<T>();
+            executeQuery(new RowHandler() {
+                @Override
+                public void prepare(ResultSet rs) {
+                }
+
+                @Override
+                public void processRow(ResultSet rs) throws SQLException {
+                    result.add(processor.processNextRow(rs));
+                }
+            });
+            return result;
+        }
+
+        /**
+         * Stream rows into the handler without collecting them, returns number of rows
+         */
+        public int executeQuery(RowHandler handler) throws SQLException {
             Connection conn = null;
             PreparedStatement stmt = null;
             ResultSet rs = null;
-
-            List<T> result = new LinkedList<T>();
+            boolean autoCommit = true;
+            boolean cursor = fetchSize > 0;
+            int count = 0;
 
             try {
                 conn = dataSource.getConnection();
-                stmt = conn.prepareStatement(parsedQuery);
+
+                // Some drivers (PostgreSQL) only use cursors inside a transaction
+                if (cursor) {
+                    autoCommit = conn.getAutoCommit();
+                    conn.setAutoCommit(false);
+                }
+
+                stmt = conn.prepareStatement(parsedQuery, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                if (fetchSize > 0) {
+                    stmt.setFetchSize(fetchSize);
+                }
 
                 setParams(stmt);
 
                 rs = stmt.executeQuery();
+                handler.prepare(rs);
                 while (rs.next()) {
-                    result.add(processor.processNextRow(rs));
+                    handler.processRow(rs);
+                    count++;
+                }
+
+                if (cursor) {
+                    conn.commit();
                 }
             } finally {
-                closeQuietly(conn, stmt, rs);
+                closeQuietly(null, stmt, rs);
+                if (conn != null && cursor) {
+                    try {
+                        conn.rollback();
+                        conn.setAutoCommit(autoCommit);
+                    } catch (SQLException sqex) {
+                    }
+                }
+                closeQuietly(conn, null, null);
             }
 
-            return result;
+            return count;
         }
 
         public <T> List<T> executeUpdate(ResultSetProcessor<T> processor) throws SQLException {
@@ -182,28 +460,179 @@ public class NamedParameterStatement {
             }
         }
 
-        private void closeQuietly(Connection conn, Statement stmt, ResultSet rs) {
-            if (rs != null) {
-                try {
+    }
+
+    private static void closeQuietly(Connection conn, Statement stmt, ResultSet rs) {
+        if (rs != null) {
+            try {
+                rs.close();
+            } catch (SQLException sqex) {
+            }
+        }
+
+        if (stmt != null) {
+            try {
+                stmt.close();
+            } catch (SQLException sqex) {
+            }
+        }
+
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException sqex) {
+            }
+        }
+    }
+
+    /**
+     * Some drivers return only the last key after executeBatch, in which case rows are inserted one by one
+     */
+    private volatile boolean batchGeneratedKeys = true;
+
+    /**
+     * Work done on one connection by inTransaction
+     */
+    public interface Work<T> {
+        T execute(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Run work on one connection and commit it as a single transaction, rolled back on failure
+     */
+    public static <T> T inTransaction(DataSource dataSource, Work<T> work) throws SQLException {
+        Connection conn = dataSource.getConnection();
+        boolean autoCommit = true;
+        try {
+            autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            T result = work.execute(conn);
+            conn.commit();
+            return result;
+        } catch (SQLException error) {
+            try {
+                conn.rollback();
+            } catch (SQLException sqex) {
+            }
+            throw error;
+        } finally {
+            try {
+                conn.setAutoCommit(autoCommit);
+            } catch (SQLException sqex) {
+            }
+            closeQuietly(conn, null, null);
+        }
+    }
+
+    /**
+     * Execute all parameter sets in a single transaction, using JDBC batching where possible
+     */
+    public <K> List<K> executeBatch(List<Params> batch, ResultSetProcessor<K> processor) throws SQLException {
+        return executeBatch(batch, paramsBinding, processor);
+    }
+
+    /**
+     * Execute statement once for each item in a single transaction, using JDBC batching where possible
+     */
+    public <T, K> List<K> executeBatch(final List<T> batch, final Binding<? super T> binding,
+            final ResultSetProcessor<K> processor) throws SQLException {
+        return inTransaction(dataSource, new Work<List<K>>() {
+            @Override
+            public List<K> execute(Connection conn) throws SQLException {
+                return executeBatch(conn, batch, binding, processor);
+            }
+        });
+    }
+
+    /**
+     * Execute statement once for each item within the transaction of the given connection
+     */
+    public <T, K> List<K> executeBatch(Connection conn, List<T> batch, Binding<? super T> binding,
+            ResultSetProcessor<K> processor) throws SQLException {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+
+        List<K> result = new ArrayList<K>(batch.size());
+        Binder binder = new Binder();
+
+        try {
+            stmt = conn.prepareStatement(parsedQuery, autoGeneratedKeys);
+            binder.setStatement(stmt);
+
+            boolean keys = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS;
+
+            if (!keys || batchGeneratedKeys) {
+                // Undo only this batch if the driver turns out to return a single key
+                Savepoint savepoint = keys ? conn.setSavepoint() : null;
+                for (T item : batch) {
+                    binding.bind(binder, item);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+
+                if (keys) {
+                    rs = stmt.getGeneratedKeys();
+                    while (rs.next()) {
+                        result.add(processor.processNextRow(rs));
+                    }
                     rs.close();
-                } catch (SQLException sqex) {
+                    rs = null;
+
+                    if (result.size() != batch.size()) {
+                        conn.rollback(savepoint);
+                        result.clear();
+                        batchGeneratedKeys = false;
+                    }
                 }
             }
 
-            if (stmt != null) {
-                try {
-                    stmt.close();
-                } catch (SQLException sqex) {
+            if (keys && !batchGeneratedKeys) {
+                for (T item : batch) {
+                    binding.bind(binder, item);
+                    stmt.executeUpdate();
+                    rs = stmt.getGeneratedKeys();
+                    result.add(rs.next() ? processor.processNextRow(rs) : null);
+                    rs.close();
+                    rs = null;
                 }
             }
+        } finally {
+            closeQuietly(null, stmt, rs);
+        }
 
-            if (conn != null) {
-                try {
-                    conn.close();
-                } catch (SQLException sqex) {
+        return result;
+    }
+
+    /**
+     * Execute statement for a single item, returns first generated key if requested
+     */
+    public <T, K> K executeUpdate(T item, Binding<? super T> binding, ResultSetProcessor<K> processor)
+            throws SQLException {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = dataSource.getConnection();
+            stmt = conn.prepareStatement(parsedQuery, autoGeneratedKeys);
+
+            Binder binder = new Binder();
+            binder.setStatement(stmt);
+            binding.bind(binder, item);
+
+            stmt.executeUpdate();
+
+            if (autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS && processor != null) {
+                rs = stmt.getGeneratedKeys();
+                if (rs.next()) {
+                    return processor.processNextRow(rs);
                 }
             }
+        } finally {
+            closeQuietly(conn, stmt, rs);
         }
+
+        return null;
     }
 
     public NamedParameterStatement(String query, DataSource dataSource) {
@@ -211,10 +640,27 @@ public class NamedParameterStatement {
     }
 
     public NamedParameterStatement(String query, DataSource dataSource, int autoGeneratedKeys) {
-        this.indexMap = new HashMap<String, List<Integer>>();
+        // Slots follow parameter order, so queries differing only in table name share slots
+        this.indexMap = new LinkedHashMap<String, List<Integer>>();
         this.parsedQuery = parse(query, indexMap);
         this.dataSource = dataSource;
         this.autoGeneratedKeys = autoGeneratedKeys;
+
+        valuesGroup = findValuesGroup(parsedQuery);
+        rowParameterCount = countParameters(parsedQuery, 0, parsedQuery.length());
+
+        slotNames = new String[indexMap.size()];
+        slotIndexes = new int[indexMap.size()][];
+        int slot = 0;
+        for (Map.Entry<String, List<Integer>> entry : indexMap.entrySet()) {
+            slotNames[slot] = entry.getKey();
+            slotIndexes[slot] = new int[entry.getValue().size()];
+            int i = 0;
+            for (Integer index : entry.getValue()) {
+                slotIndexes[slot][i++] = index;
+            }
+            slot++;
+        }
     }
 
     static String parse(String query, Map<String, List<Integer>> paramMap) {
@@ -270,6 +716,187 @@ public class NamedParameterStatement {
         return parsedQuery.toString();
     }
 
+    private static int countParameters(String query, int start, int end) {
+        int count = 0;
+        boolean inQuote = false;
+        for (int i = start; i < end; i++) {
+            char c = query.charAt(i);
+            if (c == '\'') {
+                inQuote = !inQuote;
+            } else if (c == '?' && !inQuote) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static int[] findValuesGroup(String query) {
+        String upper = query.toUpperCase();
+        int keyword = -1;
+        boolean inQuote = false;
+        for (int i = 0; i + 6 <= upper.length(); i++) {
+            char c = upper.charAt(i);
+            if (c == '\'') {
+                inQuote = !inQuote;
+            } else if (!inQuote && upper.startsWith("VALUES", i)
+                    && (i == 0 || !Character.isJavaIdentifierPart(upper.charAt(i - 1)))
+                    && (i + 6 == upper.length() || !Character.isJavaIdentifierPart(upper.charAt(i + 6)))) {
+                keyword = i;
+                break;
+            }
+        }
+        if (keyword < 0) {
+            return null;
+        }
+
+        int start = query.indexOf('(', keyword);
+        if (start < 0) {
+            return null;
+        }
+        int depth = 0;
+        inQuote = false;
+        for (int i = start; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '\'') {
+                inQuote = !inQuote;
+            } else if (!inQuote && c == '(') {
+                depth++;
+            } else if (!inQuote && c == ')' && --depth == 0) {
+                int end = i + 1;
+                int total = countParameters(query, 0, query.length());
+                if (total == 0 || countParameters(query, start, end) != total) {
+                    return null;
+                }
+                return new int[] {start, end};
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Query inserting given number of rows with a single statement
+     */
+    String getMultiRowQuery(int rows) {
+        String group = parsedQuery.substring(valuesGroup[0], valuesGroup[1]);
+        StringBuilder s = new StringBuilder(parsedQuery.length() + (group.length() + 2) * rows);
+        s.append(parsedQuery, 0, valuesGroup[1]);
+        for (int i = 1; i < rows; i++) {
+            s.append(", ").append(group);
+        }
+        s.append(parsedQuery, valuesGroup[1], parsedQuery.length());
+        return s.toString();
+    }
+
+    /**
+     * Equivalent COPY FROM STDIN statement, null unless query is a plain INSERT with one parameter per column,
+     * optional key column is prepended to the column list
+     */
+    String getCopyQuery(String keyColumn) {
+        if (valuesGroup == null || !parsedQuery.substring(valuesGroup[1]).replace(";", "").trim().isEmpty()
+                || !parsedQuery.substring(valuesGroup[0], valuesGroup[1]).replaceAll("\\s", "").matches("\\(\\?(,\\?)*\\)")) {
+            return null;
+        }
+        String prefix = parsedQuery.substring(0, valuesGroup[0]).replaceAll("\\s+", " ").trim();
+        if (!prefix.toUpperCase().startsWith("INSERT INTO ") || !prefix.toUpperCase().endsWith(" VALUES")) {
+            return null;
+        }
+        String table = prefix.substring(12, prefix.length() - 7).trim();
+        if (keyColumn != null) {
+            int columns = table.indexOf('(');
+            if (columns < 0) {
+                return null;
+            }
+            table = table.substring(0, columns + 1) + keyColumn + ", " + table.substring(columns + 1);
+        }
+        return "COPY " + table + " FROM STDIN";
+    }
+
+    private volatile boolean multiRowGeneratedKeys = true;
+
+    /**
+     * False once executeMultiRow has to fall back to executeBatch
+     */
+    boolean isMultiRowSupported() {
+        return valuesGroup != null
+                && (autoGeneratedKeys != Statement.RETURN_GENERATED_KEYS || multiRowGeneratedKeys);
+    }
+
+    /**
+     * Insert items using statements with up to maxRows rows each in a single transaction, see the connection variant
+     */
+    public <T, K> List<K> executeMultiRow(final List<T> batch, final Binding<? super T> binding,
+            final ResultSetProcessor<K> processor, final int maxRows) throws SQLException {
+        return inTransaction(dataSource, new Work<List<K>>() {
+            @Override
+            public List<K> execute(Connection conn) throws SQLException {
+                return executeMultiRow(conn, batch, binding, processor, maxRows);
+            }
+        });
+    }
+
+    /**
+     * Insert items using statements with up to maxRows rows each, falls back to executeBatch if the
+     * query can't be rewritten or the driver does not return a key for every row
+     */
+    public <T, K> List<K> executeMultiRow(Connection conn, List<T> batch, Binding<? super T> binding,
+            ResultSetProcessor<K> processor, int maxRows) throws SQLException {
+        boolean keys = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS;
+        if (valuesGroup == null || keys && !multiRowGeneratedKeys) {
+            return executeBatch(conn, batch, binding, processor);
+        }
+
+        // PostgreSQL protocol limits statement to 32767 parameters
+        maxRows = Math.max(1, Math.min(maxRows, Short.MAX_VALUE / Math.max(rowParameterCount, 1)));
+
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        int stmtRows = 0;
+
+        List<K> result = new ArrayList<K>(batch.size());
+        Binder binder = new Binder();
+
+        try {
+            Savepoint savepoint = keys ? conn.setSavepoint() : null;
+
+            for (int start = 0; start < batch.size(); start += maxRows) {
+                int rows = Math.min(maxRows, batch.size() - start);
+                if (rows != stmtRows) {
+                    closeQuietly(null, stmt, null);
+                    stmt = conn.prepareStatement(getMultiRowQuery(rows), autoGeneratedKeys);
+                    stmtRows = rows;
+                    binder.setStatement(stmt);
+                }
+
+                for (int i = 0; i < rows; i++) {
+                    binder.setRow(i);
+                    binding.bind(binder, batch.get(start + i));
+                }
+                stmt.executeUpdate();
+
+                if (keys) {
+                    rs = stmt.getGeneratedKeys();
+                    while (rs.next()) {
+                        result.add(processor.processNextRow(rs));
+                    }
+                    rs.close();
+                    rs = null;
+                }
+            }
+
+            if (keys && result.size() != batch.size()) {
+                conn.rollback(savepoint);
+                multiRowGeneratedKeys = false;
+            }
+        } finally {
+            closeQuietly(null, stmt, rs);
+        }
+
+        if (keys && !multiRowGeneratedKeys) {
+            return executeBatch(conn, batch, binding, processor);
+        }
+        return result;
+    }
+
     public Params prepare() {
         return new Params();
     }
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import javax.sql.DataSource;
+
+import org.traccar.helper.Log;
+
+/**
+ * Routes statement to a daily or monthly table by replacing partition placeholder in the query
+ *
+ * Partitions are named in UTC, e.g. 20160131 for daily and 201601 for monthly mode. Names sort by time, so only
+ * statements of the newest partitions are kept. Partitions are created ahead by a background thread, a write to
+ * a partition that does not exist yet fails until the thread has created it.
+ */
+public class PartitionedStatement {
+
+    public static final String PLACEHOLDER = "${partition}";
+
+    public static final String MODE_DAILY = "daily";
+    public static final String MODE_MONTHLY = "monthly";
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private static final int KEPT_PARTITIONS = 8;
+    private static final long CHECK_INTERVAL = 60 * 1000;
+
+    private final String query;
+    private final DataSource dataSource;
+    private final int autoGeneratedKeys;
+    private final boolean monthly;
+    private final String createQuery;
+    private final int ahead;
+    private final int kept;
+
+    private final ConcurrentNavigableMap<String, NamedParameterStatement> statements =
+            new ConcurrentSkipListMap<String, NamedParameterStatement>();
+    private final NavigableSet<String> created = new ConcurrentSkipListSet<String>();
+
+    private final Object lock = new Object();
+    private final Set<String> requested = new TreeSet<String>();
+    private boolean wakeup;
+    private boolean running;
+    private Thread thread;
+
+    public static boolean isPartitioned(String query) {
+        return query != null && query.contains(PLACEHOLDER);
+    }
+
+    /**
+     * Create query is optional, it runs once for the target partition and the given number of following ones
+     */
+    public PartitionedStatement(String query, DataSource dataSource, int autoGeneratedKeys,
+            String mode, String createQuery, int ahead) {
+        this.query = query;
+        this.dataSource = dataSource;
+        this.autoGeneratedKeys = autoGeneratedKeys;
+        this.monthly = MODE_MONTHLY.equals(mode);
+        this.createQuery = createQuery;
+        this.ahead = ahead;
+        this.kept = KEPT_PARTITIONS + ahead;
+    }
+
+    private Calendar getCalendar(Date time) {
+        Calendar calendar = Calendar.getInstance(UTC);
+        calendar.setTime(time);
+        return calendar;
+    }
+
+    private String getPartition(Calendar calendar) {
+        if (monthly) {
+            return String.format("%04d%02d",
+                    calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1);
+        } else {
+            return String.format("%04d%02d%02d",
+                    calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+        }
+    }
+
+    public String getPartition(Date time) {
+        return getPartition(getCalendar(time));
+    }
+
+    private void create(String partition) throws SQLException {
+        if (createQuery == null || created.contains(partition)) {
+            return;
+        }
+        Connection conn = dataSource.getConnection();
+        try {
+            Statement stmt = conn.createStatement();
+            try {
+                stmt.execute(createQuery.replace(PLACEHOLDER, partition));
+            } finally {
+                stmt.close();
+            }
+        } finally {
+            conn.close();
+        }
+        created.add(partition);
+        while (created.size() > kept) {
+            created.pollFirst();
+        }
+        Log.info("Position partition " + partition + " is ready");
+    }
+
+    /**
+     * Create partition for the time and following ones so they exist before first write
+     */
+    public void createAhead(Date time) throws SQLException {
+        Calendar calendar = getCalendar(time);
+        for (int i = 0; i <= ahead; i++) {
+            create(getPartition(calendar));
+            calendar.add(monthly ? Calendar.MONTH : Calendar.DAY_OF_MONTH, 1);
+        }
+    }
+
+    /**
+     * Ask the background thread to create a partition the write path has not seen created
+     */
+    private void request(String partition) {
+        synchronized (lock) {
+            if (running && requested.add(partition)) {
+                wakeup = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Statement for the partition covering given time, does not wait for the partition to be created
+     */
+    public NamedParameterStatement get(Date time) throws SQLException {
+        String partition = getPartition(time);
+        NamedParameterStatement statement = statements.get(partition);
+        if (statement == null) {
+            if (createQuery != null && !created.contains(partition)) {
+                request(partition);
+            }
+            statement = new NamedParameterStatement(
+                    query.replace(PLACEHOLDER, partition), dataSource, autoGeneratedKeys);
+            NamedParameterStatement existing = statements.putIfAbsent(partition, statement);
+            if (existing != null) {
+                statement = existing;
+            }
+            while (statements.size() > kept) {
+                statements.pollFirstEntry();
+            }
+        }
+        return statement;
+    }
+
+    /**
+     * Statements currently kept, older partitions get a new statement when written again
+     */
+    public Collection<NamedParameterStatement> getStatements() {
+        return statements.values();
+    }
+
+    /**
+     * Start creating partitions ahead of the current time and on request, needs a create query
+     */
+    public void start() {
+        if (createQuery == null) {
+            return;
+        }
+        synchronized (lock) {
+            running = true;
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "partition-create");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void loop() {
+        while (true) {
+            String[] partitions;
+            synchronized (lock) {
+                if (running && !wakeup) {
+                    try {
+                        lock.wait(CHECK_INTERVAL);
+                    } catch (InterruptedException error) {
+                        Log.warning(error);
+                    }
+                }
+                if (!running) {
+                    break;
+                }
+                wakeup = false;
+                partitions = requested.toArray(new String[requested.size()]);
+                requested.clear();
+            }
+            for (String partition : partitions) {
+                try {
+                    create(partition);
+                } catch (SQLException error) {
+                    Log.warning("Failed to create position partition " + partition, error);
+                    // Retried on the next periodic check
+                    synchronized (lock) {
+                        requested.add(partition);
+                    }
+                }
+            }
+            try {
+                createAhead(new Date());
+            } catch (SQLException error) {
+                Log.warning("Failed to create position partitions ahead", error);
+            }
+        }
+    }
+
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException error) {
+                Log.warning(error);
+            }
+        }
+    }
+
+}
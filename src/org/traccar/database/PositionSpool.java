@@ -0,0 +1,354 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.traccar.helper.Log;
+import org.traccar.model.Position;
+import org.traccar.model.PositionSerializer;
+
+/**
+ * Segmented memory-mapped journal of positions that could not be stored
+ *
+ * Segment layout: magic, read offset, then records of length, CRC32 and serialized position.
+ * A zero length marks the end of written data. Methods synchronize on the spool, so callers can hold its lock
+ * to combine a check with an append.
+ */
+public class PositionSpool {
+
+    private static final int MAGIC = 0x53504f4c;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+    private static final String PREFIX = "spool-";
+    private static final String SUFFIX = ".dat";
+
+    private static class Segment {
+
+        private final long sequence;
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private int readOffset;
+        private int writeOffset;
+
+        Segment(long sequence, File file, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+
+    private final File directory;
+    private final int segmentSize;
+    private final LinkedList<Segment> segments = new LinkedList<Segment>();
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(MAX_RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private long pendingSequence = -1;
+    private int pendingOffset;
+
+    public PositionSpool(File directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize > 0 ? segmentSize : DEFAULT_SEGMENT_SIZE;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create spool directory " + directory);
+        }
+
+        recover();
+    }
+
+    private static long parseSequence(String name) {
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private Segment openSegment(long sequence, boolean create) throws IOException {
+        File file = new File(directory, PREFIX + String.format("%019d", sequence) + SUFFIX);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            int size = create ? segmentSize : (int) Math.max(randomAccessFile.length(), HEADER_SIZE);
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            Segment segment = new Segment(sequence, file, buffer);
+            if (create) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, HEADER_SIZE);
+            }
+            return segment;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Find unread records left by the previous run, a bad checksum ends the segment
+     */
+    private void recover() throws IOException {
+        String[] names = directory.list();
+        if (names == null) {
+            return;
+        }
+        Arrays.sort(names);
+
+        for (String name : names) {
+            if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+                continue;
+            }
+            Segment segment = openSegment(parseSequence(name), false);
+            if (segment.buffer.capacity() < HEADER_SIZE || segment.buffer.getInt(0) != MAGIC) {
+                Log.warning("Skipping invalid spool segment " + name);
+                continue;
+            }
+            segment.readOffset = segment.buffer.getInt(4);
+            segment.writeOffset = segment.readOffset;
+            while (true) {
+                int length = recordLength(segment, segment.writeOffset);
+                if (length <= 0) {
+                    break;
+                }
+                if (!checkRecord(segment, segment.writeOffset, length)) {
+                    Log.warning("Spool segment " + name + " is corrupted at offset " + segment.writeOffset);
+                    break;
+                }
+                segment.writeOffset += RECORD_HEADER_SIZE + length;
+            }
+            segments.add(segment);
+        }
+
+        if (!isEmpty()) {
+            Log.warning("Found unsaved positions in spool " + directory);
+        }
+    }
+
+    private static int recordLength(Segment segment, int offset) {
+        if (offset + RECORD_HEADER_SIZE > segment.buffer.capacity()) {
+            return 0;
+        }
+        int length = segment.buffer.getInt(offset);
+        if (length > MAX_RECORD_SIZE || offset + RECORD_HEADER_SIZE + length > segment.buffer.capacity()) {
+            return 0;
+        }
+        return length;
+    }
+
+    private boolean checkRecord(Segment segment, int offset, int length) {
+        ByteBuffer record = segment.buffer.duplicate();
+        record.position(offset + RECORD_HEADER_SIZE);
+        record.limit(offset + RECORD_HEADER_SIZE + length);
+        record.get(recordBuffer.array(), 0, length);
+        crc.reset();
+        crc.update(recordBuffer.array(), 0, length);
+        return (int) crc.getValue() == segment.buffer.getInt(offset + 4);
+    }
+
+    public synchronized boolean isEmpty() {
+        for (Segment segment : segments) {
+            if (segment.readOffset < segment.writeOffset) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized void append(Position position) throws IOException {
+        recordBuffer.clear();
+        try {
+            PositionSerializer.write(recordBuffer, position);
+        } catch (BufferOverflowException error) {
+            Log.warning("Position is too large for spool, dropping it");
+            return;
+        }
+        int length = recordBuffer.position();
+
+        Segment segment = segments.isEmpty() ? null : segments.getLast();
+        if (segment == null || segment.writeOffset + RECORD_HEADER_SIZE + length + 4 > segment.buffer.capacity()) {
+            if (segment != null) {
+                segment.buffer.force();
+            }
+            segment = openSegment(segment != null ? segment.sequence + 1 : 0, true);
+            segment.readOffset = HEADER_SIZE;
+            segment.writeOffset = HEADER_SIZE;
+            segments.add(segment);
+        }
+
+        crc.reset();
+        crc.update(recordBuffer.array(), 0, length);
+
+        ByteBuffer buffer = segment.buffer;
+        int offset = segment.writeOffset;
+        buffer.position(offset + RECORD_HEADER_SIZE);
+        buffer.put(recordBuffer.array(), 0, length);
+        buffer.putInt(offset + RECORD_HEADER_SIZE + length, 0);
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.putInt(offset, length);
+        segment.writeOffset = offset + RECORD_HEADER_SIZE + length;
+    }
+
+    /**
+     * Read up to count oldest positions without removing them, see commit
+     */
+    public synchronized List<Position> peek(int count) {
+        List<Position> result = new ArrayList<Position>();
+        pendingSequence = -1;
+
+        for (Segment segment : segments) {
+            int offset = segment.readOffset;
+            while (offset < segment.writeOffset && result.size() < count) {
+                int length = segment.buffer.getInt(offset);
+                ByteBuffer record = segment.buffer.duplicate();
+                record.position(offset + RECORD_HEADER_SIZE);
+                record.limit(offset + RECORD_HEADER_SIZE + length);
+                result.add(PositionSerializer.read(record));
+                offset += RECORD_HEADER_SIZE + length;
+            }
+            pendingSequence = segment.sequence;
+            pendingOffset = offset;
+            if (result.size() >= count) {
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Remove positions returned by the last peek and delete consumed segments
+     */
+    public synchronized void commit() {
+        while (!segments.isEmpty() && pendingSequence >= 0) {
+            Segment segment = segments.getFirst();
+            if (segment.sequence == pendingSequence) {
+                segment.readOffset = pendingOffset;
+                segment.buffer.putInt(4, pendingOffset);
+                break;
+            }
+            segment.readOffset = segment.writeOffset;
+            removeFirst();
+        }
+        while (segments.size() > 1 && segments.getFirst().readOffset >= segments.getFirst().writeOffset) {
+            removeFirst();
+        }
+        pendingSequence = -1;
+    }
+
+    private void removeFirst() {
+        Segment segment = segments.removeFirst();
+        if (!segment.file.delete()) {
+            Log.warning("Can't delete spool segment " + segment.file);
+        }
+    }
+
+    public synchronized void force() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+    }
+
+    private final Object replayLock = new Object();
+    private Thread replayThread;
+    private volatile boolean running;
+
+    private boolean await(long delay) {
+        synchronized (replayLock) {
+            if (running) {
+                try {
+                    replayLock.wait(delay);
+                } catch (InterruptedException error) {
+                    return false;
+                }
+            }
+        }
+        return running;
+    }
+
+    /**
+     * Drain spooled positions into their shard once it becomes available, other shards are not affected
+     */
+    public void startReplay(
+            final DataManager dataManager, final int shard, final int batchSize, final long retryDelay) {
+        running = true;
+        replayThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    List<Position> positions = peek(batchSize);
+                    if (positions.isEmpty()) {
+                        commit();
+                        await(retryDelay);
+                        continue;
+                    }
+                    try {
+                        dataManager.replayPositions(shard, positions);
+                    } catch (Exception error) {
+                        Log.warning("Spool replay failed, retrying later", error);
+                        await(retryDelay);
+                        continue;
+                    }
+                    commit();
+                    updateLatest(dataManager, positions);
+                }
+            }
+        }, shard > 0 ? "position-spool-replay-" + shard : "position-spool-replay");
+        replayThread.setDaemon(true);
+        replayThread.start();
+    }
+
+    private static void updateLatest(DataManager dataManager, List<Position> positions) {
+        Map<Long, Position> latest = new HashMap<Long, Position>();
+        for (Position position : positions) {
+            if (position.getDatabaseId() != null) {
+                latest.put(position.getDeviceId(), position);
+            }
+        }
+        for (Position position : latest.values()) {
+            try {
+                dataManager.updateLatestPosition(position, position.getDatabaseId());
+            } catch (Exception error) {
+                Log.warning(error);
+            }
+        }
+    }
+
+    public void stop() {
+        synchronized (replayLock) {
+            running = false;
+            replayLock.notifyAll();
+        }
+        if (replayThread != null) {
+            try {
+                replayThread.join();
+            } catch (InterruptedException error) {
+                Log.warning(error);
+            }
+        }
+        force();
+    }
+
+}
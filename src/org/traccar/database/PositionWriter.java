@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.traccar.helper.Log;
+import org.traccar.model.Position;
+
+/**
+ * Queues positions and stores them in batches on dedicated threads
+ *
+ * Every thread drains its own queue and a device always maps to the same one, so positions of a device are stored
+ * and reported to callbacks in the order they were written.
+ */
+public class PositionWriter {
+
+    public interface Callback {
+        void onStored(Position position, Long id);
+    }
+
+    private static class Entry {
+
+        private final Position position;
+        private final Callback callback;
+
+        Entry(Position position, Callback callback) {
+            this.position = position;
+            this.callback = callback;
+        }
+    }
+
+    private static final int DEFAULT_THREADS = 2;
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final long DEFAULT_LINGER_TIME = 100;
+
+    private final DataManager dataManager;
+    private final List<BlockingQueue<Entry>> queues;
+    private final int threadsPerShard;
+    private final int batchSize;
+    private final long lingerTime;
+    private final Thread[] threads;
+
+    private volatile boolean running = true;
+
+    public PositionWriter(DataManager dataManager, Properties properties) {
+        this.dataManager = dataManager;
+
+        String value = properties.getProperty("database.writer.threads");
+        threadsPerShard = Math.max(value != null ? Integer.valueOf(value) : DEFAULT_THREADS, 1);
+        int shardCount = Math.max(dataManager.getShardCount(), 1);
+
+        value = properties.getProperty("database.writer.queueSize");
+        int queueSize = value != null ? Integer.valueOf(value) : DEFAULT_QUEUE_SIZE;
+        queues = new ArrayList<BlockingQueue<Entry>>(shardCount * threadsPerShard);
+        for (int i = 0; i < shardCount * threadsPerShard; i++) {
+            queues.add(new ArrayBlockingQueue<Entry>(queueSize));
+        }
+
+        value = properties.getProperty("database.writer.batchSize");
+        batchSize = value != null ? Integer.valueOf(value) : DEFAULT_BATCH_SIZE;
+
+        value = properties.getProperty("database.writer.lingerTime");
+        lingerTime = value != null ? Long.valueOf(value) : DEFAULT_LINGER_TIME;
+
+        threads = new Thread[queues.size()];
+        for (int i = 0; i < threads.length; i++) {
+            final BlockingQueue<Entry> queue = queues.get(i);
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    drain(queue);
+                }
+            }, shardCount > 1
+                    ? "position-writer-" + i / threadsPerShard + "-" + i % threadsPerShard
+                    : "position-writer-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+    }
+
+    /**
+     * Queue of the device, within its shard devices are spread over threads by a hash independent of shard routing
+     */
+    private BlockingQueue<Entry> getQueue(Long deviceId) {
+        int shard = dataManager.getShardIndex(deviceId);
+        int thread = 0;
+        if (threadsPerShard > 1 && deviceId != null) {
+            thread = (int) ((deviceId * 0x9e3779b97f4a7c15L >>> 33) % threadsPerShard);
+        }
+        return queues.get((shard * threadsPerShard + thread) % queues.size());
+    }
+
+    /**
+     * Queue position, blocks while the buffer is full unless spool is configured
+     */
+    public void write(Position position, Callback callback) throws InterruptedException {
+        Entry entry = new Entry(position, callback);
+        BlockingQueue<Entry> queue = getQueue(position.getDeviceId());
+        PositionSpool spool = dataManager.getPositionSpool(position.getDeviceId());
+        if (spool != null) {
+            // Spool can't change between the check and the hand-off, so spooled positions are never overtaken
+            synchronized (spool) {
+                if (spool.isEmpty() && queue.offer(entry)) {
+                    return;
+                }
+                // Keep order behind spooled positions, notifications are not sent for them
+                if (dataManager.spoolPosition(position)) {
+                    return;
+                }
+            }
+        } else if (queue.offer(entry)) {
+            return;
+        }
+        queue.put(entry);
+    }
+
+    private void drain(BlockingQueue<Entry> queue) {
+        List<Entry> batch = new ArrayList<Entry>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.currentTimeMillis() + lingerTime;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Entry next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+
+                store(queue, batch);
+            } catch (InterruptedException error) {
+                Log.warning(error);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void store(BlockingQueue<Entry> queue, List<Entry> batch) {
+        List<Position> positions = new ArrayList<Position>(batch.size());
+        for (Entry entry : batch) {
+            positions.add(entry.position);
+        }
+
+        try {
+            dataManager.addPositions(positions);
+        } catch (Exception error) {
+            Log.warning("Failed to store " + positions.size() + " positions", error);
+            spool(queue, positions);
+            return;
+        }
+
+        for (Entry entry : batch) {
+            if (entry.callback != null) {
+                try {
+                    entry.callback.onStored(entry.position, entry.position.getDatabaseId());
+                } catch (Exception error) {
+                    Log.warning(error);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue belongs to one shard, its positions are moved under the spool lock so new writes stay behind them
+     */
+    private void spool(BlockingQueue<Entry> queue, List<Position> positions) {
+        PositionSpool spool = dataManager.getPositionSpool(positions.get(0).getDeviceId());
+        if (spool == null) {
+            return;
+        }
+        synchronized (spool) {
+            for (Position position : positions) {
+                if (!dataManager.spoolPosition(position)) {
+                    return;
+                }
+            }
+
+            // Shard is likely down, move waiting positions to the spool as well
+            List<Entry> pending = new ArrayList<Entry>();
+            queue.drainTo(pending);
+            for (Entry entry : pending) {
+                dataManager.spoolPosition(entry.position);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting new batches and wait for the queue to drain
+     */
+    public void stop() {
+        running = false;
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException error) {
+                Log.warning(error);
+            }
+        }
+    }
+
+}
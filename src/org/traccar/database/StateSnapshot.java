@@ -0,0 +1,242 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.traccar.helper.Log;
+import org.traccar.model.Device;
+
+/**
+ * Periodic checkpoint of the device registry and last known states, loaded on startup for a warm restart
+ *
+ * File layout: magic, version, registry time, devices, states and a CRC32 of everything before it.
+ */
+public class StateSnapshot {
+
+    private static final int MAGIC = 0x534e4150;
+    private static final int VERSION = 1;
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private final File file;
+    private final long interval;
+    private final DeviceRegistry deviceRegistry;
+    private final DeviceStateStore deviceStateStore;
+
+    private final Object lock = new Object();
+    private boolean running;
+    private Thread thread;
+
+    public StateSnapshot(File file, long interval, DeviceRegistry deviceRegistry, DeviceStateStore deviceStateStore) {
+        this.file = file;
+        this.interval = interval;
+        this.deviceRegistry = deviceRegistry;
+        this.deviceStateStore = deviceStateStore;
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(CHARSET);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    static String readString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, CHARSET);
+    }
+
+    /**
+     * Write to a temporary file and move it over the previous snapshot, a crash never leaves a partial file
+     */
+    public void save() throws IOException {
+        List<Device> devices = new ArrayList<Device>();
+        long time = deviceRegistry.getDevices(devices);
+
+        File temporary = new File(file.getPath() + ".tmp");
+        CRC32 crc = new CRC32();
+        DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temporary), 64 * 1024), crc));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(time);
+            out.writeInt(devices.size());
+            for (Device device : devices) {
+                out.writeLong(device.getId());
+                writeString(out, device.getImei());
+                writeString(out, device.getUniqueId());
+                writeString(out, device.getSnsTopicName());
+                writeString(out, device.getExternalId());
+                writeString(out, device.getResId());
+            }
+            deviceStateStore.write(out);
+            out.writeInt((int) crc.getValue());
+        } finally {
+            out.close();
+        }
+
+        Files.move(temporary.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int checksum(ByteBuffer buf, int length) {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[64 * 1024];
+        ByteBuffer content = buf.duplicate();
+        content.position(0);
+        while (content.position() < length) {
+            int size = Math.min(chunk.length, length - content.position());
+            content.get(chunk, 0, size);
+            crc.update(chunk, 0, size);
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Map the snapshot and restore its content, returns false if there is no usable snapshot
+     */
+    public boolean load() {
+        if (!file.isFile()) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            MappedByteBuffer buf;
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                buf = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+            } finally {
+                randomAccessFile.close();
+            }
+
+            if (buf.capacity() < 12 || buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+                Log.warning("Ignoring invalid state snapshot " + file);
+                return false;
+            }
+            if (checksum(buf, buf.capacity() - 4) != buf.getInt(buf.capacity() - 4)) {
+                Log.warning("Ignoring corrupted state snapshot " + file);
+                return false;
+            }
+
+            buf.position(8);
+            long time = buf.getLong();
+            int count = buf.getInt();
+            DeviceIndex.Builder builder = new DeviceIndex.Builder();
+            for (int i = 0; i < count; i++) {
+                Device device = new Device();
+                device.setId(buf.getLong());
+                device.setImei(readString(buf));
+                device.setUniqueId(readString(buf));
+                device.setSnsTopicName(readString(buf));
+                device.setExternalId(readString(buf));
+                device.setResId(readString(buf));
+                builder.add(device);
+            }
+            if (time != 0) {
+                deviceRegistry.restore(builder.build(), time);
+            }
+            int states = deviceStateStore.read(buf);
+
+            Log.info("Restored " + count + " devices and " + states + " device states in "
+                    + (System.currentTimeMillis() - start) + " ms");
+            return true;
+        } catch (IOException error) {
+            Log.warning("Failed to load state snapshot", error);
+        } catch (BufferUnderflowException error) {
+            Log.warning("Ignoring truncated state snapshot " + file);
+        }
+        return false;
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    synchronized (lock) {
+                        if (running) {
+                            try {
+                                lock.wait(interval);
+                            } catch (InterruptedException error) {
+                                Log.warning(error);
+                            }
+                        }
+                        if (!running) {
+                            break;
+                        }
+                    }
+                    try {
+                        save();
+                    } catch (IOException error) {
+                        Log.warning("Failed to save state snapshot", error);
+                    }
+                }
+            }
+        }, "state-snapshot");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop background thread and write a final snapshot
+     */
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException error) {
+                Log.warning(error);
+            }
+        }
+        try {
+            save();
+        } catch (IOException error) {
+            Log.warning("Failed to save state snapshot", error);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+
+import org.traccar.helper.Log;
+
+/**
+ * One invalidation message per datagram
+ *
+ * Binds to the loopback interface unless another address is configured.
+ */
+public class UdpInvalidationTransport implements DeviceInvalidation.Transport {
+
+    private static final int MAX_MESSAGE_SIZE = 65507;
+
+    private final String address;
+    private final int port;
+    private DatagramSocket socket;
+    private Thread thread;
+
+    public UdpInvalidationTransport(String address, int port) {
+        this.address = address;
+        this.port = port;
+    }
+
+    public int getLocalPort() {
+        return socket.getLocalPort();
+    }
+
+    @Override
+    public void start(final DeviceInvalidation invalidation) throws SocketException {
+        socket = new DatagramSocket(new InetSocketAddress(address != null ? address : "127.0.0.1", port));
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                DatagramPacket packet = new DatagramPacket(new byte[MAX_MESSAGE_SIZE], MAX_MESSAGE_SIZE);
+                while (!socket.isClosed()) {
+                    try {
+                        socket.receive(packet);
+                        invalidation.handleMessage(new String(
+                                packet.getData(), packet.getOffset(), packet.getLength(), Charset.forName("UTF-8")));
+                    } catch (Exception error) {
+                        if (!socket.isClosed()) {
+                            Log.warning(error);
+                        }
+                    }
+                }
+            }
+        }, "invalidation-udp");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        socket.close();
+        try {
+            thread.join();
+        } catch (InterruptedException error) {
+            Log.warning(error);
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded set of recently rejected identifiers, each entry expires after a fixed time
+ */
+public class UnknownDeviceCache {
+
+    private final long timeout;
+    private final Map<String, Long> entries;
+
+    public UnknownDeviceCache(final int maxSize, long timeout) {
+        this.timeout = timeout;
+        entries = new LinkedHashMap<String, Long>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized boolean contains(String uniqueId, long time) {
+        Long expiration = entries.get(uniqueId);
+        if (expiration == null) {
+            return false;
+        }
+        if (expiration <= time) {
+            entries.remove(uniqueId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Entries are kept in insertion order, so the eldest one is also the first to expire
+     */
+    public synchronized void add(String uniqueId, long time) {
+        entries.remove(uniqueId);
+        entries.put(uniqueId, time + timeout);
+    }
+
+    public synchronized void remove(String uniqueId) {
+        entries.remove(uniqueId);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.helper;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Thread safe date format for patterns with second resolution
+ *
+ * Every thread has its own formatter and remembers the last formatted second, so positions reported within
+ * the same second are formatted once.
+ */
+public class CachedDateFormat {
+
+    private static final class Cache {
+
+        private final DateFormat format;
+        private long second = Long.MIN_VALUE;
+        private String text;
+
+        private Cache(DateFormat format) {
+            this.format = format;
+        }
+    }
+
+    private final ThreadLocal<Cache> cache;
+
+    public CachedDateFormat(final String pattern) {
+        cache = new ThreadLocal<Cache>() {
+            @Override
+            protected Cache initialValue() {
+                return new Cache(new SimpleDateFormat(pattern));
+            }
+        };
+    }
+
+    public String format(Date date) {
+        Cache current = cache.get();
+        long time = date.getTime();
+        long second = time >= 0 ? time / 1000 : (time - 999) / 1000;
+        if (second != current.second) {
+            current.text = current.format.format(new Date(second * 1000));
+            current.second = second;
+        }
+        return current.text;
+    }
+
+}
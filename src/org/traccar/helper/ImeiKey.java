@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.helper;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+/**
+ * Numeric device identifier packed into a long, the value in the low bits and the digit count in the high bits
+ *
+ * Keeping the length makes identifiers with leading zeros distinct. Keys are built straight from buffers, so
+ * binary decoders can look devices up without creating strings.
+ */
+public final class ImeiKey {
+
+    public static final long INVALID = -1;
+    public static final int MAX_LENGTH = 17;
+
+    private static final int LENGTH_SHIFT = 57;
+    private static final long VALUE_MASK = (1L << LENGTH_SHIFT) - 1;
+
+    private ImeiKey() {
+    }
+
+    private static long create(long value, int length) {
+        return value | ((long) length << LENGTH_SHIFT);
+    }
+
+    public static long fromString(String value) {
+        int length = value.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return INVALID;
+        }
+        long result = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return create(result, length);
+    }
+
+    /**
+     * Decimal digits written as ASCII characters
+     */
+    public static long fromAscii(ChannelBuffer buf, int index, int length) {
+        if (length == 0 || length > MAX_LENGTH) {
+            return INVALID;
+        }
+        long result = 0;
+        for (int i = index; i < index + length; i++) {
+            int c = buf.getUnsignedByte(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return create(result, length);
+    }
+
+    /**
+     * Two decimal digits per byte, the first skipDigits nibbles are ignored
+     */
+    public static long fromBcd(ChannelBuffer buf, int index, int length, int skipDigits) {
+        int digits = length * 2 - skipDigits;
+        if (digits <= 0 || digits > MAX_LENGTH) {
+            return INVALID;
+        }
+        long result = 0;
+        for (int i = skipDigits; i < length * 2; i++) {
+            int b = buf.getUnsignedByte(index + i / 2);
+            int digit = i % 2 == 0 ? b >> 4 : b & 0x0f;
+            if (digit > 9) {
+                return INVALID;
+            }
+            result = result * 10 + digit;
+        }
+        return create(result, digits);
+    }
+
+    /**
+     * Binary number, padded with leading zeros up to minLength digits like String.format("%0nd")
+     */
+    public static long fromNumber(long value, int minLength) {
+        if (value < 0) {
+            return INVALID;
+        }
+        int length = 1;
+        for (long i = value / 10; i > 0; i /= 10) {
+            length += 1;
+        }
+        length = Math.max(length, minLength);
+        if (length > MAX_LENGTH) {
+            return INVALID;
+        }
+        return create(value, length);
+    }
+
+    /**
+     * Digits of a BCD field as hex characters, the identifier string when fromBcd finds a non decimal digit
+     */
+    public static String bcdString(ChannelBuffer buf, int index, int length, int skipDigits) {
+        StringBuilder result = new StringBuilder(length * 2 - skipDigits);
+        for (int i = skipDigits; i < length * 2; i++) {
+            int b = buf.getUnsignedByte(index + i / 2);
+            result.append(Character.forDigit(i % 2 == 0 ? b >> 4 : b & 0x0f, 16));
+        }
+        return result.toString();
+    }
+
+    public static String toString(long key) {
+        String value = String.valueOf(key & VALUE_MASK);
+        int length = (int) (key >>> LENGTH_SHIFT);
+        if (value.length() >= length) {
+            return value;
+        }
+        StringBuilder result = new StringBuilder(length);
+        for (int i = value.length(); i < length; i++) {
+            result.append('0');
+        }
+        return result.append(value).toString();
+    }
+
+}
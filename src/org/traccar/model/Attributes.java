@@ -0,0 +1,338 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Ordered position attributes, numbers and booleans are kept unboxed
+ */
+public class Attributes {
+
+    private static final byte TYPE_LONG = 1;
+    private static final byte TYPE_DOUBLE = 2;
+    private static final byte TYPE_FLOAT = 3;
+    private static final byte TYPE_BOOLEAN = 4;
+    private static final byte TYPE_OBJECT = 5;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private String[] keys = new String[DEFAULT_CAPACITY];
+    private byte[] types = new byte[DEFAULT_CAPACITY];
+    private long[] values = new long[DEFAULT_CAPACITY];
+    private Object[] objects;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    private int indexOf(String key) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int slot(String key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            if (size == keys.length) {
+                int capacity = size * 2;
+                String[] newKeys = new String[capacity];
+                byte[] newTypes = new byte[capacity];
+                long[] newValues = new long[capacity];
+                System.arraycopy(keys, 0, newKeys, 0, size);
+                System.arraycopy(types, 0, newTypes, 0, size);
+                System.arraycopy(values, 0, newValues, 0, size);
+                keys = newKeys;
+                types = newTypes;
+                values = newValues;
+                if (objects != null) {
+                    Object[] newObjects = new Object[capacity];
+                    System.arraycopy(objects, 0, newObjects, 0, size);
+                    objects = newObjects;
+                }
+            }
+            index = size++;
+            keys[index] = key;
+        }
+        if (objects != null) {
+            objects[index] = null;
+        }
+        return index;
+    }
+
+    public void set(String key, long value) {
+        int index = slot(key);
+        types[index] = TYPE_LONG;
+        values[index] = value;
+    }
+
+    public void set(String key, double value) {
+        int index = slot(key);
+        types[index] = TYPE_DOUBLE;
+        values[index] = Double.doubleToRawLongBits(value);
+    }
+
+    public void set(String key, float value) {
+        int index = slot(key);
+        types[index] = TYPE_FLOAT;
+        values[index] = Float.floatToRawIntBits(value);
+    }
+
+    public void set(String key, boolean value) {
+        int index = slot(key);
+        types[index] = TYPE_BOOLEAN;
+        values[index] = value ? 1 : 0;
+    }
+
+    public void set(String key, Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            set(key, ((Number) value).longValue());
+        } else if (value instanceof Double) {
+            set(key, ((Double) value).doubleValue());
+        } else if (value instanceof Float) {
+            set(key, ((Float) value).floatValue());
+        } else if (value instanceof Boolean) {
+            set(key, ((Boolean) value).booleanValue());
+        } else {
+            int index = slot(key);
+            if (objects == null) {
+                objects = new Object[keys.length];
+            }
+            types[index] = TYPE_OBJECT;
+            objects[index] = value;
+        }
+    }
+
+    public boolean contains(String key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Check whether value exists and can be read as a number
+     */
+    public boolean hasNumber(String key) {
+        int index = indexOf(key);
+        if (index < 0 || types[index] == TYPE_BOOLEAN) {
+            return false;
+        } else if (types[index] == TYPE_OBJECT) {
+            try {
+                Double.parseDouble(String.valueOf(objects[index]));
+            } catch (NumberFormatException error) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getLong(String key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return 0;
+        }
+        switch (types[index]) {
+            case TYPE_LONG:
+            case TYPE_BOOLEAN:
+                return values[index];
+            case TYPE_OBJECT:
+                String text = String.valueOf(objects[index]);
+                try {
+                    return Long.parseLong(text);
+                } catch (NumberFormatException error) {
+                    return (long) Double.parseDouble(text);
+                }
+            default:
+                return (long) getDouble(key);
+        }
+    }
+
+    public double getDouble(String key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return 0;
+        }
+        switch (types[index]) {
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(values[index]);
+            case TYPE_FLOAT:
+                return Float.intBitsToFloat((int) values[index]);
+            case TYPE_OBJECT:
+                return Double.parseDouble(String.valueOf(objects[index]));
+            default:
+                return values[index];
+        }
+    }
+
+    public boolean getBoolean(String key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return false;
+        } else if (types[index] == TYPE_OBJECT) {
+            return Boolean.parseBoolean(String.valueOf(objects[index]));
+        }
+        return values[index] != 0;
+    }
+
+    public Object getObject(String key) {
+        int index = indexOf(key);
+        return index >= 0 ? value(index) : null;
+    }
+
+    private Object value(int index) {
+        switch (types[index]) {
+            case TYPE_LONG:
+                return values[index];
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(values[index]);
+            case TYPE_FLOAT:
+                return Float.intBitsToFloat((int) values[index]);
+            case TYPE_BOOLEAN:
+                return values[index] != 0;
+            default:
+                return objects[index];
+        }
+    }
+
+    private void appendValue(StringBuilder s, int index) {
+        switch (types[index]) {
+            case TYPE_LONG:
+                s.append(values[index]);
+                break;
+            case TYPE_DOUBLE:
+                s.append(Double.longBitsToDouble(values[index]));
+                break;
+            case TYPE_FLOAT:
+                s.append(Float.intBitsToFloat((int) values[index]));
+                break;
+            case TYPE_BOOLEAN:
+                s.append(values[index] != 0);
+                break;
+            default:
+                s.append(objects[index]);
+                break;
+        }
+    }
+
+    public void appendXml(StringBuilder s, String rootNode) {
+        s.append("<").append(rootNode).append(">");
+        for (int i = 0; i < size; i++) {
+            s.append("<").append(keys[i]).append(">");
+            appendValue(s, i);
+            s.append("</").append(keys[i]).append(">");
+        }
+        s.append("</").append(rootNode).append(">");
+    }
+
+    private static void appendJsonString(StringBuilder s, String value) {
+        s.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    s.append("\\\"");
+                    break;
+                case '\\':
+                    s.append("\\\\");
+                    break;
+                case '\n':
+                    s.append("\\n");
+                    break;
+                case '\r':
+                    s.append("\\r");
+                    break;
+                case '\t':
+                    s.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        s.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        s.append(c);
+                    }
+                    break;
+            }
+        }
+        s.append('"');
+    }
+
+    public void appendJson(StringBuilder s) {
+        s.append('{');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                s.append(',');
+            }
+            appendJsonString(s, keys[i]);
+            s.append(':');
+            if (types[i] == TYPE_OBJECT) {
+                appendJsonString(s, String.valueOf(objects[i]));
+            } else if (types[i] == TYPE_DOUBLE && isNotFinite(Double.longBitsToDouble(values[i]))) {
+                s.append("null");
+            } else if (types[i] == TYPE_FLOAT && isNotFinite(Float.intBitsToFloat((int) values[i]))) {
+                s.append("null");
+            } else {
+                appendValue(s, i);
+            }
+        }
+        s.append('}');
+    }
+
+    private static boolean isNotFinite(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value);
+    }
+
+    void write(ByteBuffer buf) {
+        buf.putShort((short) size);
+        for (int i = 0; i < size; i++) {
+            PositionSerializer.writeString(buf, keys[i]);
+            buf.put(types[i]);
+            if (types[i] == TYPE_OBJECT) {
+                PositionSerializer.writeString(buf, objects[i] != null ? objects[i].toString() : null);
+            } else {
+                buf.putLong(values[i]);
+            }
+        }
+    }
+
+    static Attributes read(ByteBuffer buf) {
+        Attributes attributes = new Attributes();
+        int count = buf.getShort();
+        for (int i = 0; i < count; i++) {
+            int index = attributes.slot(PositionSerializer.readString(buf));
+            byte type = buf.get();
+            attributes.types[index] = type;
+            if (type == TYPE_OBJECT) {
+                if (attributes.objects == null) {
+                    attributes.objects = new Object[attributes.keys.length];
+                }
+                attributes.objects[index] = PositionSerializer.readString(buf);
+            } else {
+                attributes.values[index] = buf.getLong();
+            }
+        }
+        return attributes;
+    }
+
+    public String toJson() {
+        StringBuilder s = new StringBuilder(32 * size + 2);
+        appendJson(s);
+        return s.toString();
+    }
+
+}
@@ -64,16 +64,41 @@ public class Data {
     }
 
     /**
-     * Extended information in XML format
+     * Extended information in XML format, formatted on first request
      */
     private String extendedInfo;
 
     public String getExtendedInfo() {
+        if (extendedInfo == null && attributes != null) {
+            extendedInfo = ExtendedInfoFormatter.format(attributes);
+        }
         return extendedInfo;
     }
 
     public void setExtendedInfo(String extendedInfo) {
         this.extendedInfo = extendedInfo;
+        this.attributes = null;
+    }
+
+    /**
+     * Typed extended information, parsed on first request if only the XML string is known
+     */
+    private Attributes attributes;
+
+    public Attributes getAttributes() {
+        if (attributes == null && extendedInfo != null) {
+            attributes = ExtendedInfoFormatter.parse(extendedInfo);
+        }
+        return attributes;
+    }
+
+    public void setAttributes(Attributes attributes) {
+        this.extendedInfo = null;
+        this.attributes = attributes;
+    }
+
+    public void setExtendedInfo(ExtendedInfoFormatter extendedInfo) {
+        setAttributes(extendedInfo != null ? extendedInfo.getAttributes() : null);
     }
 
 }
@@ -15,9 +15,6 @@
  */
 package org.traccar.model;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
-
 /**
  * Format extended tracker status
  */
@@ -25,11 +22,15 @@ public class ExtendedInfoFormatter {
 
     private static final String rootNode = "info";
     
-    private final Map<String, Object> data;
+    private final Attributes data;
     
     public ExtendedInfoFormatter(String protocol) {
-        data = new LinkedHashMap<String, Object>();
-        data.put("protocol", protocol);
+        data = new Attributes();
+        data.set("protocol", protocol);
+    }
+
+    public Attributes getAttributes() {
+        return data;
     }
 
     public void set(String key, Object value) {
@@ -39,26 +40,96 @@ public class ExtendedInfoFormatter {
                 return;
             }
             
-            data.put(key, value);
+            data.set(key, value);
         }
     }
 
-    @Override
-    public String toString() {
+    public void set(String key, int value) {
+        data.set(key, value);
+    }
+
+    public void set(String key, long value) {
+        data.set(key, value);
+    }
+
+    public void set(String key, float value) {
+        data.set(key, value);
+    }
+
+    public void set(String key, double value) {
+        data.set(key, value);
+    }
+
+    public void set(String key, boolean value) {
+        data.set(key, value);
+    }
+
+    public static String format(Attributes attributes) {
         StringBuilder result = new StringBuilder();
-        
-        result.append("<").append(rootNode).append(">");
-        
-        for (Map.Entry<String, Object> entry : data.entrySet()) {
-         
-            result.append("<").append(entry.getKey()).append(">");
-            result.append(entry.getValue());
-            result.append("</").append(entry.getKey()).append(">");
+        attributes.appendXml(result, rootNode);
+        return result.toString();
+    }
+
+    /**
+     * Numbers and booleans are typed only if formatting gives back the same text, so format(parse(s)) equals s
+     */
+    private static Object parseValue(String text) {
+        if (text.equals("true") || text.equals("false")) {
+            return Boolean.valueOf(text);
+        }
+        if (text.isEmpty() || !(Character.isDigit(text.charAt(0)) || text.charAt(0) == '-')) {
+            return text;
+        }
+        try {
+            long value = Long.parseLong(text);
+            if (String.valueOf(value).equals(text)) {
+                return value;
+            }
+        } catch (NumberFormatException error) {
+            try {
+                double value = Double.parseDouble(text);
+                if (String.valueOf(value).equals(text)) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                return text;
+            }
         }
+        return text;
+    }
 
-        result.append("</").append(rootNode).append(">");
-        
-        return result.toString();
+    /**
+     * Attributes of a string produced by format, null if the string has another structure
+     */
+    public static Attributes parse(String extendedInfo) {
+        String start = "<" + rootNode + ">";
+        String end = "</" + rootNode + ">";
+        if (!extendedInfo.startsWith(start) || !extendedInfo.endsWith(end)) {
+            return null;
+        }
+        Attributes attributes = new Attributes();
+        int index = start.length();
+        int limit = extendedInfo.length() - end.length();
+        while (index < limit) {
+            int keyEnd = extendedInfo.indexOf('>', index);
+            if (extendedInfo.charAt(index) != '<' || keyEnd < 0 || keyEnd >= limit) {
+                return null;
+            }
+            String key = extendedInfo.substring(index + 1, keyEnd);
+            String closing = "</" + key + ">";
+            int valueEnd = extendedInfo.indexOf(closing, keyEnd + 1);
+            if (key.isEmpty() || valueEnd < 0 || valueEnd + closing.length() > limit) {
+                return null;
+            }
+            attributes.set(key, parseValue(extendedInfo.substring(keyEnd + 1, valueEnd)));
+            index = valueEnd + closing.length();
+        }
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return format(data);
     }
 
 }
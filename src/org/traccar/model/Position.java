@@ -91,6 +91,14 @@ public class Position extends Data {
             startTime = this.time;
     }
 
+    /**
+     * Restore previously accepted times, skipping device clock validation
+     */
+    public void restoreTime(Date time, Date startTime) {
+        this.time = time;
+        this.startTime = startTime;
+    }
+
     /**
      * Validity flag
      */
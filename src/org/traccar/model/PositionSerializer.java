@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Date;
+
+/**
+ * Compact binary position format
+ */
+public class PositionSerializer {
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private static final int FLAG_DEVICE_ID = 1;
+    private static final int FLAG_VALID = 1 << 1;
+    private static final int FLAG_VALID_VALUE = 1 << 2;
+    private static final int FLAG_LATITUDE = 1 << 3;
+    private static final int FLAG_LONGITUDE = 1 << 4;
+    private static final int FLAG_ALTITUDE = 1 << 5;
+    private static final int FLAG_SPEED = 1 << 6;
+    private static final int FLAG_COURSE = 1 << 7;
+    private static final int FLAG_DATABASE_ID = 1 << 8;
+    private static final int FLAG_ADDRESS = 1 << 9;
+    private static final int FLAG_ATTRIBUTES = 1 << 10;
+    private static final int FLAG_EXTENDED_INFO = 1 << 11;
+    private static final int FLAG_TIME = 1 << 12;
+    private static final int FLAG_START_TIME = 1 << 13;
+
+    static void writeString(ByteBuffer buf, String value) {
+        if (value == null) {
+            buf.putInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(CHARSET);
+            buf.putInt(bytes.length);
+            buf.put(bytes);
+        }
+    }
+
+    static String readString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, CHARSET);
+    }
+
+    private static int flag(Object value, int flag) {
+        return value != null ? flag : 0;
+    }
+
+    /**
+     * Write position, throws BufferOverflowException if buffer is too small
+     */
+    public static void write(ByteBuffer buf, Position position) {
+        int flags = flag(position.getDeviceId(), FLAG_DEVICE_ID)
+                | flag(position.getValid(), FLAG_VALID)
+                | (Boolean.TRUE.equals(position.getValid()) ? FLAG_VALID_VALUE : 0)
+                | flag(position.getLatitude(), FLAG_LATITUDE)
+                | flag(position.getLongitude(), FLAG_LONGITUDE)
+                | flag(position.getAltitude(), FLAG_ALTITUDE)
+                | flag(position.getSpeed(), FLAG_SPEED)
+                | flag(position.getCourse(), FLAG_COURSE)
+                | flag(position.getDatabaseId(), FLAG_DATABASE_ID)
+                | flag(position.getAddress(), FLAG_ADDRESS)
+                | flag(position.getTime(), FLAG_TIME)
+                | flag(position.getStartTime(), FLAG_START_TIME);
+        if (position.getAttributes() != null) {
+            flags |= FLAG_ATTRIBUTES;
+        } else if (position.getExtendedInfo() != null) {
+            flags |= FLAG_EXTENDED_INFO;
+        }
+
+        buf.putShort((short) flags);
+        if ((flags & FLAG_DEVICE_ID) != 0) {
+            buf.putLong(position.getDeviceId());
+        }
+        if ((flags & FLAG_TIME) != 0) {
+            buf.putLong(position.getTime().getTime());
+        }
+        if ((flags & FLAG_START_TIME) != 0) {
+            buf.putLong(position.getStartTime().getTime());
+        }
+        if ((flags & FLAG_LATITUDE) != 0) {
+            buf.putDouble(position.getLatitude());
+        }
+        if ((flags & FLAG_LONGITUDE) != 0) {
+            buf.putDouble(position.getLongitude());
+        }
+        if ((flags & FLAG_ALTITUDE) != 0) {
+            buf.putDouble(position.getAltitude());
+        }
+        if ((flags & FLAG_SPEED) != 0) {
+            buf.putDouble(position.getSpeed());
+        }
+        if ((flags & FLAG_COURSE) != 0) {
+            buf.putDouble(position.getCourse());
+        }
+        if ((flags & FLAG_DATABASE_ID) != 0) {
+            buf.putLong(position.getDatabaseId());
+        }
+        if ((flags & FLAG_ADDRESS) != 0) {
+            writeString(buf, position.getAddress());
+        }
+        if ((flags & FLAG_ATTRIBUTES) != 0) {
+            position.getAttributes().write(buf);
+        } else if ((flags & FLAG_EXTENDED_INFO) != 0) {
+            writeString(buf, position.getExtendedInfo());
+        }
+    }
+
+    public static Position read(ByteBuffer buf) {
+        Position position = new Position();
+        int flags = buf.getShort() & 0xffff;
+        if ((flags & FLAG_DEVICE_ID) != 0) {
+            position.setDeviceId(buf.getLong());
+        }
+        Date time = (flags & FLAG_TIME) != 0 ? new Date(buf.getLong()) : null;
+        Date startTime = (flags & FLAG_START_TIME) != 0 ? new Date(buf.getLong()) : null;
+        position.restoreTime(time, startTime);
+        if ((flags & FLAG_VALID) != 0) {
+            position.setValid((flags & FLAG_VALID_VALUE) != 0);
+        }
+        if ((flags & FLAG_LATITUDE) != 0) {
+            position.setLatitude(buf.getDouble());
+        }
+        if ((flags & FLAG_LONGITUDE) != 0) {
+            position.setLongitude(buf.getDouble());
+        }
+        if ((flags & FLAG_ALTITUDE) != 0) {
+            position.setAltitude(buf.getDouble());
+        }
+        if ((flags & FLAG_SPEED) != 0) {
+            position.setSpeed(buf.getDouble());
+        }
+        if ((flags & FLAG_COURSE) != 0) {
+            position.setCourse(buf.getDouble());
+        }
+        if ((flags & FLAG_DATABASE_ID) != 0) {
+            position.setDatabaseId(buf.getLong());
+        }
+        if ((flags & FLAG_ADDRESS) != 0) {
+            position.setAddress(readString(buf));
+        }
+        if ((flags & FLAG_ATTRIBUTES) != 0) {
+            position.setAttributes(Attributes.read(buf));
+        } else if ((flags & FLAG_EXTENDED_INFO) != 0) {
+            position.setExtendedInfo(readString(buf));
+        }
+        return position;
+    }
+
+}
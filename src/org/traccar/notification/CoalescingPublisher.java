@@ -0,0 +1,295 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.notification;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.traccar.helper.Log;
+
+/**
+ * Keeps only the latest message of every device and publishes them once per interval
+ *
+ * Each tick sends one message to the rider channel of every updated device and, when batching is enabled,
+ * a single message with all updated riders to each outlet channel. Messages of a tick are published by a
+ * fixed number of threads and the next tick waits for them, so requests in flight are bounded and devices
+ * keep coalescing while the provider is slow.
+ */
+public class CoalescingPublisher {
+
+    public interface Publisher {
+        void publish(String channel, JsonObject packet) throws Exception;
+    }
+
+    private static final class Pending {
+
+        private final String uniqueId;
+        private final String resId;
+        private final long time;
+        private final JsonObject data;
+        private final long queued;
+
+        private Pending(String uniqueId, String resId, long time, JsonObject data) {
+            this.uniqueId = uniqueId;
+            this.resId = resId;
+            this.time = time;
+            this.data = data;
+            queued = System.nanoTime();
+        }
+    }
+
+    private static final class Message {
+
+        private final String channel;
+        private final JsonObject packet;
+        private final long queued;
+
+        private Message(String channel, JsonObject packet, long queued) {
+            this.channel = channel;
+            this.packet = packet;
+            this.queued = queued;
+        }
+    }
+
+    private final Publisher publisher;
+    private final long interval;
+    private final boolean batchOutlets;
+    private final ExecutorService executor;
+
+    private final Object lock = new Object();
+    private Map<Long, Pending> pending = new LinkedHashMap<Long, Pending>();
+    private boolean running;
+    private Thread thread;
+
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final NotificationDispatcher.Metrics metrics = new NotificationDispatcher.Metrics();
+
+    public CoalescingPublisher(Publisher publisher, long interval, boolean batchOutlets) {
+        this(publisher, interval, batchOutlets, 1);
+    }
+
+    /**
+     * With one thread messages are published in order on the flush thread
+     */
+    public CoalescingPublisher(Publisher publisher, long interval, boolean batchOutlets, int threads) {
+        this.publisher = publisher;
+        this.interval = interval;
+        this.batchOutlets = batchOutlets;
+        executor = threads > 1 ? Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread result = new Thread(runnable, "pubnub-publish-" + index.incrementAndGet());
+                result.setDaemon(true);
+                return result;
+            }
+        }) : null;
+    }
+
+    /**
+     * Packet fields shared by all messages, data is added by the caller
+     */
+    static JsonObject createPacket() {
+        JsonObject packet = new JsonObject();
+        packet.addProperty("collapse_key", "gps_data");
+        packet.addProperty("time_to_live", 600);
+        return packet;
+    }
+
+    /**
+     * Replace pending message of the device, an older position never overwrites a newer one
+     */
+    public void offer(long deviceId, String uniqueId, String resId, long time, JsonObject data) {
+        offered.incrementAndGet();
+        synchronized (lock) {
+            Pending current = pending.get(deviceId);
+            if (current != null) {
+                coalesced.incrementAndGet();
+                if (current.time > time) {
+                    return;
+                }
+            }
+            pending.put(deviceId, new Pending(uniqueId, resId, time, data));
+        }
+    }
+
+    private void publish(Message message) {
+        Log.info("Sending PubNub message:" + message.packet + " to channel: " + message.channel);
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            publisher.publish(message.channel, message.packet);
+            success = true;
+        } catch (Exception error) {
+            Log.warning("PubNub error: ", error);
+        }
+        metrics.record(start - message.queued, System.nanoTime() - start, success);
+    }
+
+    /**
+     * Publish everything collected since the previous flush and wait until all messages are done
+     */
+    public void flush() {
+        Map<Long, Pending> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<Long, Pending>();
+        }
+
+        List<Message> messages = new ArrayList<Message>();
+        Map<String, List<Pending>> outlets = new LinkedHashMap<String, List<Pending>>();
+        for (Pending item : batch.values()) {
+            JsonObject packet = createPacket();
+            packet.add("data", item.data);
+            messages.add(new Message("rider_" + item.uniqueId, packet, item.queued));
+
+            if (batchOutlets) {
+                List<Pending> riders = outlets.get(item.resId);
+                if (riders == null) {
+                    riders = new ArrayList<Pending>();
+                    outlets.put(item.resId, riders);
+                }
+                riders.add(item);
+            } else {
+                messages.add(new Message("outlet_" + item.resId, packet, item.queued));
+            }
+        }
+
+        for (Map.Entry<String, List<Pending>> entry : outlets.entrySet()) {
+            JsonArray riders = new JsonArray();
+            long queued = entry.getValue().get(0).queued;
+            for (Pending item : entry.getValue()) {
+                riders.add(item.data);
+                queued = Math.min(queued, item.queued);
+            }
+            JsonObject packet = createPacket();
+            packet.add("data", riders);
+            messages.add(new Message("outlet_" + entry.getKey(), packet, queued));
+        }
+
+        if (executor == null) {
+            for (Message message : messages) {
+                publish(message);
+            }
+            return;
+        }
+
+        final CountDownLatch done = new CountDownLatch(messages.size());
+        for (final Message message : messages) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        publish(message);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        try {
+            done.await();
+        } catch (InterruptedException error) {
+            Log.warning(error);
+        }
+    }
+
+    public long getOffered() {
+        return offered.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getPublished() {
+        return metrics.getSent();
+    }
+
+    public long getFailed() {
+        return metrics.getFailed();
+    }
+
+    /**
+     * Published and failed messages, wait is the time from the latest offer of a device to its publish
+     */
+    public NotificationDispatcher.Metrics getMetrics() {
+        return metrics;
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    synchronized (lock) {
+                        if (running) {
+                            try {
+                                lock.wait(interval);
+                            } catch (InterruptedException error) {
+                                Log.warning(error);
+                            }
+                        }
+                        if (!running) {
+                            break;
+                        }
+                    }
+                    flush();
+                }
+            }
+        }, "pubnub-flush");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop background thread and publish remaining messages
+     */
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException error) {
+                Log.warning(error);
+            }
+        }
+        flush();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.notification;
+
+import java.util.List;
+import java.util.Properties;
+
+import com.google.android.gcm.server.Message;
+import com.google.android.gcm.server.MulticastResult;
+import com.google.android.gcm.server.Sender;
+import org.traccar.database.DataManager;
+import org.traccar.helper.Log;
+import org.traccar.model.Device;
+import org.traccar.model.Position;
+
+/**
+ * Google Cloud Messaging push to all registration ids of the device
+ */
+public class GcmSink implements PositionSink {
+
+    private final DataManager dataManager;
+    private final Sender sender;
+
+    public GcmSink(DataManager dataManager, Properties properties) {
+        this.dataManager = dataManager;
+        sender = new Sender(properties.getProperty("gcm.apiKey"));
+        Log.info("Created GCM Sender");
+    }
+
+    /**
+     * Enabled by gcm.enable with an API key and the database.getGcmIds query
+     */
+    public static boolean isEnabled(DataManager dataManager, Properties properties) {
+        String apiKey = properties.getProperty("gcm.apiKey");
+        return Boolean.valueOf(properties.getProperty("gcm.enable"))
+                && apiKey != null && apiKey.length() > 10 && dataManager.hasGcmIds();
+    }
+
+    @Override
+    public String getName() {
+        return "gcm";
+    }
+
+    @Override
+    public void send(Position position) throws Exception {
+        Device device = dataManager.getDeviceById(position.getDeviceId());
+        if (device != null) {
+            List<String> gcmIds = dataManager.getGcmIds(device.getId());
+            if(gcmIds.size()>0){
+                Message message = new Message.Builder()
+                        .collapseKey("gps_data")
+                        .timeToLive(600)
+                        .addData("uid", String.valueOf(device.getUniqueId()))
+                        .addData("latitude", String.valueOf(position.getLatitude()))
+                        .addData("longitude", String.valueOf(position.getLongitude()))
+                        .addData("time", PayloadWriter.formatDate(position.getTime()))
+                        .addData("start_time", PayloadWriter.formatDate(position.getStartTime()))
+                        .build();
+                Log.info("Sending GCM message:"+message.getData()+" to gcmIds: "+gcmIds);
+                MulticastResult result = sender.send(message, gcmIds, 1);
+                Log.info("GCM Server Response:"+result.toString());
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+    }
+
+}
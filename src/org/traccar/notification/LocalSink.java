@@ -0,0 +1,325 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.notification;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.Properties;
+
+import org.traccar.database.DataManager;
+import org.traccar.helper.Log;
+import org.traccar.model.Position;
+
+/**
+ * Appends positions to a rotating file or a TCP socket for local consumers, without any per position round trip
+ *
+ * Binary records are a big endian length followed by device id, database id (0 if unknown), time, validity
+ * (0 unknown, 1 valid, 2 invalid), latitude, longitude, altitude, speed and course (NaN if unknown) and extended
+ * info as a length prefixed UTF-8 string (-1 if missing). The json format writes one object per line.
+ */
+public class LocalSink implements PositionSink {
+
+    public enum Format {
+        BINARY, JSON
+    }
+
+    private static final long DEFAULT_FILE_SIZE = 64 * 1024 * 1024;
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final long DEFAULT_FLUSH_INTERVAL = 1000;
+    private static final long RETRY_DELAY = 1000;
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private final Format format;
+    private final File file;
+    private final long fileSize;
+    private final String host;
+    private final int port;
+    private final int bufferSize;
+    private final long flushInterval;
+
+    private final Object lock = new Object();
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private DataOutputStream out;
+    private Socket socket;
+    private long written;
+    private long lastFailure;
+    private long records;
+    private boolean running = true;
+    private Thread thread;
+
+    public LocalSink(DataManager dataManager, Properties properties) {
+        String value = properties.getProperty("sink.local.format");
+        if (value == null || value.equals("binary")) {
+            format = Format.BINARY;
+        } else if (value.equals("json")) {
+            format = Format.JSON;
+        } else {
+            throw new IllegalArgumentException("Unknown local sink format " + value);
+        }
+
+        value = properties.getProperty("sink.local.path");
+        file = value != null ? new File(value) : null;
+        value = properties.getProperty("sink.local.fileSize");
+        fileSize = value != null ? Long.valueOf(value) : DEFAULT_FILE_SIZE;
+
+        host = properties.getProperty("sink.local.host", "127.0.0.1");
+        value = properties.getProperty("sink.local.port");
+        port = value != null ? Integer.valueOf(value) : 0;
+
+        value = properties.getProperty("sink.local.bufferSize");
+        bufferSize = value != null ? Integer.valueOf(value) : DEFAULT_BUFFER_SIZE;
+        value = properties.getProperty("sink.local.flushInterval");
+        flushInterval = value != null ? Long.valueOf(value) : DEFAULT_FLUSH_INTERVAL;
+
+        if (file == null && port == 0) {
+            throw new IllegalArgumentException("Local sink needs sink.local.path or sink.local.port");
+        }
+        start();
+    }
+
+    /**
+     * Enabled by a file path or a TCP port
+     */
+    public static boolean isEnabled(Properties properties) {
+        return properties.getProperty("sink.local.path") != null || properties.getProperty("sink.local.port") != null;
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    public long getRecords() {
+        synchronized (lock) {
+            return records;
+        }
+    }
+
+    /**
+     * Failures are logged once per retry delay, positions in between are dropped
+     */
+    private void open() throws SinkUnavailableException {
+        long now = System.currentTimeMillis();
+        if (now - lastFailure < RETRY_DELAY) {
+            throw new SinkUnavailableException("Local sink is not available");
+        }
+        try {
+            if (file != null) {
+                File parent = file.getAbsoluteFile().getParentFile();
+                if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                    throw new IOException("Failed to create " + parent);
+                }
+                written = file.length();
+                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), bufferSize));
+            } else {
+                socket = new Socket();
+                socket.connect(new InetSocketAddress(host, port));
+                written = 0;
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), bufferSize));
+            }
+        } catch (IOException error) {
+            lastFailure = now;
+            close();
+            Log.warning("Local sink is not available, retrying in " + RETRY_DELAY + " ms - " + error.getMessage());
+            throw new SinkUnavailableException("Local sink is not available");
+        }
+        if (lastFailure != 0) {
+            Log.info("Local sink is available again");
+            lastFailure = 0;
+        }
+    }
+
+    private void close() {
+        try {
+            if (out != null) {
+                out.close();
+            } else if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException error) {
+            Log.warning(error);
+        }
+        out = null;
+        socket = null;
+    }
+
+    /**
+     * Move the current file aside with a time suffix, the next write starts a new file
+     */
+    private void rotate() throws IOException {
+        close();
+        File target = new File(file.getPath() + "." + System.currentTimeMillis());
+        for (int i = 1; target.exists(); i++) {
+            target = new File(file.getPath() + "." + System.currentTimeMillis() + "-" + i);
+        }
+        if (!file.renameTo(target)) {
+            throw new IOException("Failed to rotate " + file);
+        }
+    }
+
+    private static double toDouble(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static void writeDouble(PayloadWriter writer, String name, Double value) {
+        if (value != null) {
+            writer.field(name, (double) value);
+        }
+    }
+
+    private void encodeBinary(Position position) throws IOException {
+        recordOut.writeLong(position.getDeviceId());
+        recordOut.writeLong(position.getDatabaseId() != null ? position.getDatabaseId() : 0);
+        recordOut.writeLong(position.getTime().getTime());
+        recordOut.writeByte(position.getValid() != null ? (position.getValid() ? 1 : 2) : 0);
+        recordOut.writeDouble(toDouble(position.getLatitude()));
+        recordOut.writeDouble(toDouble(position.getLongitude()));
+        recordOut.writeDouble(toDouble(position.getAltitude()));
+        recordOut.writeDouble(toDouble(position.getSpeed()));
+        recordOut.writeDouble(toDouble(position.getCourse()));
+        String extendedInfo = position.getExtendedInfo();
+        if (extendedInfo == null) {
+            recordOut.writeInt(-1);
+        } else {
+            byte[] bytes = extendedInfo.getBytes(CHARSET);
+            recordOut.writeInt(bytes.length);
+            recordOut.write(bytes);
+        }
+    }
+
+    private byte[] encodeJson(Position position) {
+        PayloadWriter writer = PayloadWriter.get().beginObject()
+                .field("deviceId", (long) position.getDeviceId());
+        if (position.getDatabaseId() != null) {
+            writer.field("id", (long) position.getDatabaseId());
+        }
+        writer.field("time", position.getTime().getTime());
+        if (position.getValid() != null) {
+            writer.field("valid", (boolean) position.getValid());
+        }
+        writeDouble(writer, "latitude", position.getLatitude());
+        writeDouble(writer, "longitude", position.getLongitude());
+        writeDouble(writer, "altitude", position.getAltitude());
+        writeDouble(writer, "speed", position.getSpeed());
+        writeDouble(writer, "course", position.getCourse());
+        writer.field("extendedInfo", position.getExtendedInfo());
+        return (writer.endObject().toString() + '\n').getBytes(CHARSET);
+    }
+
+    /**
+     * Only a failed write drops the position, a failed rotation is logged and retried after the delay
+     */
+    @Override
+    public void send(Position position) throws Exception {
+        byte[] json = format == Format.JSON ? encodeJson(position) : null;
+        synchronized (lock) {
+            if (out == null) {
+                open();
+            }
+            try {
+                if (json != null) {
+                    out.write(json);
+                    written += json.length;
+                } else {
+                    record.reset();
+                    encodeBinary(position);
+                    out.writeInt(record.size());
+                    record.writeTo(out);
+                    written += 4 + record.size();
+                }
+                records += 1;
+            } catch (IOException error) {
+                lastFailure = System.currentTimeMillis();
+                close();
+                Log.warning("Local sink write failed", error);
+                throw new SinkUnavailableException("Local sink write failed");
+            }
+            if (file != null && written >= fileSize) {
+                try {
+                    rotate();
+                } catch (IOException error) {
+                    lastFailure = System.currentTimeMillis();
+                    Log.warning("Local sink rotation failed", error);
+                }
+            }
+        }
+    }
+
+    public void flush() {
+        synchronized (lock) {
+            if (out != null) {
+                try {
+                    out.flush();
+                } catch (IOException error) {
+                    Log.warning("Local sink flush failed", error);
+                    lastFailure = System.currentTimeMillis();
+                    close();
+                }
+            }
+        }
+    }
+
+    private void start() {
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    synchronized (lock) {
+                        if (running) {
+                            try {
+                                lock.wait(flushInterval);
+                            } catch (InterruptedException error) {
+                                Log.warning(error);
+                            }
+                        }
+                        if (!running) {
+                            break;
+                        }
+                    }
+                    flush();
+                }
+            }
+        }, "local-sink-flush");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException error) {
+            Log.warning(error);
+        }
+        synchronized (lock) {
+            close();
+        }
+    }
+
+}
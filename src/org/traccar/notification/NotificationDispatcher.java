@@ -0,0 +1,337 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.notification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.traccar.helper.Log;
+import org.traccar.model.Position;
+
+/**
+ * Delivers positions to sinks on dedicated threads, so a slow provider never blocks I/O threads
+ *
+ * Every sink has its own bounded queue and threads. When a queue is full the sink policy decides
+ * whether the new position is dropped, the oldest one is dropped or the caller waits for free space.
+ * With a single thread per sink messages of a device are delivered in order, more threads trade that for throughput.
+ */
+public class NotificationDispatcher {
+
+    public enum Policy {
+        DROP, DROP_OLDEST, BLOCK
+    }
+
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+    private static final int DEFAULT_THREADS = 1;
+    private static final long DEFAULT_BLOCK_TIMEOUT = 1000;
+    private static final long POLL_TIMEOUT = 1000;
+    private static final long STOP_TIMEOUT = 5000;
+
+    /**
+     * Counters of a single sink, latency is measured around the send call
+     */
+    public static class Metrics {
+
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong totalLatency = new AtomicLong();
+        private final AtomicLong maxLatency = new AtomicLong();
+        private final AtomicLong totalWait = new AtomicLong();
+
+        public long getSent() {
+            return sent.get();
+        }
+
+        public long getFailed() {
+            return failed.get();
+        }
+
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        /**
+         * Average send time in milliseconds
+         */
+        public double getAverageLatency() {
+            long count = sent.get() + failed.get();
+            return count > 0 ? totalLatency.get() / 1000000.0 / count : 0;
+        }
+
+        public double getMaxLatency() {
+            return maxLatency.get() / 1000000.0;
+        }
+
+        /**
+         * Average time spent in the queue in milliseconds
+         */
+        public double getAverageWait() {
+            long count = sent.get() + failed.get();
+            return count > 0 ? totalWait.get() / 1000000.0 / count : 0;
+        }
+
+        /**
+         * Count one delivery, wait and latency are in nanoseconds
+         */
+        public void record(long wait, long latency, boolean success) {
+            (success ? sent : failed).incrementAndGet();
+            totalWait.addAndGet(wait);
+            totalLatency.addAndGet(latency);
+            long max = maxLatency.get();
+            while (latency > max && !maxLatency.compareAndSet(max, latency)) {
+                max = maxLatency.get();
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final Position position;
+        private final long queued;
+
+        private Entry(Position position) {
+            this.position = position;
+            queued = System.nanoTime();
+        }
+    }
+
+    private final class Channel implements Runnable {
+
+        private final PositionSink sink;
+        private final BlockingQueue<Entry> queue;
+        private final Policy policy;
+        private final Metrics metrics = new Metrics();
+        private final List<Thread> threads = new ArrayList<Thread>();
+
+        private Channel(PositionSink sink, int queueSize, Policy policy) {
+            this.sink = sink;
+            this.queue = new ArrayBlockingQueue<Entry>(queueSize);
+            this.policy = policy;
+        }
+
+        private void offer(Entry entry) {
+            boolean accepted;
+            switch (policy) {
+                case DROP_OLDEST:
+                    accepted = queue.offer(entry);
+                    while (!accepted) {
+                        if (queue.poll() != null) {
+                            metrics.dropped.incrementAndGet();
+                        }
+                        accepted = queue.offer(entry);
+                    }
+                    break;
+                case BLOCK:
+                    try {
+                        accepted = queue.offer(entry, blockTimeout, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException error) {
+                        Thread.currentThread().interrupt();
+                        accepted = false;
+                    }
+                    break;
+                default:
+                    accepted = queue.offer(entry);
+                    break;
+            }
+            if (!accepted) {
+                metrics.dropped.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                Entry entry;
+                try {
+                    entry = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException error) {
+                    break;
+                }
+                if (entry == null) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                boolean success = false;
+                try {
+                    sink.send(entry.position);
+                    success = true;
+                } catch (SinkUnavailableException error) {
+                    metrics.dropped.incrementAndGet();
+                    continue;
+                } catch (Exception error) {
+                    Log.warning(sink.getName() + " notification failed", error);
+                }
+                metrics.record(start - entry.queued, System.nanoTime() - start, success);
+            }
+        }
+    }
+
+    private final Properties properties;
+    private final long blockTimeout;
+    private volatile Channel[] channels = new Channel[0];
+    private volatile boolean running = true;
+
+    public NotificationDispatcher(Properties properties) {
+        this.properties = properties != null ? properties : new Properties();
+        String value = this.properties.getProperty("notification.blockTimeout");
+        blockTimeout = value != null ? Long.valueOf(value) : DEFAULT_BLOCK_TIMEOUT;
+    }
+
+    private static Policy parsePolicy(String value) {
+        if (value == null || value.equals("drop")) {
+            return Policy.DROP;
+        } else if (value.equals("dropOldest")) {
+            return Policy.DROP_OLDEST;
+        } else if (value.equals("block")) {
+            return Policy.BLOCK;
+        }
+        throw new IllegalArgumentException("Unknown notification policy " + value);
+    }
+
+    /**
+     * Start threads for the sink, options are read from notification.[name].* keys
+     */
+    public synchronized void addSink(PositionSink sink) {
+        String prefix = "notification." + sink.getName() + ".";
+
+        String value = properties.getProperty(prefix + "queueSize");
+        int queueSize = value != null ? Integer.valueOf(value) : DEFAULT_QUEUE_SIZE;
+
+        value = properties.getProperty(prefix + "threads");
+        int threadCount = value != null ? Integer.valueOf(value) : DEFAULT_THREADS;
+
+        Channel channel = new Channel(sink, queueSize, parsePolicy(properties.getProperty(prefix + "policy")));
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(channel, "notification-" + sink.getName() + "-" + (i + 1));
+            thread.setDaemon(true);
+            thread.start();
+            channel.threads.add(thread);
+        }
+
+        Channel[] result = Arrays.copyOf(channels, channels.length + 1);
+        result[channels.length] = channel;
+        channels = result;
+    }
+
+    public boolean isEmpty() {
+        return channels.length == 0;
+    }
+
+    /**
+     * Queue position for every sink, returns without waiting unless a sink uses the block policy
+     */
+    public void dispatch(Position position) {
+        if (!running) {
+            return;
+        }
+        for (Channel channel : channels) {
+            channel.offer(new Entry(position));
+        }
+    }
+
+    public Metrics getMetrics(String name) {
+        for (Channel channel : channels) {
+            if (channel.sink.getName().equals(name)) {
+                return channel.metrics;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counters of deliveries a deferred sink completes after send, null for other sinks
+     */
+    public Metrics getDeliveryMetrics(String name) {
+        for (Channel channel : channels) {
+            if (channel.sink.getName().equals(name) && channel.sink instanceof DeferredSink) {
+                return ((DeferredSink) channel.sink).getDeliveryMetrics();
+            }
+        }
+        return null;
+    }
+
+    public int getQueueSize(String name) {
+        for (Channel channel : channels) {
+            if (channel.sink.getName().equals(name)) {
+                return channel.queue.size();
+            }
+        }
+        return 0;
+    }
+
+    private static void appendMetrics(StringBuilder result, Metrics metrics) {
+        result.append(" sent=").append(metrics.getSent())
+                .append(" failed=").append(metrics.getFailed())
+                .append(" dropped=").append(metrics.getDropped())
+                .append(String.format(" wait=%.1f latency=%.1f max=%.1f",
+                        metrics.getAverageWait(), metrics.getAverageLatency(), metrics.getMaxLatency()))
+                .append('\n');
+    }
+
+    /**
+     * One line per sink with queue length, counters and latencies in milliseconds, deferred sinks add a line
+     * for completed deliveries
+     */
+    public String report() {
+        StringBuilder result = new StringBuilder();
+        for (Channel channel : channels) {
+            result.append(channel.sink.getName()).append(" queued=").append(channel.queue.size());
+            appendMetrics(result, channel.metrics);
+            if (channel.sink instanceof DeferredSink) {
+                Metrics delivery = ((DeferredSink) channel.sink).getDeliveryMetrics();
+                if (delivery != null) {
+                    result.append(channel.sink.getName()).append(" delivery");
+                    appendMetrics(result, delivery);
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Stop accepting positions, give threads a few seconds to deliver queued ones and stop sinks
+     */
+    public void stop() {
+        running = false;
+        long deadline = System.currentTimeMillis() + STOP_TIMEOUT;
+        for (Channel channel : channels) {
+            for (Thread thread : channel.threads) {
+                try {
+                    thread.join(Math.max(deadline - System.currentTimeMillis(), 1));
+                } catch (InterruptedException error) {
+                    Log.warning(error);
+                }
+                thread.interrupt();
+            }
+            try {
+                channel.sink.stop();
+            } catch (Exception error) {
+                Log.warning(channel.sink.getName() + " sink stop failed", error);
+            }
+        }
+        if (channels.length > 0) {
+            Log.info("Notifications:\n" + report());
+        }
+    }
+
+}
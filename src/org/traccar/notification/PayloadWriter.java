@@ -0,0 +1,221 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.notification;
+
+import java.util.Date;
+
+import org.traccar.helper.CachedDateFormat;
+import org.traccar.model.Device;
+import org.traccar.model.Position;
+
+/**
+ * Streaming JSON writer for outbound position payloads, one reusable buffer per thread
+ *
+ * Output matches default Gson serialization: doubles as Double.toString, null fields skipped and HTML
+ * characters escaped, so consumers of the previous payloads see identical messages.
+ */
+public final class PayloadWriter {
+
+    private static final CachedDateFormat DATE_FORMAT = new CachedDateFormat("d/MM/yyyy h:mm:ssa");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<PayloadWriter> WRITER = new ThreadLocal<PayloadWriter>() {
+        @Override
+        protected PayloadWriter initialValue() {
+            return new PayloadWriter();
+        }
+    };
+
+    private final StringBuilder buffer = new StringBuilder(512);
+    private boolean first;
+
+    private PayloadWriter() {
+    }
+
+    /**
+     * Writer of the current thread with an empty buffer
+     */
+    public static PayloadWriter get() {
+        PayloadWriter writer = WRITER.get();
+        writer.buffer.setLength(0);
+        writer.first = true;
+        return writer;
+    }
+
+    /**
+     * Date in the format used by GCM and PubNub messages
+     */
+    public static String formatDate(Date date) {
+        return DATE_FORMAT.format(date);
+    }
+
+    public PayloadWriter beginObject() {
+        separate();
+        buffer.append('{');
+        first = true;
+        return this;
+    }
+
+    public PayloadWriter endObject() {
+        buffer.append('}');
+        first = false;
+        return this;
+    }
+
+    private void separate() {
+        if (!first) {
+            buffer.append(',');
+        }
+        first = false;
+    }
+
+    private void name(String name) {
+        separate();
+        appendString(name);
+        buffer.append(':');
+        first = true;
+    }
+
+    public PayloadWriter field(String name, String value) {
+        if (value != null) {
+            name(name);
+            separate();
+            appendString(value);
+        }
+        return this;
+    }
+
+    /**
+     * Non finite values are written as null, Gson would reject them
+     */
+    public PayloadWriter field(String name, double value) {
+        name(name);
+        separate();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            buffer.append("null");
+        } else {
+            buffer.append(value);
+        }
+        return this;
+    }
+
+    public PayloadWriter field(String name, long value) {
+        name(name);
+        separate();
+        buffer.append(value);
+        return this;
+    }
+
+    public PayloadWriter field(String name, boolean value) {
+        name(name);
+        separate();
+        buffer.append(value);
+        return this;
+    }
+
+    /**
+     * Start a nested object, close it with endObject
+     */
+    public PayloadWriter object(String name) {
+        name(name);
+        return beginObject();
+    }
+
+    private void appendString(String value) {
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                case '\b':
+                    buffer.append("\\b");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\f':
+                    buffer.append("\\f");
+                    break;
+                case '<':
+                case '>':
+                case '&':
+                case '=':
+                case '\'':
+                case '\u2028':
+                case '\u2029':
+                    appendEscape(c);
+                    break;
+                default:
+                    if (c < 0x20) {
+                        appendEscape(c);
+                    } else {
+                        buffer.append(c);
+                    }
+                    break;
+            }
+        }
+        buffer.append('"');
+    }
+
+    private void appendEscape(char c) {
+        buffer.append("\\u")
+                .append(HEX[(c >> 12) & 0xf]).append(HEX[(c >> 8) & 0xf])
+                .append(HEX[(c >> 4) & 0xf]).append(HEX[c & 0xf]);
+    }
+
+    @Override
+    public String toString() {
+        return buffer.toString();
+    }
+
+    private static double valueOrZero(Double value) {
+        return value != null ? value : 0;
+    }
+
+    /**
+     * SNS topic message, same fields and order as the SNSMessage bean
+     */
+    public static String snsMessage(Position position, Device device) {
+        return get().beginObject()
+                .field("latitude", position.getLatitude())
+                .field("longitude", position.getLongitude())
+                .field("altitude", valueOrZero(position.getAltitude()))
+                .field("speed", valueOrZero(position.getSpeed()))
+                .field("course", valueOrZero(position.getCourse()))
+                .field("bearing", 0.0)
+                .field("accuracy", 0.0)
+                .field("createdAt", position.getStartTime().getTime())
+                .field("updatedAt", position.getTime().getTime())
+                .field("deviceId", device.getImei())
+                .field("extendedInfo", position.getExtendedInfo() != null ? position.getExtendedInfo() : "")
+                .field("provider", "gps_tracker")
+                .field("externalId", device.getExternalId())
+                .endObject().toString();
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.notification;
+
+import org.traccar.model.Position;
+
+/**
+ * Destination for stored positions, called from dispatcher threads only
+ *
+ * Custom sinks are listed in the sink.classes option and need a public constructor taking DataManager
+ * and Properties, options of a sink use the sink.[name]. prefix.
+ */
+public interface PositionSink {
+
+    /**
+     * Name used for configuration keys and metrics
+     */
+    String getName();
+
+    /**
+     * Throw SinkUnavailableException to drop the position without a logged failure
+     */
+    void send(Position position) throws Exception;
+
+    /**
+     * Called once all queued positions are delivered or the dispatcher gives up waiting
+     */
+    void stop();
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.notification;
+
+import java.util.Properties;
+
+import com.google.gson.JsonObject;
+import com.pubnub.api.PNConfiguration;
+import com.pubnub.api.PubNub;
+import com.pubnub.api.PubNubException;
+import org.traccar.database.DataManager;
+import org.traccar.helper.Log;
+import org.traccar.model.Device;
+import org.traccar.model.Position;
+
+/**
+ * PubNub message to the rider channel of the device and the outlet channel of its restaurant
+ *
+ * With a flush interval messages are coalesced per device and published later, see CoalescingPublisher.
+ * With interval 0 they are published within send, so dispatcher metrics cover them directly.
+ */
+public class PubNubSink implements DeferredSink {
+
+    private static final long DEFAULT_FLUSH_INTERVAL = 1000;
+    private static final int DEFAULT_PUBLISH_THREADS = 4;
+
+    private final DataManager dataManager;
+    private final PubNub pubNub;
+    private CoalescingPublisher publisher;
+
+    public PubNubSink(DataManager dataManager, Properties properties) {
+        this.dataManager = dataManager;
+
+        PNConfiguration pnConfiguration = new PNConfiguration();
+        pnConfiguration.setPublishKey(properties.getProperty("pubnub.publishKey"));
+        pnConfiguration.setSubscribeKey(properties.getProperty("pubnub.subscribeKey"));
+        pnConfiguration.setSecure(true);
+        pnConfiguration.setUuid("gps.jooleh.com");
+        pubNub = new PubNub(pnConfiguration);
+        Log.info("Created PubNub publisher");
+
+        String flushInterval = properties.getProperty("pubnub.flushInterval");
+        long interval = flushInterval != null ? Long.valueOf(flushInterval) : DEFAULT_FLUSH_INTERVAL;
+        String publishThreads = properties.getProperty("pubnub.publishThreads");
+        int threads = publishThreads != null ? Integer.valueOf(publishThreads) : DEFAULT_PUBLISH_THREADS;
+        if (interval > 0) {
+            publisher = new CoalescingPublisher(new CoalescingPublisher.Publisher() {
+                @Override
+                public void publish(String channel, JsonObject packet) throws Exception {
+                    PubNubSink.this.publish(channel, packet);
+                }
+            }, interval, Boolean.valueOf(properties.getProperty("pubnub.batchOutlets")), threads);
+            publisher.start();
+        }
+    }
+
+    /**
+     * Enabled by pubnub.enable with a subscribe key
+     */
+    public static boolean isEnabled(Properties properties) {
+        String subscribeKey = properties.getProperty("pubnub.subscribeKey");
+        return Boolean.valueOf(properties.getProperty("pubnub.enable"))
+                && subscribeKey != null && subscribeKey.length() > 10;
+    }
+
+    @Override
+    public String getName() {
+        return "pubnub";
+    }
+
+    @Override
+    public NotificationDispatcher.Metrics getDeliveryMetrics() {
+        return publisher != null ? publisher.getMetrics() : null;
+    }
+
+    private void publish(String channel, JsonObject packet) throws PubNubException {
+        pubNub.publish().message(packet).channel(channel).sync();
+    }
+
+    /**
+     * Offer message to the publisher, without coalescing both channels are published here and failures
+     * are left to the dispatcher
+     */
+    @Override
+    public void send(Position position) throws Exception {
+        Device device = dataManager.getDeviceById(position.getDeviceId());
+        if (device != null) {
+            JsonObject message = new JsonObject();
+            message.addProperty("uid", device.getUniqueId());
+            message.addProperty("latitude", position.getLatitude());
+            message.addProperty("longitude", position.getLongitude());
+            message.addProperty("time", PayloadWriter.formatDate(position.getTime()));
+            message.addProperty("start_time", PayloadWriter.formatDate(position.getStartTime()));
+            if (publisher != null) {
+                publisher.offer(position.getDeviceId(), device.getUniqueId(), device.getResId(),
+                        position.getTime().getTime(), message);
+            } else {
+                JsonObject packet = CoalescingPublisher.createPacket();
+                packet.add("data", message);
+                publish("rider_" + device.getUniqueId(), packet);
+                publish("outlet_" + device.getResId(), packet);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (publisher != null) {
+            publisher.stop();
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 Anton Tananaev (anton.tananaev@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.notification;
+
+import java.util.Properties;
+
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.regions.Region;
+import com.amazonaws.regions.Regions;
+import com.amazonaws.services.sns.AmazonSNSClient;
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sns.model.PublishResult;
+import org.traccar.database.DataManager;
+import org.traccar.helper.Log;
+import org.traccar.model.Device;
+import org.traccar.model.Position;
+
+/**
+ * Amazon SNS message to the topic of the device, devices without a topic are skipped
+ */
+public class SnsSink implements PositionSink {
+
+    private final DataManager dataManager;
+    private final AmazonSNSClient snsClient;
+
+    public SnsSink(DataManager dataManager, Properties properties) {
+        this.dataManager = dataManager;
+        snsClient = new AmazonSNSClient(new BasicAWSCredentials(
+                properties.getProperty("aws.accessKey"), properties.getProperty("aws.accessSecret")));
+        snsClient.setRegion(Region.getRegion(Regions.AP_SOUTHEAST_1));
+    }
+
+    /**
+     * Enabled by AWS credentials, like the SQS invalidation listener
+     */
+    public static boolean isEnabled(Properties properties) {
+        return properties.getProperty("aws.accessKey") != null && properties.getProperty("aws.accessSecret") != null;
+    }
+
+    @Override
+    public String getName() {
+        return "sns";
+    }
+
+    @Override
+    public void send(Position position) throws Exception {
+        Device device = dataManager.getDeviceById(position.getDeviceId());
+        if (device!=null && device.getSnsTopicName()!=null && !device.getSnsTopicName().equals("")) {
+            //publish to an SNS topic
+            String msg = PayloadWriter.snsMessage(position, device);
+            Log.info("Sending SNS message:"+msg+" to topic: "+device.getSnsTopicName());
+            PublishRequest publishRequest = new PublishRequest(device.getSnsTopicName(), msg);
+            PublishResult publishResult = snsClient.publish(publishRequest);
+            Log.info("SNS Message id:"+publishResult.getMessageId());
+        }
+    }
+
+    @Override
+    public void stop() {
+        snsClient.shutdown();
+    }
+
+}
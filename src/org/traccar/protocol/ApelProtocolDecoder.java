@@ -246,7 +246,7 @@ public class ApelProtocolDecoder extends BaseProtocolDecoder {
                 }
 
                 // Extended info
-                position.setExtendedInfo(extendedInfo.toString());
+                position.setExtendedInfo(extendedInfo);
 
                 positions.add(position);
             }
@@ -232,7 +232,7 @@ public class AplicomProtocolDecoder extends BaseProtocolDecoder {
             position.setAltitude(0.0);
         }
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         return position;
     }
 
@@ -108,7 +108,7 @@ public class Ardi01ProtocolDecoder extends BaseProtocolDecoder {
         // Output
         extendedInfo.set("temperature", parser.group(index++));
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         return position;
     }
 
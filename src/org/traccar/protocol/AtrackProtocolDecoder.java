@@ -29,6 +29,7 @@ import org.jboss.netty.channel.ChannelHandlerContext;
 
 import org.traccar.BaseProtocolDecoder;
 import org.traccar.database.DataManager;
+import org.traccar.helper.ImeiKey;
 import org.traccar.helper.Log;
 import org.traccar.model.ExtendedInfoFormatter;
 import org.traccar.model.Position;
@@ -89,13 +90,11 @@ public class AtrackProtocolDecoder extends BaseProtocolDecoder {
         int index = buf.readUnsignedShort();
 
         // Get device id
-        long deviceId;
         long rawId = buf.readLong();
-        String id = String.valueOf(rawId);
-        try {
-            deviceId = getDataManager().getDeviceByImei(id).getId();
-        } catch(Exception error) {
-            Log.warning("Unknown device - " + id);
+        long imeiKey = ImeiKey.fromNumber(rawId, 0);
+        Long deviceId = identify(channel, imeiKey, imeiKey == ImeiKey.INVALID ? String.valueOf(rawId) : null);
+        if (deviceId == null) {
+            Log.warning("Unknown device - " + rawId);
             return null;
         }
         
@@ -160,7 +159,7 @@ public class AtrackProtocolDecoder extends BaseProtocolDecoder {
             // For example adding AT$FORM %FC /Fuel used you can add the line in this position:
             // extendedInfo.set("fuelused", buf.readUnsignedInt() * 0.1);
 
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             positions.add(position);
         }
 
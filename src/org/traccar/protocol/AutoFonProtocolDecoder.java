@@ -21,7 +21,7 @@ import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.traccar.BaseProtocolDecoder;
 import org.traccar.database.DataManager;
-import org.traccar.helper.ChannelBufferTools;
+import org.traccar.helper.ImeiKey;
 import org.traccar.helper.Log;
 import org.traccar.model.ExtendedInfoFormatter;
 import org.traccar.model.Position;
@@ -108,7 +108,7 @@ public class AutoFonProtocolDecoder extends BaseProtocolDecoder {
         buf.readUnsignedShort(); // reserved
         buf.readUnsignedByte(); // checksum
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         return position;
     }
 
@@ -126,13 +126,15 @@ public class AutoFonProtocolDecoder extends BaseProtocolDecoder {
             buf.readUnsignedByte(); // hardware version
             buf.readUnsignedByte(); // software version
 
-            String imei = ChannelBufferTools.readHexString(buf, 16).substring(1);
-            try {
-                deviceId = getDataManager().getDeviceByImei(imei).getId();
-            } catch(Exception error) {
-                Log.warning("Unknown device - " + imei);
+            long imeiKey = ImeiKey.fromBcd(buf, buf.readerIndex(), 8, 1);
+            String imei = imeiKey == ImeiKey.INVALID ? ImeiKey.bcdString(buf, buf.readerIndex(), 8, 1) : null;
+            buf.skipBytes(8);
+            Long id = identify(channel, imeiKey, imei);
+            if (id == null) {
+                Log.warning("Unknown device - " + (imei != null ? imei : ImeiKey.toString(imeiKey)));
                 return null;
             }
+            deviceId = id;
 
             // Send response
             if (channel != null) {
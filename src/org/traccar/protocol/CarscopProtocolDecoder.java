@@ -129,7 +129,7 @@ public class CarscopProtocolDecoder extends BaseProtocolDecoder {
         // Milage
         extendedInfo.set("milage", Integer.valueOf(parser.group(index++)));
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         return position;
     }
 
@@ -27,6 +27,7 @@ import org.jboss.netty.channel.ChannelHandlerContext;
 
 import org.traccar.BaseProtocolDecoder;
 import org.traccar.database.DataManager;
+import org.traccar.helper.ImeiKey;
 import org.traccar.helper.Log;
 import org.traccar.model.ExtendedInfoFormatter;
 import org.traccar.model.Position;
@@ -109,12 +110,12 @@ public class CellocatorProtocolDecoder extends BaseProtocolDecoder {
             ExtendedInfoFormatter extendedInfo = new ExtendedInfoFormatter(getProtocol());
             
             // Device identifier
-            try {
-                position.setDeviceId(getDataManager().getDeviceByImei(String.valueOf(deviceId)).getId());
-            } catch(Exception error) {
+            Long id = identify(channel, ImeiKey.fromNumber(deviceId, 0), null);
+            if (id == null) {
                 Log.warning("Unknown device - " + deviceId);
                 return null;
             }
+            position.setDeviceId(id);
             
             buf.readUnsignedByte(); // hardware version
             buf.readUnsignedByte(); // software version
@@ -164,7 +165,7 @@ public class CellocatorProtocolDecoder extends BaseProtocolDecoder {
             time.set(Calendar.YEAR, buf.readUnsignedShort());
             position.setTime(time.getTime());
 
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             return position;
         }
 
@@ -29,6 +29,7 @@ import org.traccar.BaseProtocolDecoder;
 import org.traccar.database.DataManager;
 import org.traccar.helper.ChannelBufferTools;
 import org.traccar.helper.Crc;
+import org.traccar.helper.ImeiKey;
 import org.traccar.helper.Log;
 import org.traccar.model.ExtendedInfoFormatter;
 import org.traccar.model.Position;
@@ -91,11 +92,14 @@ public class EelinkProtocolDecoder extends BaseProtocolDecoder {
         }
         
         if (type == MSG_LOGIN) {
-            String imei = ChannelBufferTools.readHexString(buf, 16).substring(1);
-            try {
-                deviceId = getDataManager().getDeviceByImei(imei).getId();
-            } catch(Exception error) {
-                Log.warning("Unknown device - " + imei);
+            long imeiKey = ImeiKey.fromBcd(buf, buf.readerIndex(), 8, 1);
+            String imei = imeiKey == ImeiKey.INVALID ? ImeiKey.bcdString(buf, buf.readerIndex(), 8, 1) : null;
+            buf.skipBytes(8);
+            Long id = identify(channel, imeiKey, imei);
+            if (id != null) {
+                deviceId = id;
+            } else {
+                Log.warning("Unknown device - " + (imei != null ? imei : ImeiKey.toString(imeiKey)));
             }
         }
         
@@ -134,7 +138,7 @@ public class EelinkProtocolDecoder extends BaseProtocolDecoder {
                 extendedInfo.set("status", buf.readUnsignedByte());
             }
             
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             return position;
         }
 
@@ -195,7 +199,7 @@ public class EelinkProtocolDecoder extends BaseProtocolDecoder {
             position.setLongitude(longitude);
             position.setAltitude(0.0);
 
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             return position;
         }*/
 
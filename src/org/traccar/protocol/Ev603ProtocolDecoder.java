@@ -112,7 +112,7 @@ public class Ev603ProtocolDecoder extends BaseProtocolDecoder{
                 position.setCourse(0.0);
             }
 
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             return position;
         }
 
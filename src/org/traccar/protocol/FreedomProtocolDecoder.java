@@ -108,7 +108,7 @@ public class FreedomProtocolDecoder extends BaseProtocolDecoder {
         // Course
         position.setCourse(0.0);
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         return position;
     }
 
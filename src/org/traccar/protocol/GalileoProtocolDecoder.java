@@ -26,6 +26,7 @@ import org.jboss.netty.channel.ChannelHandlerContext;
 
 import org.traccar.BaseProtocolDecoder;
 import org.traccar.database.DataManager;
+import org.traccar.helper.ImeiKey;
 import org.traccar.helper.Log;
 import org.traccar.model.ExtendedInfoFormatter;
 import org.traccar.model.Position;
@@ -100,7 +101,7 @@ public class GalileoProtocolDecoder extends BaseProtocolDecoder {
             // Check if new message started
             int tag = buf.readUnsignedByte();
             if (tags.contains(tag)) {
-                position.setExtendedInfo(extendedInfo.toString());
+                position.setExtendedInfo(extendedInfo);
                 positions.add(position);
                 tags.clear();
                 position = new Position();
@@ -111,12 +112,15 @@ public class GalileoProtocolDecoder extends BaseProtocolDecoder {
             switch (tag) {
 
                 case TAG_IMEI:
-                    String imei = buf.toString(buf.readerIndex(), 15, Charset.defaultCharset());
-                    buf.skipBytes(imei.length());
-                    try {
-                        deviceId = getDataManager().getDeviceByImei(imei).getId();
-                    } catch(Exception error) {
-                        Log.warning("Unknown device - " + imei);
+                    long imeiKey = ImeiKey.fromAscii(buf, buf.readerIndex(), 15);
+                    String imei = imeiKey == ImeiKey.INVALID
+                            ? buf.toString(buf.readerIndex(), 15, Charset.defaultCharset()) : null;
+                    buf.skipBytes(15);
+                    Long id = identify(channel, imeiKey, imei);
+                    if (id != null) {
+                        deviceId = id;
+                    } else {
+                        Log.warning("Unknown device - " + (imei != null ? imei : ImeiKey.toString(imeiKey)));
                     }
                     break;
 
@@ -162,7 +166,7 @@ public class GalileoProtocolDecoder extends BaseProtocolDecoder {
             }
         }
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         positions.add(position);
         
         if (deviceId == null) {
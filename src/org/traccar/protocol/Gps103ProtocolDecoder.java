@@ -98,7 +98,7 @@ public class Gps103ProtocolDecoder extends BaseProtocolDecoder {
         // Get device by IMEI
         String imei = parser.group(index++);
         try {
-            position.setDeviceId(getDataManager().getDeviceByImei(imei).getId());
+            position.setDeviceId(identify(channel, imei).getId());
         } catch(Exception error) {
             Log.warning("Unknown device - " + imei);
             return null;
@@ -180,7 +180,7 @@ public class Gps103ProtocolDecoder extends BaseProtocolDecoder {
         extendedInfo.set("io4", parser.group(index++));
 
         // Extended info
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
 
         return position;
     }
@@ -160,7 +160,7 @@ public class GpsGateProtocolDecoder extends BaseProtocolDecoder {
             // Altitude
             position.setAltitude(0.0);
 
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             return position;
         }
 
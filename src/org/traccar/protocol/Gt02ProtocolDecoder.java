@@ -126,7 +126,7 @@ public class Gt02ProtocolDecoder extends BaseProtocolDecoder {
             position.setLongitude(longitude);
             position.setAltitude(0.0);
 
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             return position;
         }
 
@@ -23,8 +23,8 @@ import org.traccar.BaseProtocolDecoder;
 import org.traccar.database.DataManager;
 import org.traccar.helper.BitUtil;
 import org.traccar.helper.Crc;
+import org.traccar.helper.ImeiKey;
 import org.traccar.helper.Log;
-import org.traccar.model.Device;
 import org.traccar.model.ExtendedInfoFormatter;
 import org.traccar.model.Position;
 
@@ -35,6 +35,7 @@ import java.util.TimeZone;
 public class Gt06ProtocolDecoder extends BaseProtocolDecoder {
 
     private Long deviceId;
+    private long imeiKey = ImeiKey.INVALID;
     private String imei;
     private final TimeZone timeZone = TimeZone.getTimeZone("UTC");
 
@@ -49,16 +50,10 @@ public class Gt06ProtocolDecoder extends BaseProtocolDecoder {
         }
     }
 
-    private String readImei(ChannelBuffer buf) {
-        int b = buf.readUnsignedByte();
-        StringBuilder imei = new StringBuilder();
-        imei.append(b & 0x0F);
-        for (int i = 0; i < 7; i++) {
-            b = buf.readUnsignedByte();
-            imei.append((b & 0xF0) >> 4);
-            imei.append(b & 0x0F);
-        }
-        return imei.toString();
+    private void readImei(ChannelBuffer buf) {
+        imeiKey = ImeiKey.fromBcd(buf, buf.readerIndex(), 8, 1);
+        imei = imeiKey == ImeiKey.INVALID ? ImeiKey.bcdString(buf, buf.readerIndex(), 8, 1) : null;
+        buf.skipBytes(8);
     }
 
     private static final int MSG_LOGIN = 0x01;
@@ -113,7 +108,7 @@ public class Gt06ProtocolDecoder extends BaseProtocolDecoder {
         
         if (type == MSG_LOGIN) {
 
-            imei = readImei(buf);
+            readImei(buf);
             buf.readUnsignedShort(); // type
 
             // Timezone offset
@@ -126,12 +121,13 @@ public class Gt06ProtocolDecoder extends BaseProtocolDecoder {
                 timeZone.setRawOffset(offset);
             }
             
-            try {
-                deviceId = getDataManager().getDeviceByImei(imei).getId();
+            Long id = identify(channel, imeiKey, imei);
+            if (id != null) {
+                deviceId = id;
                 buf.skipBytes(buf.readableBytes() - 6);
                 sendResponse(channel, type, buf.readUnsignedShort());
-            } catch(Exception error) {
-                Log.warning("Unknown device - " + imei);
+            } else {
+                Log.warning("Unknown device - " + (imei != null ? imei : ImeiKey.toString(imeiKey)));
             }
             
         } else if (deviceId != null && (
@@ -146,10 +142,10 @@ public class Gt06ProtocolDecoder extends BaseProtocolDecoder {
 
             // Create new position
             Position position = new Position();
-            Device device = getDataManager().getDeviceById(deviceId);
-            if(device==null || !device.getImei().equals(imei)){
-                Log.warning("Device Id does not match with IMEI: "+deviceId + " : "+imei);
-                deviceId = getDataManager().getDeviceByImei(imei).getId();
+            Long id = identify(channel, imeiKey, imei);
+            if (id != null && !id.equals(deviceId)) {
+                Log.warning("Device Id does not match with IMEI: " + deviceId + " : " + (imei != null ? imei : ImeiKey.toString(imeiKey)));
+                deviceId = id;
             }
             position.setDeviceId(deviceId);
             ExtendedInfoFormatter extendedInfo = new ExtendedInfoFormatter(getProtocol());
@@ -247,7 +243,7 @@ public class Gt06ProtocolDecoder extends BaseProtocolDecoder {
             extendedInfo.set("index", index);
             sendResponse(channel, type, index);
 
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             return position;
         }
         
@@ -58,7 +58,7 @@ public class H02ProtocolDecoder extends BaseProtocolDecoder {
         return result;
     }
     
-    private Position decodeBinary(ChannelBuffer buf) {
+    private Position decodeBinary(Channel channel, ChannelBuffer buf) {
         
         // Create new position
         Position position = new Position();
@@ -69,7 +69,7 @@ public class H02ProtocolDecoder extends BaseProtocolDecoder {
         // Identification
         String id = ChannelBufferTools.readHexString(buf, 10);
         try {
-            position.setDeviceId(getDataManager().getDeviceByImei(id).getId());
+            position.setDeviceId(identify(channel, id).getId());
         } catch(Exception error) {
             Log.warning("Unknown device - " + id);
             return null;
@@ -105,7 +105,7 @@ public class H02ProtocolDecoder extends BaseProtocolDecoder {
         // Status
         extendedInfo.set("status", ChannelBufferTools.readHexString(buf, 8));
         
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         return position;
     }
 
@@ -126,7 +126,7 @@ public class H02ProtocolDecoder extends BaseProtocolDecoder {
             "(\\p{XDigit}{8})" +                // Status
             ".*");
     
-    private Position decodeText(String sentence) {
+    private Position decodeText(Channel channel, String sentence) {
 
         // Parse message
         Matcher parser = pattern.matcher(sentence);
@@ -143,7 +143,7 @@ public class H02ProtocolDecoder extends BaseProtocolDecoder {
         // Get device by IMEI
         String imei = parser.group(index++);
         try {
-            position.setDeviceId(getDataManager().getDeviceByImei(imei).getId());
+            position.setDeviceId(identify(channel, imei).getId());
         } catch(Exception error) {
             Log.warning("Unknown device - " + imei);
             return null;
@@ -194,7 +194,7 @@ public class H02ProtocolDecoder extends BaseProtocolDecoder {
         // Status
         extendedInfo.set("status", parser.group(index++));
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         return position;
     }
 
@@ -209,9 +209,9 @@ public class H02ProtocolDecoder extends BaseProtocolDecoder {
         // TODO X mode?
 
         if (marker.equals("*")) {
-            return decodeText(buf.toString(Charset.defaultCharset()));
+            return decodeText(channel, buf.toString(Charset.defaultCharset()));
         } else if (marker.equals("$")) {
-            return decodeBinary(buf);
+            return decodeBinary(channel, buf);
         }
 
         return null;
@@ -274,7 +274,7 @@ public class MegastekProtocolDecoder extends BaseProtocolDecoder {
             
         }
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         return position;
     }
 
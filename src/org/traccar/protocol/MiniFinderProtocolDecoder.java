@@ -117,7 +117,7 @@ public class MiniFinderProtocolDecoder extends BaseProtocolDecoder {
             // Satellites
             extendedInfo.set("satellites", parser.group(index++));
 
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             return position;
         }
 
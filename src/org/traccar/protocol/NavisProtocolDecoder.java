@@ -215,7 +215,7 @@ public class NavisProtocolDecoder extends BaseProtocolDecoder {
         }
 
         // Extended info
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
 
         return new ParseResult(index, position);
     }
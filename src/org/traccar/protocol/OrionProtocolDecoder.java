@@ -28,6 +28,7 @@ import org.jboss.netty.channel.ChannelHandlerContext;
 
 import org.traccar.BaseProtocolDecoder;
 import org.traccar.database.DataManager;
+import org.traccar.helper.ImeiKey;
 import org.traccar.helper.Log;
 import org.traccar.model.ExtendedInfoFormatter;
 import org.traccar.model.Position;
@@ -75,11 +76,9 @@ public class OrionProtocolDecoder extends BaseProtocolDecoder {
                 sendResponse(channel, buf);
             }
             
-            String id = String.valueOf(buf.readUnsignedInt());
-            long deviceId;
-            try {
-                deviceId = getDataManager().getDeviceByImei(id).getId();
-            } catch(Exception error) {
+            long id = buf.readUnsignedInt();
+            Long deviceId = identify(channel, ImeiKey.fromNumber(id, 0), null);
+            if (deviceId == null) {
                 Log.warning("Unknown device - " + id);
                 return null;
             }
@@ -121,7 +120,7 @@ public class OrionProtocolDecoder extends BaseProtocolDecoder {
                 extendedInfo.set("satellites", satellites);
                 position.setValid(satellites >= 3);
                 
-                position.setExtendedInfo(extendedInfo.toString());
+                position.setExtendedInfo(extendedInfo);
                 positions.add(position);
             }
             
@@ -109,7 +109,7 @@ public class Pt3000ProtocolDecoder extends BaseProtocolDecoder {
         // Altitude
         position.setAltitude(0.0);
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         return position;
     }
 
@@ -27,6 +27,7 @@ import org.jboss.netty.channel.ChannelHandlerContext;
 
 import org.traccar.BaseProtocolDecoder;
 import org.traccar.database.DataManager;
+import org.traccar.helper.ImeiKey;
 import org.traccar.helper.Log;
 import org.traccar.model.ExtendedInfoFormatter;
 import org.traccar.model.Position;
@@ -48,12 +49,12 @@ public class RuptelaProtocolDecoder extends BaseProtocolDecoder {
         buf.readUnsignedShort(); // data length
 
         // Identify device
-        String imei = String.format("%015d", buf.readLong());
-        long deviceId;
-        try {
-            deviceId = getDataManager().getDeviceByImei(imei).getId();
-        } catch(Exception error) {
-            Log.warning("Unknown device - " + imei);
+        long rawId = buf.readLong();
+        long imeiKey = ImeiKey.fromNumber(rawId, 15);
+        String imei = imeiKey == ImeiKey.INVALID ? String.format("%015d", rawId) : null;
+        Long deviceId = identify(channel, imeiKey, imei);
+        if (deviceId == null) {
+            Log.warning("Unknown device - " + (imei != null ? imei : ImeiKey.toString(imeiKey)));
             return null;
         }
         
@@ -117,7 +118,7 @@ public class RuptelaProtocolDecoder extends BaseProtocolDecoder {
                     extendedInfo.set("io" + buf.readUnsignedByte(), buf.readLong());
                 }
 
-                position.setExtendedInfo(extendedInfo.toString());
+                position.setExtendedInfo(extendedInfo);
                 positions.add(position);
             }
 
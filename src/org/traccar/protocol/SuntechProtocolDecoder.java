@@ -110,7 +110,7 @@ public class SuntechProtocolDecoder extends BaseProtocolDecoder {
         position.setAltitude(0.0);
 
         // Extended info
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
 
         return position;
     }
@@ -110,7 +110,7 @@ public class TelikProtocolDecoder extends BaseProtocolDecoder {
         extendedInfo.set("satellites", parser.group(index++));
 
         // Extended info
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
 
         return position;
     }
@@ -16,6 +16,7 @@
 package org.traccar.protocol;
 
 import java.nio.charset.Charset;
+import java.sql.SQLException;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
@@ -28,6 +29,7 @@ import org.jboss.netty.channel.ChannelHandlerContext;
 
 import org.traccar.BaseProtocolDecoder;
 import org.traccar.database.DataManager;
+import org.traccar.helper.ImeiKey;
 import org.traccar.helper.Log;
 import org.traccar.model.ExtendedInfoFormatter;
 import org.traccar.model.Position;
@@ -40,16 +42,19 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
         super(dataManager, protocol, properties);
     }
 
-    private void parseIdentification(Channel channel, ChannelBuffer buf) {
+    private void parseIdentification(Channel channel, ChannelBuffer buf) throws SQLException {
         boolean result = false;
 
         int length = buf.readUnsignedShort();
-        String imei = buf.toString(buf.readerIndex(), length, Charset.defaultCharset());
-        try {
-            deviceId = getDataManager().getDeviceByImei(imei).getId();
+        long imeiKey = ImeiKey.fromAscii(buf, buf.readerIndex(), length);
+        String imei = imeiKey == ImeiKey.INVALID
+                ? buf.toString(buf.readerIndex(), length, Charset.defaultCharset()) : null;
+        Long id = identify(channel, imeiKey, imei);
+        if (id != null) {
+            deviceId = id;
             result = true;
-        } catch(Exception error) {
-            Log.warning("Unknown device - " + imei);
+        } else {
+            Log.warning("Unknown device - " + buf.toString(buf.readerIndex(), length, Charset.defaultCharset()));
         }
         
         if (channel != null) {
@@ -201,7 +206,7 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
                 }
             }
         
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             positions.add(position);
         }
         
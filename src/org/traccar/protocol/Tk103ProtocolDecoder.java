@@ -131,18 +131,14 @@ public class Tk103ProtocolDecoder extends BaseProtocolDecoder {
         System.out.println(extendedInfo.toString());
     }
 
-    private boolean setImei(Parser parser, Position position){
+    private boolean setImei(Channel channel, Parser parser, Position position){
         String imei = parser.next();
         try {
-            position.setDeviceId(getDataManager().getDeviceByImei(imei).getId());
+            // Compatibility mode with "000" prefix (remove in future)
+            position.setDeviceId(identify(channel, imei, "000" + imei).getId());
         } catch(Exception error) {
-            // Compatibility mode (remove in future)
-            try {
-                position.setDeviceId(getDataManager().getDeviceByImei("000" + imei).getId());
-            } catch(Exception error2) {
-                Log.warning("Unknown device - " + imei);
-                return false;
-            }
+            Log.warning("Unknown device - " + imei);
+            return false;
         }
         return true;
     }
@@ -181,7 +177,7 @@ public class Tk103ProtocolDecoder extends BaseProtocolDecoder {
                 extendedInfo.set("mileage", parser.nextLong(16));
         }
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
 
     }
 
@@ -220,7 +216,7 @@ public class Tk103ProtocolDecoder extends BaseProtocolDecoder {
         Parser parser = new Parser(PATTERN_BATTERY, sentence);
         if (parser.matches()) {
             // Get device by IMEI
-            if(!setImei(parser, position))
+            if(!setImei(channel, parser, position))
                 return null;
 
             DateBuilder dateBuilder = new DateBuilder()
@@ -239,13 +235,13 @@ public class Tk103ProtocolDecoder extends BaseProtocolDecoder {
                 extendedInfo.set("power", battery);
             }
 
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             return position;
         }
 
         parser = new Parser(PATTERN_NETWORK, sentence);
         if (parser.matches()) {
-            if(!setImei(parser, position))
+            if(!setImei(channel, parser, position))
                 return null;
 
             getLastLocation(position, null);
@@ -260,7 +256,7 @@ public class Tk103ProtocolDecoder extends BaseProtocolDecoder {
 
         parser = new Parser(PATTERN_ALARM, sentence);
         if(parser.matches()){
-            if(!setImei(parser, position))
+            if(!setImei(channel, parser, position))
                 return null;
             String alarm = parser.next();
             int alarmType = parser.nextInt();
@@ -298,7 +294,7 @@ public class Tk103ProtocolDecoder extends BaseProtocolDecoder {
         parser = new Parser(PATTERN_OBD, sentence);
         if(parser.matches()){
             Log.warning("OBD packet match :: "+sentence);
-            if(!setImei(parser, position))
+            if(!setImei(channel, parser, position))
                 return null;
             String command = parser.next();
 
@@ -318,7 +314,7 @@ public class Tk103ProtocolDecoder extends BaseProtocolDecoder {
                 extendedInfo.set("charge", !BitUtil.check(value, 0));
                 extendedInfo.set("ignition", BitUtil.check(value, 1));
             }
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             return position;
         }
 
@@ -333,7 +329,7 @@ public class Tk103ProtocolDecoder extends BaseProtocolDecoder {
             }
         }
 
-        if(!setImei(parser, position))
+        if(!setImei(channel, parser, position))
             return null;
 
         int alarm = sentence.indexOf("BO01");
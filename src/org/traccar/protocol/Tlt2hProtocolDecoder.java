@@ -153,7 +153,7 @@ public class Tlt2hProtocolDecoder extends BaseProtocolDecoder {
                 // Status
                 extendedInfo.set("status", status);
                 
-                position.setExtendedInfo(extendedInfo.toString());
+                position.setExtendedInfo(extendedInfo);
                 positions.add(position);
             }
         }
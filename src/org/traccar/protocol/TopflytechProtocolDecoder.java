@@ -114,7 +114,7 @@ public class TopflytechProtocolDecoder extends BaseProtocolDecoder {
         // Altitude
         position.setAltitude(0.0);
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         return position;
     }
 
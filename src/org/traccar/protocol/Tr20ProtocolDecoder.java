@@ -131,7 +131,7 @@ public class Tr20ProtocolDecoder extends BaseProtocolDecoder {
             position.setAltitude(0.0);
 
             // Extended info
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
 
             return position;
         }
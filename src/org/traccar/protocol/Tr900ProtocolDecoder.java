@@ -129,7 +129,7 @@ public class Tr900ProtocolDecoder extends BaseProtocolDecoder {
         extendedInfo.set("input", parser.group(index++));
         extendedInfo.set("status", parser.group(index++));
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         return position;
     }
 
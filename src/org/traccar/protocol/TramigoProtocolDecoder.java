@@ -104,7 +104,7 @@ public class TramigoProtocolDecoder extends BaseProtocolDecoder {
 
             // TODO: parse other data
 
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             return position;
 
         } else if (protocol == 0x80) {
@@ -145,7 +145,7 @@ public class TramigoProtocolDecoder extends BaseProtocolDecoder {
             DateFormat dateFormat = new SimpleDateFormat("HH:mm MMM d yyyy");
             position.setTime(dateFormat.parse(matcher.group(1) + " " + Calendar.getInstance().get(Calendar.YEAR)));
 
-            position.setExtendedInfo(extendedInfo.toString());
+            position.setExtendedInfo(extendedInfo);
             return position;
 
         }
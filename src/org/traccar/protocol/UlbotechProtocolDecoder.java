@@ -20,7 +20,7 @@ import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.traccar.BaseProtocolDecoder;
 import org.traccar.database.DataManager;
-import org.traccar.helper.ChannelBufferTools;
+import org.traccar.helper.ImeiKey;
 import org.traccar.helper.Log;
 import org.traccar.model.ExtendedInfoFormatter;
 import org.traccar.model.Position;
@@ -62,11 +62,14 @@ public class UlbotechProtocolDecoder extends BaseProtocolDecoder {
         ExtendedInfoFormatter extendedInfo = new ExtendedInfoFormatter(getProtocol());
 
         // Get device id
-        String imei = ChannelBufferTools.readHexString(buf, 16).substring(1);
-        try {
-            position.setDeviceId(getDataManager().getDeviceByImei(imei).getId());
-        } catch(Exception error) {
-            Log.warning("Unknown device - " + imei);
+        long imeiKey = ImeiKey.fromBcd(buf, buf.readerIndex(), 8, 1);
+        String imei = imeiKey == ImeiKey.INVALID ? ImeiKey.bcdString(buf, buf.readerIndex(), 8, 1) : null;
+        buf.skipBytes(8);
+        Long id = identify(channel, imeiKey, imei);
+        if (id != null) {
+            position.setDeviceId(id);
+        } else {
+            Log.warning("Unknown device - " + (imei != null ? imei : ImeiKey.toString(imeiKey)));
         }
 
         // Time
@@ -100,7 +103,7 @@ public class UlbotechProtocolDecoder extends BaseProtocolDecoder {
             }
         }
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         return position;
     }
 
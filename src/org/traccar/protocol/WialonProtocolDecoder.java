@@ -136,7 +136,7 @@ public class WialonProtocolDecoder extends BaseProtocolDecoder {
         }
 
         // Extended info
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
 
         return position;
     }
@@ -111,7 +111,7 @@ public class Xt013ProtocolDecoder extends BaseProtocolDecoder {
         extendedInfo.set("battery", parser.group(index++));
         extendedInfo.set("charging", parser.group(index++));
 
-        position.setExtendedInfo(extendedInfo.toString());
+        position.setExtendedInfo(extendedInfo);
         return position;
     }
 
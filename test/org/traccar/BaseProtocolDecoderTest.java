@@ -0,0 +1,79 @@
+package org.traccar;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.local.DefaultLocalClientChannelFactory;
+import org.junit.Test;
+import org.traccar.database.DataManager;
+import org.traccar.model.Device;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BaseProtocolDecoderTest {
+
+    private static class CountingDataManager extends DataManager {
+
+        private int lookups;
+
+        CountingDataManager() throws Exception {
+            super(null);
+        }
+
+        @Override
+        public Device getDeviceByImei(String imei) {
+            lookups += 1;
+            if (!imei.startsWith("000")) {
+                return null;
+            }
+            Device device = new Device();
+            device.setId(Long.valueOf(imei));
+            device.setImei(imei);
+            return device;
+        }
+    }
+
+    private static class TestDecoder extends BaseProtocolDecoder {
+
+        TestDecoder(DataManager dataManager) {
+            super(dataManager, null, null);
+        }
+    }
+
+    @Test
+    public void testIdentify() throws Exception {
+        CountingDataManager dataManager = new CountingDataManager();
+        TestDecoder decoder = new TestDecoder(dataManager);
+        Channel channel = new DefaultLocalClientChannelFactory().newChannel(Channels.pipeline());
+
+        assertEquals(Long.valueOf(123), decoder.identify(channel, "123", "000123").getId());
+        assertEquals(2, dataManager.lookups);
+
+        // Same connection and identifier, no lookup
+        assertEquals(Long.valueOf(123), decoder.identify(channel, "123", "000123").getId());
+        assertEquals(2, dataManager.lookups);
+
+        assertEquals(Long.valueOf(456), decoder.identify(channel, "000456").getId());
+        assertEquals(3, dataManager.lookups);
+
+        // Changes of other devices keep the binding
+        dataManager.getDeviceRegistry().refresh(System.currentTimeMillis());
+        dataManager.invalidateDevices(Collections.singleton(123L), Collections.<String>emptySet());
+        assertEquals(Long.valueOf(456), decoder.identify(channel, "000456").getId());
+        assertEquals(3, dataManager.lookups);
+
+        // Invalidation of the bound device drops the binding
+        dataManager.invalidateDevices(Collections.singleton(456L), Collections.<String>emptySet());
+        assertEquals(Long.valueOf(456), decoder.identify(channel, "000456").getId());
+        assertEquals(4, dataManager.lookups);
+
+        // Without a channel every message is resolved
+        assertNull(decoder.identify(null, "789"));
+        assertEquals(5, dataManager.lookups);
+
+        channel.close();
+    }
+
+}
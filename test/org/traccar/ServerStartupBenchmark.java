@@ -0,0 +1,64 @@
+package org.traccar;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Time server initialization and port binding with every protocol from the configuration enabled
+ *
+ * Arguments: configuration file, default.cfg by default. Database is replaced with an in-memory one.
+ */
+public class ServerStartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Properties properties = new Properties();
+        InputStream input = new FileInputStream(args.length > 0 ? args[0] : "default.cfg");
+        try {
+            properties.loadFromXML(input);
+        } finally {
+            input.close();
+        }
+
+        int protocols = 0;
+        for (String key : properties.stringPropertyNames()) {
+            if (key.endsWith(".port")) {
+                properties.setProperty(key.substring(0, key.length() - ".port".length()) + ".enable", "true");
+                protocols += 1;
+            }
+        }
+        properties.setProperty("database.url", "jdbc:h2:mem:benchmark");
+        properties.setProperty("http.enable", "false");
+        properties.setProperty("logger.enable", "false");
+
+        File file = File.createTempFile("benchmark", ".cfg");
+        try {
+            OutputStream output = new FileOutputStream(file);
+            try {
+                properties.storeToXML(output, null);
+            } finally {
+                output.close();
+            }
+
+            long start = System.currentTimeMillis();
+            ServerManager serverManager = new ServerManager();
+            serverManager.init(new String[] {file.getPath()});
+            serverManager.start();
+            long total = System.currentTimeMillis() - start;
+
+            System.out.println(protocols + " protocols started in " + total + " ms");
+            for (Map.Entry<String, Long> entry : serverManager.getStartupTimings().entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue() + " ms");
+            }
+
+            serverManager.stop();
+        } finally {
+            file.delete();
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.traccar;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WorkerMetricsTest {
+
+    @Test
+    public void testReport() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        Thread thread = WorkerMetrics.createThreadFactory("test-worker").newThread(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    finished.await();
+                } catch (InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        started.await();
+
+        String report = WorkerMetrics.report();
+        assertTrue(report.contains("test-worker-1 channels=0 reads=0"));
+
+        finished.countDown();
+        thread.join();
+        assertFalse(WorkerMetrics.report().contains("test-worker-1"));
+    }
+
+}
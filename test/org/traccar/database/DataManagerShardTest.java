@@ -0,0 +1,166 @@
+package org.traccar.database;
+
+import org.junit.Test;
+import org.traccar.model.Position;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DataManagerShardTest {
+
+    private static final int SHARDS = 3;
+
+    private static String getUrl(String name, int index) {
+        return "jdbc:h2:mem:" + name + index + ";DB_CLOSE_DELAY=-1";
+    }
+
+    private static Properties createProperties(String name) {
+        Properties properties = new Properties();
+        properties.setProperty("database.driver", "org.h2.Driver");
+        properties.setProperty("database.url", getUrl(name, 0));
+        properties.setProperty("database.user", "sa");
+        properties.setProperty("database.password", "");
+        for (int i = 1; i < SHARDS; i++) {
+            properties.setProperty("database.shard." + i + ".url", getUrl(name, i));
+            properties.setProperty("database.shard." + i + ".user", "sa");
+            properties.setProperty("database.shard." + i + ".password", "");
+        }
+        properties.setProperty("database.selectDevice", "SELECT id, imei FROM devices;");
+        properties.setProperty("database.insertPosition",
+                "INSERT INTO positions (device_id, time, latitude, longitude) "
+                + "VALUES (:device_id, :time, :latitude, :longitude);");
+        return properties;
+    }
+
+    private static void execute(DataManager dataManager, int shard, String sql) throws SQLException {
+        Connection connection = dataManager.getShardDataSource(shard).getConnection();
+        try {
+            Statement statement = connection.createStatement();
+            statement.execute(sql);
+            statement.close();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void createTables(DataManager dataManager, int shard) throws SQLException {
+        execute(dataManager, shard, "CREATE TABLE devices (id BIGINT PRIMARY KEY, imei VARCHAR(32))");
+        execute(dataManager, shard, "CREATE TABLE positions (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "device_id BIGINT, time TIMESTAMP, latitude DOUBLE, longitude DOUBLE)");
+    }
+
+    private static Position createPosition(long deviceId) {
+        Position position = new Position();
+        position.setDeviceId(deviceId);
+        position.setTime(new Date());
+        position.setLatitude(1.0);
+        position.setLongitude(2.0);
+        return position;
+    }
+
+    private static int count(DataManager dataManager, int shard) throws SQLException {
+        Connection connection = dataManager.getShardDataSource(shard).getConnection();
+        try {
+            Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM positions");
+            resultSet.next();
+            int result = resultSet.getInt(1);
+            statement.close();
+            return result;
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testRouting() throws Exception {
+        DataManager dataManager = new DataManager(createProperties("shard"));
+        assertEquals(SHARDS, dataManager.getShardCount());
+
+        for (int i = 0; i < SHARDS; i++) {
+            createTables(dataManager, i);
+        }
+
+        int[] expected = new int[SHARDS];
+        List<Position> positions = new ArrayList<Position>();
+        for (long deviceId = 1; deviceId <= 10; deviceId++) {
+            int shard = dataManager.getShardIndex(deviceId);
+            execute(dataManager, shard, "INSERT INTO devices VALUES (" + deviceId + ", '" + deviceId + "')");
+            positions.add(createPosition(deviceId));
+            expected[shard] += 1;
+        }
+
+        assertEquals(10, dataManager.getDevices().size());
+
+        dataManager.addPositions(positions);
+        for (int i = 0; i < SHARDS; i++) {
+            assertEquals(expected[i], count(dataManager, i));
+        }
+
+        dataManager.addPosition(positions.get(0));
+        assertEquals(expected[dataManager.getShardIndex(1L)] + 1, count(dataManager, dataManager.getShardIndex(1L)));
+    }
+
+    private static void awaitCount(DataManager dataManager, int shard, int expected) throws Exception {
+        for (int i = 0; i < 100 && count(dataManager, shard) < expected; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(expected, count(dataManager, shard));
+    }
+
+    @Test
+    public void testReplayWithFailedShard() throws Exception {
+        File directory = File.createTempFile("spool", "");
+        assertTrue(directory.delete());
+
+        Properties properties = createProperties("replay");
+        properties.setProperty("database.spool.path", directory.getPath());
+        properties.setProperty("database.spool.batchSize", "4");
+        properties.setProperty("database.spool.retryDelay", "50");
+        DataManager dataManager = new DataManager(properties);
+
+        // Last shard has no positions table until it comes back
+        int failed = SHARDS - 1;
+        for (int i = 0; i < failed; i++) {
+            createTables(dataManager, i);
+        }
+
+        int[] expected = new int[SHARDS];
+        for (long deviceId = 1; deviceId <= 20; deviceId++) {
+            assertTrue(dataManager.spoolPosition(createPosition(deviceId)));
+            expected[dataManager.getShardIndex(deviceId)] += 1;
+        }
+        assertTrue(expected[failed] > 0);
+
+        for (int i = 0; i < failed; i++) {
+            awaitCount(dataManager, i, expected[i]);
+        }
+        Thread.sleep(200);
+        for (int i = 0; i < failed; i++) {
+            assertEquals(expected[i], count(dataManager, i));
+        }
+        for (long deviceId = 1; deviceId <= 20; deviceId++) {
+            assertEquals(dataManager.getShardIndex(deviceId) == failed, dataManager.isSpoolPending(deviceId));
+        }
+
+        createTables(dataManager, failed);
+        awaitCount(dataManager, failed, expected[failed]);
+        Thread.sleep(200);
+        for (int i = 0; i < SHARDS; i++) {
+            assertEquals(expected[i], count(dataManager, i));
+        }
+
+        dataManager.stop();
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.traccar.database;
+
+import org.traccar.model.Device;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Heap used per device by the former pair of hash maps and by the columnar index, lookups are timed after warm-up
+ *
+ * Arguments: device count, 1000000 by default. Run with enough heap, for example -Xmx2g.
+ */
+public class DeviceIndexBenchmark {
+
+    private static Device createDevice(long i) {
+        Device device = new Device();
+        device.setId(i);
+        device.setImei(String.valueOf(350000000000000L + i));
+        device.setUniqueId("rider" + i);
+        device.setSnsTopicName("topic" + i % 20);
+        device.setExternalId(String.valueOf(i));
+        device.setResId(String.valueOf(i % 1000));
+        return device;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException error) {
+                break;
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static void report(String name, long bytes, int count, long lookupTime) {
+        System.out.println(name + ": " + bytes / count + " bytes per device, "
+                + lookupTime / count + " ns per lookup");
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        // Messages arrive from devices in no particular order
+        String[] keys = new String[count];
+        Random random = new Random(1);
+        for (int i = 0; i < count; i++) {
+            keys[i] = String.valueOf(350000000000000L + random.nextInt(count));
+        }
+
+        long base = usedMemory();
+        Map<String, Device> devices = new HashMap<String, Device>();
+        Map<Long, Device> deviceIdMap = new HashMap<Long, Device>();
+        for (long i = 0; i < count; i++) {
+            Device device = createDevice(i);
+            devices.put(device.getImei(), device);
+            deviceIdMap.put(device.getId(), device);
+        }
+        long mapsBytes = usedMemory() - base;
+        long start = 0;
+        for (int round = 0; round < 2; round++) {
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                devices.get(keys[i]);
+            }
+        }
+        report("HashMap", mapsBytes, count, System.nanoTime() - start);
+        devices = null;
+        deviceIdMap = null;
+
+        base = usedMemory();
+        DeviceIndex.Builder builder = new DeviceIndex.Builder();
+        for (long i = 0; i < count; i++) {
+            builder.add(createDevice(i));
+        }
+        DeviceIndex index = builder.build();
+        builder = null;
+        long indexBytes = usedMemory() - base;
+        for (int round = 0; round < 2; round++) {
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                index.getByImei(keys[i]);
+            }
+        }
+        report("DeviceIndex", indexBytes, count, System.nanoTime() - start);
+        System.out.println("Devices in index: " + index.size());
+    }
+
+}
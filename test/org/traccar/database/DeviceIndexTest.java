@@ -0,0 +1,98 @@
+package org.traccar.database;
+
+import org.junit.Test;
+import org.traccar.helper.ImeiKey;
+import org.traccar.model.Device;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DeviceIndexTest {
+
+    private static Device createDevice(long id, String imei, String resId) {
+        Device device = new Device();
+        device.setId(id);
+        device.setImei(imei);
+        device.setResId(resId);
+        return device;
+    }
+
+    @Test
+    public void testLookup() {
+        DeviceIndex.Builder builder = new DeviceIndex.Builder();
+        for (long i = 1; i <= 5000; i++) {
+            builder.add(createDevice(i, String.valueOf(350000000000000L + i), "outlet" + i % 10));
+        }
+        builder.add(createDevice(6000, "0123", null));
+        builder.add(createDevice(7000, "ABC-1", null));
+        DeviceIndex index = builder.build();
+
+        assertEquals(5002, index.size());
+        assertEquals(Long.valueOf(1234), index.getByImei("350000000001234").getId());
+        assertEquals("outlet4", index.getByImei("350000000001234").getResId());
+        assertEquals("350000000004321", index.getById(4321L).getImei());
+        assertEquals(Long.valueOf(6000), index.getByImei("0123").getId());
+        assertNull(index.getByImei("123"));
+        assertEquals("0123", index.getById(6000L).getImei());
+        assertEquals(Long.valueOf(7000), index.getByImei("ABC-1").getId());
+        assertEquals("ABC-1", index.getById(7000L).getImei());
+        assertNull(index.getByImei("350000000009999"));
+        assertEquals(Long.valueOf(4321), index.getIdByImeiKey(ImeiKey.fromString("350000000004321")));
+        assertNull(index.getIdByImeiKey(ImeiKey.fromString("0350000000004321")));
+        assertNull(index.getById(9999L));
+    }
+
+    @Test
+    public void testReplace() {
+        DeviceIndex index = new DeviceIndex.Builder()
+                .add(createDevice(1, "111", null))
+                .add(createDevice(2, "222", null))
+                .build();
+
+        index = new DeviceIndex.Builder()
+                .addAll(index, Collections.singleton(2L))
+                .add(createDevice(2, "333", null))
+                .build();
+
+        assertEquals(2, index.size());
+        assertNull(index.getByImei("222"));
+        assertEquals(Long.valueOf(2), index.getByImei("333").getId());
+        assertEquals("111", index.getById(1L).getImei());
+
+        index = new DeviceIndex.Builder()
+                .add(createDevice(1, "111", null))
+                .add(createDevice(1, "444", null))
+                .build();
+        assertEquals(1, index.size());
+        assertNull(index.getByImei("111"));
+        assertEquals("444", index.getById(1L).getImei());
+    }
+
+    @Test
+    public void testCopy() {
+        DeviceIndex index = new DeviceIndex.Builder()
+                .add(createDevice(1, "111", "outlet"))
+                .add(createDevice(1, "444", "outlet"))
+                .add(createDevice(2, "ABC-1", null))
+                .add(createDevice(3, "0333", "outlet"))
+                .build();
+
+        index = new DeviceIndex.Builder()
+                .addAll(index, new HashSet<Long>(Arrays.asList(3L, 4L)))
+                .add(createDevice(5, "555", "other"))
+                .build();
+
+        assertEquals(3, index.size());
+        assertEquals(3, index.getDevices().size());
+        assertNull(index.getByImei("111"));
+        assertNull(index.getByImei("0333"));
+        assertEquals("outlet", index.getByImei("444").getResId());
+        assertEquals(Long.valueOf(2), index.getByImei("ABC-1").getId());
+        assertEquals("other", index.getById(5L).getResId());
+    }
+
+}
@@ -0,0 +1,137 @@
+package org.traccar.database;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class DeviceInvalidationTest {
+
+    private static class RecordingDataManager extends DataManager {
+
+        private final Set<Long> ids = new HashSet<Long>();
+        private final Set<String> imeis = new HashSet<String>();
+        private int all;
+
+        RecordingDataManager() throws Exception {
+            super(null);
+        }
+
+        @Override
+        public synchronized void invalidateDevices(Set<Long> ids, Set<String> imeis) {
+            this.ids.addAll(ids);
+            this.imeis.addAll(imeis);
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void invalidateAllDevices() {
+            all += 1;
+            notifyAll();
+        }
+
+        synchronized void await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (ids.size() + imeis.size() + all < count && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+        }
+    }
+
+    @Test
+    public void testMessage() throws Exception {
+        RecordingDataManager dataManager = new RecordingDataManager();
+        DeviceInvalidation invalidation = new DeviceInvalidation(dataManager);
+
+        invalidation.handleMessage("id:1, id:2 imei:123456789012345;imei:000123");
+        assertEquals(new HashSet<Long>(Arrays.asList(1L, 2L)), dataManager.ids);
+        assertEquals(new HashSet<String>(Arrays.asList("123456789012345", "000123")), dataManager.imeis);
+        assertEquals(0, dataManager.all);
+
+        invalidation.handleMessage("Clear devices cache");
+        invalidation.handleMessage("id:3 all");
+        assertEquals(2, dataManager.all);
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        assertEquals("id:1 imei:123 ", HttpInvalidationTransport.parseQuery("id=1&imei=123"));
+        assertEquals("all ", HttpInvalidationTransport.parseQuery("all"));
+    }
+
+    @Test
+    public void testUdp() throws Exception {
+        RecordingDataManager dataManager = new RecordingDataManager();
+        DeviceInvalidation invalidation = new DeviceInvalidation(dataManager);
+        UdpInvalidationTransport transport = new UdpInvalidationTransport("127.0.0.1", 0);
+        invalidation.addTransport(transport);
+
+        byte[] data = "id:5".getBytes("UTF-8");
+        DatagramSocket socket = new DatagramSocket();
+        socket.send(new DatagramPacket(data, data.length, InetAddress.getByName("127.0.0.1"), transport.getLocalPort()));
+        socket.close();
+
+        dataManager.await(1);
+        invalidation.stop();
+        assertEquals(Collections.singleton(5L), dataManager.ids);
+    }
+
+    @Test
+    public void testHttp() throws Exception {
+        RecordingDataManager dataManager = new RecordingDataManager();
+        DeviceInvalidation invalidation = new DeviceInvalidation(dataManager);
+        HttpInvalidationTransport transport = new HttpInvalidationTransport("127.0.0.1", 0);
+        invalidation.addTransport(transport);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(
+                "http://127.0.0.1:" + transport.getLocalPort() + "/invalidate?imei=123456789012345").openConnection();
+        assertEquals(200, connection.getResponseCode());
+        InputStream input = connection.getInputStream();
+        input.close();
+
+        invalidation.stop();
+        assertEquals(Collections.singleton("123456789012345"), dataManager.imeis);
+    }
+
+    @Test
+    public void testFile() throws Exception {
+        RecordingDataManager dataManager = new RecordingDataManager();
+        DeviceInvalidation invalidation = new DeviceInvalidation(dataManager);
+        File file = File.createTempFile("invalidation", ".txt");
+        try {
+            FileWriter writer = new FileWriter(file);
+            writer.write("id:1\n");
+            writer.close();
+
+            FileInvalidationTransport transport = new FileInvalidationTransport(file, 10);
+            invalidation.addTransport(transport);
+
+            Writer appender = new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8");
+            appender.write("id:2 imei:\u00fcnit-7\nid:3");
+            appender.close();
+
+            dataManager.await(1);
+            invalidation.stop();
+            assertEquals(Collections.singleton(2L), dataManager.ids);
+            assertEquals(Collections.singleton("\u00fcnit-7"), dataManager.imeis);
+        } finally {
+            file.delete();
+        }
+    }
+
+}
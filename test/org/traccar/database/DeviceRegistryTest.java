@@ -0,0 +1,181 @@
+package org.traccar.database;
+
+import org.junit.Test;
+import org.traccar.model.Device;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DeviceRegistryTest {
+
+    private static class RecordingDataManager extends DataManager {
+
+        private final List<Device> devices = new ArrayList<Device>();
+        private final List<Device> changes = new ArrayList<Device>();
+        private boolean changesSupported = true;
+        private int fullLoads;
+        private int changeLoads;
+
+        RecordingDataManager() throws Exception {
+            super(null);
+        }
+
+        @Override
+        void loadDevices(DeviceIndex.Builder builder) throws SQLException {
+            fullLoads += 1;
+            for (Device device : devices) {
+                builder.add(device);
+            }
+        }
+
+        @Override
+        boolean loadDevices(Set<Long> ids, List<Device> result) throws SQLException {
+            for (Device device : devices) {
+                if (ids.contains(device.getId())) {
+                    result.add(device);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        boolean loadChangedDevices(Date since, List<Device> result) throws SQLException {
+            if (!changesSupported) {
+                return false;
+            }
+            changeLoads += 1;
+            result.addAll(changes);
+            return true;
+        }
+    }
+
+    private static Device createDevice(long id, String imei) {
+        Device device = new Device();
+        device.setId(id);
+        device.setImei(imei);
+        return device;
+    }
+
+    @Test
+    public void testIncremental() throws Exception {
+        RecordingDataManager dataManager = new RecordingDataManager();
+        DeviceRegistry registry = new DeviceRegistry(dataManager, 60000, 3600000);
+
+        dataManager.devices.add(createDevice(1, "111"));
+        dataManager.devices.add(createDevice(2, "222"));
+        registry.refresh(System.currentTimeMillis());
+        assertEquals(1, dataManager.fullLoads);
+        assertEquals(2, registry.size());
+
+        dataManager.changes.add(createDevice(2, "333"));
+        dataManager.changes.add(createDevice(3, "444"));
+        registry.refresh(registry.getLastRefresh());
+        assertEquals(1, dataManager.fullLoads);
+        assertEquals(1, dataManager.changeLoads);
+
+        assertEquals(3, registry.size());
+        assertNull(registry.getByImei("222"));
+        assertEquals(Long.valueOf(2), registry.getByImei("333").getId());
+        assertEquals("333", registry.getById(2L).getImei());
+
+        // Refresh requested before the last one started is skipped
+        registry.refresh(registry.getLastRefresh() - 1);
+        assertEquals(1, dataManager.changeLoads);
+
+        registry.invalidate();
+        registry.refresh(registry.getLastRefresh());
+        assertEquals(2, dataManager.fullLoads);
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        RecordingDataManager dataManager = new RecordingDataManager();
+        DeviceRegistry registry = new DeviceRegistry(dataManager, 60000, 3600000);
+
+        dataManager.devices.add(createDevice(1, "111"));
+        dataManager.devices.add(createDevice(2, "222"));
+        dataManager.devices.add(createDevice(3, "333"));
+        registry.refresh(System.currentTimeMillis());
+
+        dataManager.devices.clear();
+        dataManager.devices.add(createDevice(1, "444"));
+        Set<Long> ids = new HashSet<Long>();
+        ids.add(1L);
+        ids.add(2L);
+        registry.reload(ids);
+
+        assertEquals(1, dataManager.fullLoads);
+        assertEquals(2, registry.size());
+        assertEquals(Long.valueOf(1), registry.getByImei("444").getId());
+        assertNull(registry.getByImei("111"));
+        assertNull(registry.getById(2L));
+        assertEquals("333", registry.getById(3L).getImei());
+    }
+
+    @Test
+    public void testFullOnly() throws Exception {
+        RecordingDataManager dataManager = new RecordingDataManager();
+        dataManager.changesSupported = false;
+        DeviceRegistry registry = new DeviceRegistry(dataManager, 60000, 3600000);
+
+        registry.refresh(System.currentTimeMillis());
+        dataManager.devices.add(createDevice(1, "111"));
+        registry.refresh(registry.getLastRefresh());
+
+        assertEquals(2, dataManager.fullLoads);
+        assertEquals(Long.valueOf(1), registry.getByImei("111").getId());
+    }
+
+    @Test
+    public void testReady() throws Exception {
+        RecordingDataManager dataManager = new RecordingDataManager();
+        DeviceRegistry registry = new DeviceRegistry(dataManager, 60000, 3600000);
+
+        assertFalse(registry.isReady());
+        assertFalse(registry.awaitReady(10));
+
+        registry.start();
+        assertTrue(registry.awaitReady(5000));
+        registry.stop();
+        assertEquals(1, dataManager.fullLoads);
+    }
+
+    @Test
+    public void testGenerations() throws Exception {
+        RecordingDataManager dataManager = new RecordingDataManager();
+        dataManager.changesSupported = false;
+        DeviceRegistry registry = new DeviceRegistry(dataManager, 60000, 3600000);
+
+        dataManager.devices.add(createDevice(1, "111"));
+        dataManager.devices.add(createDevice(2, "222"));
+        registry.refresh(System.currentTimeMillis());
+        long version = registry.getVersion();
+
+        // Full reload only marks the modified device
+        dataManager.devices.set(1, createDevice(2, "333"));
+        dataManager.devices.add(createDevice(3, "444"));
+        registry.refresh(registry.getLastRefresh());
+        assertTrue(registry.getGeneration(1L) <= version);
+        assertTrue(registry.getGeneration(2L) > version);
+        assertTrue(registry.getGeneration(3L) <= version);
+
+        version = registry.getVersion();
+        dataManager.devices.remove(0);
+        registry.reload(Collections.singleton(1L));
+        assertTrue(registry.getGeneration(1L) > version);
+        assertTrue(registry.getGeneration(2L) <= version);
+        assertTrue(registry.getGeneration(3L) <= version);
+    }
+
+}
@@ -0,0 +1,69 @@
+package org.traccar.database;
+
+import org.junit.Test;
+import org.traccar.model.Position;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DeviceStateStoreTest {
+
+    private static Position createPosition(long deviceId, long time, double latitude) {
+        Position position = new Position();
+        position.setDeviceId(deviceId);
+        position.restoreTime(new Date(time), new Date(time - 1000));
+        position.setValid(true);
+        position.setLatitude(latitude);
+        position.setLongitude(20.0);
+        position.setCourse(90.0);
+        return position;
+    }
+
+    @Test
+    public void testUpdate() {
+        DeviceStateStore store = new DeviceStateStore(100, 60000);
+        long now = System.currentTimeMillis();
+
+        Position position = createPosition(1, now, 10.0);
+        position.setDatabaseId(5L);
+        store.update(position);
+
+        DeviceStateStore.State state = store.get(1L);
+        assertNotNull(state);
+        assertEquals(now, state.getTime());
+        assertEquals(Long.valueOf(5), state.getDatabaseId());
+        assertNull(store.get(2L));
+
+        // Older positions do not replace newer state
+        store.update(createPosition(1, now - 5000, 30.0));
+        assertEquals(10.0, store.get(1L).getLatitude(), 0.0);
+
+        Position copy = new Position();
+        store.get(1L).copyTo(copy);
+        assertEquals(new Date(now - 1000), copy.getStartTime());
+        assertEquals(true, copy.getValid());
+        assertEquals(20.0, copy.getLongitude(), 0.0);
+        assertNull(copy.getAltitude());
+        assertEquals(90.0, copy.getCourse(), 0.0);
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        DeviceStateStore store = new DeviceStateStore(16, 60000);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 1000; i++) {
+            store.update(createPosition(i, now, 10.0));
+        }
+        assertTrue(store.size() <= 16);
+
+        store = new DeviceStateStore(100, 1);
+        store.update(createPosition(1, now, 10.0));
+        Thread.sleep(10);
+        assertNull(store.get(1L));
+    }
+
+}
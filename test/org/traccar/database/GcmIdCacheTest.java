@@ -0,0 +1,64 @@
+package org.traccar.database;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GcmIdCacheTest {
+
+    @Test
+    public void testExpiration() {
+        GcmIdCache cache = new GcmIdCache(10, 1000);
+        cache.put(1, Arrays.asList("a", "b"), 0);
+
+        assertEquals(Arrays.asList("a", "b"), cache.get(1, 999));
+        assertNull(cache.get(2, 999));
+        assertNull(cache.get(1, 1000));
+
+        cache.put(1, Arrays.asList("c"), 1000);
+        assertEquals(Arrays.asList("c"), cache.get(1, 1500));
+
+        cache.invalidate(1);
+        assertNull(cache.get(1, 1500));
+    }
+
+    @Test
+    public void testLoad() {
+        GcmIdCache cache = new GcmIdCache(10, 1000);
+        Map<Long, List<String>> ids = new HashMap<Long, List<String>>();
+        ids.put(1L, Arrays.asList("a"));
+        cache.load(ids, 0);
+
+        assertEquals(Arrays.asList("a"), cache.get(1, 500));
+        assertTrue(cache.get(2, 500).isEmpty());
+        assertNull(cache.get(2, 1000));
+
+        cache.invalidate(2);
+        assertNull(cache.get(2, 500));
+        cache.put(2, Arrays.asList("b"), 500);
+        assertEquals(Arrays.asList("b"), cache.get(2, 600));
+
+        cache.clear();
+        assertNull(cache.get(1, 600));
+    }
+
+    @Test
+    public void testLoadOverflow() {
+        GcmIdCache cache = new GcmIdCache(1, 1000);
+        Map<Long, List<String>> ids = new HashMap<Long, List<String>>();
+        ids.put(1L, Arrays.asList("a"));
+        ids.put(2L, Arrays.asList("b"));
+        cache.load(ids, 0);
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get(3, 500));
+    }
+
+}
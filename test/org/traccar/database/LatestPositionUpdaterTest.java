@@ -0,0 +1,126 @@
+package org.traccar.database;
+
+import org.junit.Test;
+import org.traccar.model.Position;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class LatestPositionUpdaterTest {
+
+    private static class RecordingDataManager extends DataManager {
+
+        private final List<List<LatestPosition>> batches = new ArrayList<List<LatestPosition>>();
+        private boolean fail;
+        private LatestPositionUpdater updater;
+        private Position concurrent;
+
+        RecordingDataManager() throws Exception {
+            super(null);
+        }
+
+        @Override
+        void updateLatestPositions(List<LatestPosition> positions) throws SQLException {
+            if (fail) {
+                if (concurrent != null) {
+                    updater.update(concurrent, 4L);
+                }
+                throw new SQLException("Database is down");
+            }
+            batches.add(positions);
+        }
+    }
+
+    private static Position createPosition(long deviceId) {
+        Position position = new Position();
+        position.setDeviceId(deviceId);
+        return position;
+    }
+
+    private static Position createPosition(long deviceId, long time) {
+        Position position = createPosition(deviceId);
+        // Position only accepts times from the last minute
+        position.setTime(new Date(System.currentTimeMillis() - 30000 + time));
+        return position;
+    }
+
+    private static Properties createProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("database.latest.flushInterval", "60000");
+        properties.setProperty("database.latest.maxStaleness", "60000");
+        return properties;
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        RecordingDataManager dataManager = new RecordingDataManager();
+        LatestPositionUpdater updater = new LatestPositionUpdater(dataManager, createProperties());
+
+        Position newest = createPosition(2);
+        updater.update(createPosition(2), 1L);
+        updater.update(createPosition(1), 2L);
+        updater.update(newest, 3L);
+        updater.flush();
+
+        assertEquals(1, dataManager.batches.size());
+        List<DataManager.LatestPosition> batch = dataManager.batches.get(0);
+        assertEquals(2, batch.size());
+        assertEquals(Long.valueOf(1), batch.get(0).getPosition().getDeviceId());
+        assertSame(newest, batch.get(1).getPosition());
+        assertEquals(Long.valueOf(3), batch.get(1).getId());
+
+        updater.flush();
+        assertEquals(1, dataManager.batches.size());
+        updater.stop();
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        RecordingDataManager dataManager = new RecordingDataManager();
+        LatestPositionUpdater updater = new LatestPositionUpdater(dataManager, createProperties());
+
+        dataManager.fail = true;
+        updater.update(createPosition(1), 1L);
+        updater.flush();
+        assertEquals(0, dataManager.batches.size());
+
+        // Newer update replaces the one that failed
+        updater.update(createPosition(1), 2L);
+        dataManager.fail = false;
+        updater.stop();
+
+        assertEquals(1, dataManager.batches.size());
+        assertEquals(Long.valueOf(2), dataManager.batches.get(0).get(0).getId());
+    }
+
+    @Test
+    public void testOutOfOrder() throws Exception {
+        RecordingDataManager dataManager = new RecordingDataManager();
+        LatestPositionUpdater updater = new LatestPositionUpdater(dataManager, createProperties());
+
+        updater.update(createPosition(1, 2000), 2L);
+        updater.update(createPosition(1, 1000), 3L);
+
+        // Update arriving while the batch fails is not replaced by the retry
+        Position latest = createPosition(1, 3000);
+        dataManager.updater = updater;
+        dataManager.concurrent = latest;
+        dataManager.fail = true;
+        updater.flush();
+
+        dataManager.fail = false;
+        updater.update(createPosition(1, 2500), 5L);
+        updater.stop();
+
+        assertEquals(1, dataManager.batches.size());
+        assertSame(latest, dataManager.batches.get(0).get(0).getPosition());
+        assertEquals(Long.valueOf(4), dataManager.batches.get(0).get(0).getId());
+    }
+
+}
@@ -0,0 +1,178 @@
+package org.traccar.database;
+
+import com.mchange.v2.c3p0.DriverManagerDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compares named parameter maps, compiled slot binding and bulk insert modes
+ *
+ * Arguments: row count, then optionally JDBC URL, user and password to run against another database
+ * instead of in-memory H2. COPY is measured only on PostgreSQL. H2 returns a single key for a multi row insert,
+ * so there the multi row modes run without generated keys and are compared with a keyless batch.
+ */
+public class NamedParameterStatementBenchmark {
+
+    private static final String QUERY =
+            "INSERT INTO positions (device_id, time, valid, latitude, longitude, speed, course) " +
+            "VALUES (:device_id, :time, :valid, :latitude, :longitude, :speed, :course)";
+
+    private static final NamedParameterStatement.ResultSetProcessor<Long> KEYS =
+            new NamedParameterStatement.ResultSetProcessor<Long>() {
+        @Override
+        public Long processNextRow(ResultSet rs) throws SQLException {
+            return rs.getLong(1);
+        }
+    };
+
+    private static DataSource createDataSource(String[] args) throws SQLException {
+        DataSource dataSource;
+        String key = "id BIGINT AUTO_INCREMENT PRIMARY KEY";
+        String number = "DOUBLE";
+        if (args.length > 1) {
+            DriverManagerDataSource driverDataSource = new DriverManagerDataSource();
+            driverDataSource.setJdbcUrl(args[1]);
+            driverDataSource.setUser(args.length > 2 ? args[2] : null);
+            driverDataSource.setPassword(args.length > 3 ? args[3] : null);
+            dataSource = driverDataSource;
+            if (args[1].startsWith("jdbc:postgresql:")) {
+                key = "id BIGSERIAL PRIMARY KEY";
+                number = "DOUBLE PRECISION";
+            }
+        } else {
+            JdbcDataSource h2DataSource = new JdbcDataSource();
+            h2DataSource.setURL("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+            dataSource = h2DataSource;
+        }
+
+        Connection conn = dataSource.getConnection();
+        try {
+            Statement stmt = conn.createStatement();
+            stmt.execute("DROP TABLE IF EXISTS positions");
+            stmt.execute("CREATE TABLE positions (" + key + ", device_id BIGINT, time TIMESTAMP, valid BOOLEAN, " +
+                    "latitude " + number + ", longitude " + number + ", speed " + number + ", course " + number + ")");
+        } finally {
+            conn.close();
+        }
+        return dataSource;
+    }
+
+    private static long runParams(NamedParameterStatement statement, int rows) throws SQLException {
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            statement.prepare()
+                    .setLong("device_id", (long) (i % 1000))
+                    .setTimestamp("time", new Date())
+                    .setBoolean("valid", true)
+                    .setDouble("latitude", 1.0 * i)
+                    .setDouble("longitude", 2.0 * i)
+                    .setDouble("speed", 0.0)
+                    .setDouble("course", 0.0)
+                    .executeUpdate(KEYS);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static final int MODE_BATCH = 0;
+    private static final int MODE_MULTIROW = 1;
+    private static final int MODE_COPY = 2;
+
+    private static long runBinding(NamedParameterStatement statement, int rows, int batchSize) throws SQLException {
+        return runBinding(statement, null, rows, batchSize, MODE_BATCH);
+    }
+
+    private static long runBinding(NamedParameterStatement statement, CopyStatement copy,
+            int rows, int batchSize, int mode) throws SQLException {
+        final int deviceId = statement.getSlot("device_id");
+        final int time = statement.getSlot("time");
+        final int valid = statement.getSlot("valid");
+        final int latitude = statement.getSlot("latitude");
+        final int longitude = statement.getSlot("longitude");
+        final int speed = statement.getSlot("speed");
+        final int course = statement.getSlot("course");
+        final Date now = new Date();
+
+        NamedParameterStatement.Binding<Integer> binding = new NamedParameterStatement.Binding<Integer>() {
+            @Override
+            public void bind(NamedParameterStatement.Binder binder, Integer i) throws SQLException {
+                binder.setLong(deviceId, i % 1000)
+                        .setTimestamp(time, now)
+                        .setBoolean(valid, true)
+                        .setDouble(latitude, 1.0 * i)
+                        .setDouble(longitude, 2.0 * i)
+                        .setDouble(speed, 0.0)
+                        .setDouble(course, 0.0);
+            }
+        };
+
+        long start = System.nanoTime();
+        if (batchSize <= 1) {
+            for (int i = 0; i < rows; i++) {
+                statement.executeUpdate(i, binding, KEYS);
+            }
+        } else {
+            List<Integer> batch = new ArrayList<Integer>(batchSize);
+            for (int i = 0; i < rows; i++) {
+                batch.add(i);
+                if (batch.size() == batchSize || i == rows - 1) {
+                    if (mode == MODE_COPY) {
+                        copy.execute(batch, binding);
+                    } else if (mode == MODE_MULTIROW) {
+                        statement.executeMultiRow(batch, binding, KEYS, batchSize);
+                    } else {
+                        statement.executeBatch(batch, binding, KEYS);
+                    }
+                    batch.clear();
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, int rows, long nanos) {
+        System.out.println(String.format("%-20s %8d rows %8d ms %10.0f rows/s",
+                name, rows, nanos / 1000000, rows * 1e9 / nanos));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.valueOf(args[0]) : 100000;
+
+        DataSource dataSource = createDataSource(args);
+        NamedParameterStatement statement = new NamedParameterStatement(
+                QUERY, dataSource, Statement.RETURN_GENERATED_KEYS);
+        boolean postgres = args.length > 1 && args[1].startsWith("jdbc:postgresql:");
+        NamedParameterStatement multiRow = postgres ? statement : new NamedParameterStatement(QUERY, dataSource);
+        CopyStatement copy = new CopyStatement(statement, dataSource,
+                "SELECT nextval('positions_id_seq') FROM generate_series(1, :count)", "id");
+
+        // Warm up
+        runParams(statement, rows / 10);
+        runBinding(statement, rows / 10, 1);
+        runBinding(statement, rows / 10, 100);
+        runBinding(multiRow, null, rows / 10, 100, MODE_MULTIROW);
+        if (!multiRow.isMultiRowSupported()) {
+            throw new IllegalStateException("Multi row insert falls back to batch");
+        }
+
+        report("params", rows, runParams(statement, rows));
+        report("binding", rows, runBinding(statement, rows, 1));
+        report("binding batch 100", rows, runBinding(statement, rows, 100));
+        if (multiRow != statement) {
+            report("batch 100 no keys", rows, runBinding(multiRow, rows, 100));
+        }
+        report("multirow 100", rows, runBinding(multiRow, null, rows, 100, MODE_MULTIROW));
+        report("multirow 1000", rows, runBinding(multiRow, null, rows, 1000, MODE_MULTIROW));
+        if (copy.isSupported()) {
+            report("copy 1000", rows, runBinding(statement, copy, rows, 1000, MODE_COPY));
+        }
+    }
+
+}
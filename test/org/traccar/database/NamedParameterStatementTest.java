@@ -0,0 +1,217 @@
+package org.traccar.database;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NamedParameterStatementTest {
+
+    private JdbcDataSource dataSource;
+
+    private final NamedParameterStatement.ResultSetProcessor<Long> keysProcessor =
+            new NamedParameterStatement.ResultSetProcessor<Long>() {
+        @Override
+        public Long processNextRow(ResultSet rs) throws SQLException {
+            return rs.getLong(1);
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:named;DB_CLOSE_DELAY=-1");
+        Connection conn = dataSource.getConnection();
+        try {
+            Statement stmt = conn.createStatement();
+            stmt.execute("DROP TABLE IF EXISTS test");
+            stmt.execute("CREATE TABLE test (id INT AUTO_INCREMENT PRIMARY KEY, value DOUBLE, rounded BIGINT)");
+        } finally {
+            conn.close();
+        }
+    }
+
+    @Test
+    public void testParse() {
+        Map<String, List<Integer>> indexMap = new HashMap<String, List<Integer>>();
+        String query = NamedParameterStatement.parse("SELECT ':a' FROM t WHERE b = :b AND c = :c OR b = :b", indexMap);
+
+        assertEquals("SELECT ':a' FROM t WHERE b = ? AND c = ? OR b = ?", query);
+        assertEquals(Arrays.asList(1, 3), indexMap.get("b"));
+        assertEquals(Arrays.asList(2), indexMap.get("c"));
+    }
+
+    @Test
+    public void testSlots() {
+        NamedParameterStatement statement = new NamedParameterStatement(
+                "INSERT INTO test (value, rounded) VALUES (:value, :rounded)", dataSource);
+
+        assertTrue(statement.getSlot("value") >= 0);
+        assertTrue(statement.getSlot("rounded") >= 0);
+        assertEquals(-1, statement.getSlot("missing"));
+        assertEquals(2, statement.getSlotCount());
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        NamedParameterStatement statement = new NamedParameterStatement(
+                "INSERT INTO test (value, rounded) VALUES (:value, :rounded)", dataSource,
+                Statement.RETURN_GENERATED_KEYS);
+
+        final int value = statement.getSlot("value");
+        final int rounded = statement.getSlot("rounded");
+        NamedParameterStatement.Binding<Double> binding = new NamedParameterStatement.Binding<Double>() {
+            @Override
+            public void bind(NamedParameterStatement.Binder binder, Double item) throws SQLException {
+                binder.setDouble(value, item).setLong(rounded, item.longValue());
+            }
+        };
+
+        assertNotNull(statement.executeUpdate(1.5, binding, keysProcessor));
+
+        List<Long> keys = statement.executeBatch(Arrays.asList(2.5, 3.5, 4.5), binding, keysProcessor);
+        assertEquals(3, keys.size());
+        for (Long key : keys) {
+            assertNotNull(key);
+        }
+
+        Connection conn = dataSource.getConnection();
+        try {
+            ResultSet rs = conn.createStatement().executeQuery("SELECT COUNT(*), SUM(rounded) FROM test");
+            rs.next();
+            assertEquals(4, rs.getInt(1));
+            assertEquals(1 + 2 + 3 + 4, rs.getLong(2));
+        } finally {
+            conn.close();
+        }
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        NamedParameterStatement insert = new NamedParameterStatement(
+                "INSERT INTO test (value, rounded) VALUES (:value, :rounded)", dataSource);
+        for (int i = 0; i < 10; i++) {
+            insert.prepare().setDouble("value", 1.0 * i).setLong("rounded", (long) i).executeUpdate();
+        }
+
+        NamedParameterStatement select = new NamedParameterStatement(
+                "SELECT value, rounded FROM test WHERE rounded >= :min", dataSource);
+        select.setFetchSize(3);
+
+        final int[] prepared = new int[1];
+        final long[] sum = new long[1];
+        int count = select.prepare().setLong("min", 5L).executeQuery(new NamedParameterStatement.RowHandler() {
+            private int rounded;
+
+            @Override
+            public void prepare(ResultSet rs) throws SQLException {
+                prepared[0]++;
+                rounded = rs.findColumn("rounded");
+            }
+
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                sum[0] += rs.getLong(rounded);
+            }
+        });
+
+        assertEquals(5, count);
+        assertEquals(1, prepared[0]);
+        assertEquals(5 + 6 + 7 + 8 + 9, sum[0]);
+    }
+
+    @Test
+    public void testMultiRowQuery() {
+        NamedParameterStatement statement = new NamedParameterStatement(
+                "INSERT INTO test (value, rounded) VALUES (:value, :rounded);", dataSource);
+
+        assertEquals("INSERT INTO test (value, rounded) VALUES (?, ?), (?, ?);", statement.getMultiRowQuery(2));
+        assertEquals("COPY test (value, rounded) FROM STDIN", statement.getCopyQuery(null));
+        assertEquals("COPY test (id, value, rounded) FROM STDIN", statement.getCopyQuery("id"));
+
+        statement = new NamedParameterStatement(
+                "INSERT INTO test (value, rounded) VALUES (:value, ROUND(:value))", dataSource);
+        assertNull(statement.getCopyQuery(null));
+
+        assertNull(NamedParameterStatement.findValuesGroup("UPDATE test SET value = ? WHERE id = ?"));
+    }
+
+    @Test
+    public void testCopyRow() throws Exception {
+        NamedParameterStatement statement = new NamedParameterStatement(
+                "INSERT INTO test (value, rounded) VALUES (:value, :rounded)", dataSource);
+        NamedParameterStatement.RowBinder binder = statement.createRowBinder();
+        StringBuilder data = new StringBuilder();
+
+        binder.setString(statement.getSlot("value"), "a\tb\\c");
+        binder.setNull(statement.getSlot("rounded"), Types.BIGINT);
+        binder.appendRow(data);
+
+        assertEquals("a\\tb\\\\c\t\\N\n", data.toString());
+    }
+
+    private static NamedParameterStatement.Binding<Double> createBinding(NamedParameterStatement statement) {
+        final int value = statement.getSlot("value");
+        final int rounded = statement.getSlot("rounded");
+        return new NamedParameterStatement.Binding<Double>() {
+            @Override
+            public void bind(NamedParameterStatement.Binder binder, Double item) throws SQLException {
+                binder.setDouble(value, item).setLong(rounded, item.longValue());
+            }
+        };
+    }
+
+    private void checkRows(int count, long sum) throws SQLException {
+        Connection conn = dataSource.getConnection();
+        try {
+            ResultSet rs = conn.createStatement().executeQuery("SELECT COUNT(*), SUM(rounded) FROM test");
+            rs.next();
+            assertEquals(count, rs.getInt(1));
+            assertEquals(sum, rs.getLong(2));
+        } finally {
+            conn.close();
+        }
+    }
+
+    @Test
+    public void testMultiRow() throws Exception {
+        NamedParameterStatement statement = new NamedParameterStatement(
+                "INSERT INTO test (value, rounded) VALUES (:value, :rounded)", dataSource);
+
+        statement.executeMultiRow(Arrays.asList(1.5, 2.5, 3.5, 4.5, 5.5), createBinding(statement), keysProcessor, 2);
+        assertTrue(statement.isMultiRowSupported());
+
+        checkRows(5, 1 + 2 + 3 + 4 + 5);
+    }
+
+    @Test
+    public void testMultiRowKeysFallback() throws Exception {
+        // H2 returns a single generated key for a multi row insert
+        NamedParameterStatement statement = new NamedParameterStatement(
+                "INSERT INTO test (value, rounded) VALUES (:value, :rounded)", dataSource,
+                Statement.RETURN_GENERATED_KEYS);
+
+        List<Long> keys = statement.executeMultiRow(
+                Arrays.asList(1.5, 2.5, 3.5, 4.5, 5.5), createBinding(statement), keysProcessor, 2);
+        assertEquals(5, keys.size());
+        assertFalse(statement.isMultiRowSupported());
+
+        checkRows(5, 1 + 2 + 3 + 4 + 5);
+    }
+
+}
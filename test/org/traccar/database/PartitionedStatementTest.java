@@ -0,0 +1,128 @@
+package org.traccar.database;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionedStatementTest {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:partitions;DB_CLOSE_DELAY=-1");
+        Connection conn = dataSource.getConnection();
+        try {
+            conn.createStatement().execute("DROP ALL OBJECTS");
+        } finally {
+            conn.close();
+        }
+    }
+
+    private int count(String table) throws Exception {
+        Connection conn = dataSource.getConnection();
+        try {
+            ResultSet rs = conn.createStatement().executeQuery("SELECT COUNT(*) FROM " + table);
+            rs.next();
+            return rs.getInt(1);
+        } finally {
+            conn.close();
+        }
+    }
+
+    @Test
+    public void testPartitionName() {
+        Date time = new Date(1454284800000L - 1); // 2016-01-31 23:59:59.999 UTC
+
+        assertEquals("20160131", new PartitionedStatement(
+                "", dataSource, Statement.NO_GENERATED_KEYS, PartitionedStatement.MODE_DAILY, null, 0)
+                .getPartition(time));
+        assertEquals("201601", new PartitionedStatement(
+                "", dataSource, Statement.NO_GENERATED_KEYS, PartitionedStatement.MODE_MONTHLY, null, 0)
+                .getPartition(time));
+    }
+
+    @Test
+    public void testRouting() throws Exception {
+        PartitionedStatement statement = new PartitionedStatement(
+                "INSERT INTO positions_${partition} (time) VALUES (:time)", dataSource,
+                Statement.RETURN_GENERATED_KEYS, PartitionedStatement.MODE_DAILY,
+                "CREATE TABLE IF NOT EXISTS positions_${partition} (id INT AUTO_INCREMENT PRIMARY KEY, time TIMESTAMP)",
+                1);
+
+        Date first = new Date(1454284800000L); // 2016-02-01 00:00:00 UTC
+        Date second = new Date(first.getTime() + DAY);
+
+        // Next partition is created ahead of time
+        statement.createAhead(first);
+
+        NamedParameterStatement firstStatement = statement.get(first);
+        assertSame(firstStatement, statement.get(new Date(first.getTime() + 1000)));
+        assertNotSame(firstStatement, statement.get(second));
+
+        firstStatement.prepare().setTimestamp("time", first).executeUpdate();
+        statement.get(second).prepare().setTimestamp("time", second).executeUpdate();
+
+        assertEquals(1, count("positions_20160201"));
+        assertEquals(1, count("positions_20160202"));
+    }
+
+    @Test
+    public void testBackgroundCreate() throws Exception {
+        PartitionedStatement statement = new PartitionedStatement(
+                "INSERT INTO positions_${partition} (time) VALUES (:time)", dataSource,
+                Statement.NO_GENERATED_KEYS, PartitionedStatement.MODE_DAILY,
+                "CREATE TABLE IF NOT EXISTS positions_${partition} (time TIMESTAMP)", 0);
+        statement.start();
+        try {
+            statement.get(new Date(1454284800000L)); // 2016-02-01 00:00:00 UTC
+
+            Exception error = null;
+            for (int i = 0; i < 100; i++) {
+                try {
+                    assertEquals(0, count("positions_20160201"));
+                    error = null;
+                    break;
+                } catch (SQLException e) {
+                    error = e;
+                    Thread.sleep(50);
+                }
+            }
+            assertNull(error);
+        } finally {
+            statement.stop();
+        }
+    }
+
+    @Test
+    public void testKeptStatements() throws Exception {
+        PartitionedStatement statement = new PartitionedStatement(
+                "INSERT INTO positions_${partition} (time) VALUES (:time)", dataSource,
+                Statement.NO_GENERATED_KEYS, PartitionedStatement.MODE_DAILY, null, 0);
+
+        Date first = new Date(1454284800000L); // 2016-02-01 00:00:00 UTC
+        for (int i = 0; i < 30; i++) {
+            statement.get(new Date(first.getTime() + i * DAY));
+        }
+        assertEquals(8, statement.getStatements().size());
+
+        NamedParameterStatement last = statement.get(new Date(first.getTime() + 29 * DAY));
+        assertTrue(statement.getStatements().contains(last));
+    }
+
+}
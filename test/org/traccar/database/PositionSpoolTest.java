@@ -0,0 +1,108 @@
+package org.traccar.database;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.traccar.model.ExtendedInfoFormatter;
+import org.traccar.model.Position;
+
+import java.io.File;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PositionSpoolTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("spool", "");
+        directory.delete();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static Position createPosition(long deviceId, double latitude) {
+        Position position = new Position();
+        position.setDeviceId(deviceId);
+        position.setTime(new Date());
+        position.setValid(true);
+        position.setLatitude(latitude);
+        position.setLongitude(-latitude);
+        position.setAltitude(0.0);
+        position.setSpeed(10.5);
+        position.setCourse(90.0);
+        ExtendedInfoFormatter extendedInfo = new ExtendedInfoFormatter("test");
+        extendedInfo.set("index", deviceId);
+        extendedInfo.set("power", 12.5);
+        position.setExtendedInfo(extendedInfo);
+        return position;
+    }
+
+    @Test
+    public void testPeekCommit() throws Exception {
+        PositionSpool spool = new PositionSpool(directory, 0);
+        assertTrue(spool.isEmpty());
+
+        for (int i = 0; i < 10; i++) {
+            spool.append(createPosition(i, i));
+        }
+        assertFalse(spool.isEmpty());
+
+        List<Position> positions = spool.peek(4);
+        assertEquals(4, positions.size());
+        assertEquals(Long.valueOf(0), positions.get(0).getDeviceId());
+        assertEquals(3.0, positions.get(3).getLatitude(), 0.0);
+        assertEquals(-3.0, positions.get(3).getLongitude(), 0.0);
+        assertEquals(createPosition(3, 3).getExtendedInfo(), positions.get(3).getExtendedInfo());
+
+        // Nothing is removed until commit
+        assertEquals(Long.valueOf(0), spool.peek(4).get(0).getDeviceId());
+
+        spool.commit();
+        assertEquals(Long.valueOf(4), spool.peek(4).get(0).getDeviceId());
+
+        spool.append(createPosition(10, 10));
+        spool.commit();
+        assertEquals(3, spool.peek(10).size());
+        spool.commit();
+        assertTrue(spool.isEmpty());
+    }
+
+    @Test
+    public void testRecover() throws Exception {
+        PositionSpool spool = new PositionSpool(directory, 1024);
+        for (int i = 0; i < 50; i++) {
+            spool.append(createPosition(i, i));
+        }
+        assertTrue(directory.list().length > 1);
+
+        spool.peek(20);
+        spool.commit();
+        spool.stop();
+
+        spool = new PositionSpool(directory, 1024);
+        List<Position> positions = spool.peek(100);
+        assertEquals(30, positions.size());
+        assertEquals(Long.valueOf(20), positions.get(0).getDeviceId());
+        assertEquals(Long.valueOf(49), positions.get(29).getDeviceId());
+
+        spool.commit();
+        assertTrue(spool.isEmpty());
+        assertEquals(1, directory.list().length);
+    }
+
+}
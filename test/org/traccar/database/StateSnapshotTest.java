@@ -0,0 +1,88 @@
+package org.traccar.database;
+
+import org.junit.Test;
+import org.traccar.model.Device;
+import org.traccar.model.Position;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StateSnapshotTest {
+
+    private static class RecordingDataManager extends DataManager {
+
+        private int fullLoads;
+
+        RecordingDataManager() throws Exception {
+            super(null);
+        }
+
+        @Override
+        void loadDevices(DeviceIndex.Builder builder) throws SQLException {
+            fullLoads += 1;
+            Device device = new Device();
+            device.setId(1L);
+            device.setImei("123456789012345");
+            device.setUniqueId("unique");
+            builder.add(device);
+        }
+
+        @Override
+        boolean loadChangedDevices(Date since, List<Device> result) throws SQLException {
+            return true;
+        }
+    }
+
+    @Test
+    public void testRestore() throws Exception {
+        File file = File.createTempFile("state", ".snapshot");
+        try {
+            RecordingDataManager dataManager = new RecordingDataManager();
+            DeviceRegistry registry = new DeviceRegistry(dataManager, 60000, 3600000);
+            registry.refresh(System.currentTimeMillis());
+
+            DeviceStateStore store = new DeviceStateStore(100, 60000);
+            Position position = new Position();
+            position.setDeviceId(1L);
+            position.restoreTime(new Date(1000), new Date(500));
+            position.setLatitude(10.0);
+            position.setLongitude(20.0);
+            position.setDatabaseId(7L);
+            position.setExtendedInfo("<info/>");
+            store.update(position);
+
+            new StateSnapshot(file, 60000, registry, store).save();
+
+            RecordingDataManager restoredManager = new RecordingDataManager();
+            DeviceRegistry restoredRegistry = new DeviceRegistry(restoredManager, 60000, 3600000);
+            DeviceStateStore restoredStore = new DeviceStateStore(100, 60000);
+            assertTrue(new StateSnapshot(file, 60000, restoredRegistry, restoredStore).load());
+
+            assertEquals("unique", restoredRegistry.getByImei("123456789012345").getUniqueId());
+            DeviceStateStore.State state = restoredStore.get(1L);
+            assertEquals(1000, state.getTime());
+            assertEquals(Long.valueOf(7), state.getDatabaseId());
+            assertEquals("<info/>", state.getExtendedInfo());
+
+            // Next refresh only asks for changes
+            restoredRegistry.refresh(System.currentTimeMillis());
+            assertEquals(0, restoredManager.fullLoads);
+
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            randomAccessFile.seek(20);
+            randomAccessFile.write(0xff);
+            randomAccessFile.close();
+            assertFalse(new StateSnapshot(file, 60000, restoredRegistry, new DeviceStateStore(100, 60000)).load());
+        } finally {
+            file.delete();
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.traccar.database;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UnknownDeviceCacheTest {
+
+    @Test
+    public void testExpiration() {
+        UnknownDeviceCache cache = new UnknownDeviceCache(10, 1000);
+        cache.add("123456789012345", 0);
+
+        assertTrue(cache.contains("123456789012345", 999));
+        assertFalse(cache.contains("000123456789012345", 999));
+        assertFalse(cache.contains("123456789012345", 1000));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testBounded() {
+        UnknownDeviceCache cache = new UnknownDeviceCache(2, 1000);
+        cache.add("1", 0);
+        cache.add("2", 0);
+        cache.add("1", 10);
+        cache.add("3", 20);
+
+        assertEquals(2, cache.size());
+        assertFalse(cache.contains("2", 30));
+        assertTrue(cache.contains("1", 30));
+        assertTrue(cache.contains("3", 30));
+    }
+
+}
@@ -0,0 +1,41 @@
+package org.traccar.helper;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+
+public class ImeiKeyTest {
+
+    @Test
+    public void testString() {
+        assertEquals("123456789012345", ImeiKey.toString(ImeiKey.fromString("123456789012345")));
+        assertEquals("000123", ImeiKey.toString(ImeiKey.fromString("000123")));
+        assertEquals(ImeiKey.INVALID, ImeiKey.fromString("12345A"));
+        assertEquals(ImeiKey.INVALID, ImeiKey.fromString("123456789012345678"));
+    }
+
+    @Test
+    public void testBuffer() {
+        ChannelBuffer buf = ChannelBuffers.copiedBuffer("#123456789012345#", Charset.defaultCharset());
+        assertEquals(ImeiKey.fromString("123456789012345"), ImeiKey.fromAscii(buf, 1, 15));
+        assertEquals(ImeiKey.INVALID, ImeiKey.fromAscii(buf, 0, 15));
+
+        buf = ChannelBuffers.wrappedBuffer(new byte[] {0x01, 0x23, 0x45, 0x67, (byte) 0x89, 0x01, 0x23, 0x45});
+        assertEquals(ImeiKey.fromString("123456789012345"), ImeiKey.fromBcd(buf, 0, 8, 1));
+        assertEquals(ImeiKey.fromString("0123456789012345"), ImeiKey.fromBcd(buf, 0, 8, 0));
+
+        assertEquals(ImeiKey.fromString("000000000012345"), ImeiKey.fromNumber(12345, 15));
+        assertEquals(ImeiKey.fromString("12345"), ImeiKey.fromNumber(12345, 0));
+        assertEquals(ImeiKey.fromString("0"), ImeiKey.fromNumber(0, 0));
+        assertEquals(ImeiKey.INVALID, ImeiKey.fromNumber(-1, 0));
+
+        buf = ChannelBuffers.wrappedBuffer(new byte[] {0x01, 0x23, 0x45, 0x67, (byte) 0x89, 0x01, 0x23, 0x4f});
+        assertEquals(ImeiKey.INVALID, ImeiKey.fromBcd(buf, 0, 8, 1));
+        assertEquals("12345678901234f", ImeiKey.bcdString(buf, 0, 8, 1));
+    }
+
+}
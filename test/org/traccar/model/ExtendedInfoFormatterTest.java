@@ -1,6 +1,9 @@
 package org.traccar.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 public class ExtendedInfoFormatterTest {
@@ -17,4 +20,53 @@ public class ExtendedInfoFormatterTest {
         
     }
 
+    @Test
+    public void testTypedValues() throws Exception {
+
+        ExtendedInfoFormatter extendedInfo = new ExtendedInfoFormatter("test");
+        extendedInfo.set("index", 15);
+        extendedInfo.set("power", 12.5);
+        extendedInfo.set("milage", 1.1f);
+        extendedInfo.set("acc", true);
+        extendedInfo.set("state", "01\"");
+
+        assertEquals("<info><protocol>test</protocol><index>15</index><power>12.5</power>" +
+                "<milage>1.1</milage><acc>true</acc><state>01\"</state></info>", extendedInfo.toString());
+        assertEquals("{\"protocol\":\"test\",\"index\":15,\"power\":12.5," +
+                "\"milage\":1.1,\"acc\":true,\"state\":\"01\\\"\"}", extendedInfo.getAttributes().toJson());
+
+        Attributes attributes = extendedInfo.getAttributes();
+        assertEquals(15, attributes.getLong("index"));
+        assertEquals(12.5, attributes.getDouble("power"), 0.0);
+        assertTrue(attributes.hasNumber("power"));
+        assertFalse(attributes.hasNumber("acc"));
+        assertFalse(attributes.hasNumber("missing"));
+
+        Position position = new Position();
+        position.setExtendedInfo(extendedInfo);
+        assertEquals(extendedInfo.toString(), position.getExtendedInfo());
+
+    }
+
+    @Test
+    public void testParse() throws Exception {
+
+        String xml = "<info><protocol>test</protocol><index>15</index><power>12.5</power>" +
+                "<acc>true</acc><state>01</state><text></text></info>";
+
+        Position position = new Position();
+        position.setExtendedInfo(xml);
+        Attributes attributes = position.getAttributes();
+        assertEquals(15, attributes.getLong("index"));
+        assertEquals(12.5, attributes.getDouble("power"), 0.0);
+        assertTrue(attributes.getBoolean("acc"));
+        assertEquals("01", attributes.getObject("state"));
+        assertEquals(xml, ExtendedInfoFormatter.format(attributes));
+        assertEquals(xml, position.getExtendedInfo());
+
+        assertNull(ExtendedInfoFormatter.parse("<info><index>15</info>"));
+        assertNull(ExtendedInfoFormatter.parse("index=15"));
+
+    }
+
 }
@@ -0,0 +1,106 @@
+package org.traccar.notification;
+
+import com.google.gson.JsonObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CoalescingPublisherTest {
+
+    private static class StubPublisher implements CoalescingPublisher.Publisher {
+
+        private final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+        private final String failedChannel;
+
+        StubPublisher(String failedChannel) {
+            this.failedChannel = failedChannel;
+        }
+
+        @Override
+        public void publish(String channel, JsonObject packet) throws Exception {
+            if (channel.equals(failedChannel)) {
+                throw new Exception("Publish failed");
+            }
+            messages.add(channel + " " + packet.get("data"));
+        }
+    }
+
+    private static JsonObject createData(String uniqueId, int index) {
+        JsonObject data = new JsonObject();
+        data.addProperty("uid", uniqueId);
+        data.addProperty("index", index);
+        return data;
+    }
+
+    @Test
+    public void testLatestOnly() {
+        StubPublisher stub = new StubPublisher(null);
+        CoalescingPublisher publisher = new CoalescingPublisher(stub, 1000, false);
+
+        publisher.offer(1, "a", "10", 1000, createData("a", 1));
+        publisher.offer(1, "a", "10", 3000, createData("a", 3));
+        publisher.offer(1, "a", "10", 2000, createData("a", 2));
+        publisher.flush();
+
+        assertEquals(2, stub.messages.size());
+        assertEquals("rider_a {\"uid\":\"a\",\"index\":3}", stub.messages.get(0));
+        assertEquals("outlet_10 {\"uid\":\"a\",\"index\":3}", stub.messages.get(1));
+        assertEquals(2, publisher.getCoalesced());
+
+        publisher.flush();
+        assertEquals(2, stub.messages.size());
+    }
+
+    @Test
+    public void testOutletBatch() {
+        StubPublisher stub = new StubPublisher(null);
+        CoalescingPublisher publisher = new CoalescingPublisher(stub, 1000, true);
+
+        publisher.offer(1, "a", "10", 1000, createData("a", 1));
+        publisher.offer(2, "b", "10", 1000, createData("b", 1));
+        publisher.offer(3, "c", "20", 1000, createData("c", 1));
+        publisher.flush();
+
+        assertEquals(5, stub.messages.size());
+        assertEquals("outlet_10 [{\"uid\":\"a\",\"index\":1},{\"uid\":\"b\",\"index\":1}]", stub.messages.get(3));
+        assertEquals("outlet_20 [{\"uid\":\"c\",\"index\":1}]", stub.messages.get(4));
+        assertEquals(5, publisher.getPublished());
+    }
+
+    @Test
+    public void testFailure() {
+        StubPublisher stub = new StubPublisher("outlet_10");
+        CoalescingPublisher publisher = new CoalescingPublisher(stub, 1000, false);
+
+        publisher.offer(1, "a", "10", 1000, createData("a", 1));
+        publisher.offer(2, "b", "20", 1000, createData("b", 1));
+        publisher.flush();
+
+        assertEquals(3, stub.messages.size());
+        assertEquals(3, publisher.getPublished());
+        assertEquals(1, publisher.getFailed());
+        assertTrue(publisher.getMetrics().getMaxLatency() >= 0);
+    }
+
+    @Test
+    public void testParallel() {
+        StubPublisher stub = new StubPublisher(null);
+        CoalescingPublisher publisher = new CoalescingPublisher(stub, 1000, false, 4);
+
+        for (int i = 0; i < 50; i++) {
+            publisher.offer(i, "d" + i, "10", 1000, createData("d" + i, 1));
+        }
+        publisher.flush();
+
+        assertEquals(100, stub.messages.size());
+        assertEquals(100, publisher.getPublished());
+        assertEquals(0, publisher.getFailed());
+        publisher.stop();
+    }
+
+}
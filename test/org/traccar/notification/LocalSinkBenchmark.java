@@ -0,0 +1,61 @@
+package org.traccar.notification;
+
+import org.traccar.model.Position;
+
+import java.io.File;
+import java.util.Date;
+import java.util.Properties;
+
+/**
+ * Measures local sink throughput in records per second for both formats
+ *
+ * Arguments: record count and output directory, files are deleted afterwards.
+ */
+public class LocalSinkBenchmark {
+
+    private static long run(File file, String format, Position[] positions) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("sink.local.path", file.getPath());
+        properties.setProperty("sink.local.format", format);
+        LocalSink sink = new LocalSink(null, properties);
+        long start = System.nanoTime();
+        for (Position position : positions) {
+            sink.send(position);
+        }
+        sink.stop();
+        long time = System.nanoTime() - start;
+        if (!file.delete()) {
+            System.out.println("Failed to delete " + file);
+        }
+        return time;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        File directory = new File(args.length > 1 ? args[1] : System.getProperty("java.io.tmpdir"));
+
+        Position[] positions = new Position[count];
+        for (int i = 0; i < count; i++) {
+            Position position = new Position();
+            position.setDeviceId((long) (i % 10000));
+            position.setDatabaseId((long) i);
+            position.restoreTime(new Date(1460000000000L + i), new Date(1460000000000L));
+            position.setValid(true);
+            position.setLatitude(48.8566 + i * 0.00001);
+            position.setLongitude(2.3522 - i * 0.00001);
+            position.setSpeed(12.5);
+            position.setCourse(270.0);
+            position.setExtendedInfo("<info><sat>9</sat><power>12.4</power></info>");
+            positions[i] = position;
+        }
+
+        for (int round = 1; round <= 3; round++) {
+            for (String format : new String[] {"binary", "json"}) {
+                long time = run(new File(directory, "benchmark." + format), format, positions);
+                System.out.println(String.format("round %d %s: %d records/s",
+                        round, format, count * 1000000000L / Math.max(time, 1)));
+            }
+        }
+    }
+
+}
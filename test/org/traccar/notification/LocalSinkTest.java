@@ -0,0 +1,157 @@
+package org.traccar.notification;
+
+import org.junit.Test;
+import org.traccar.model.Position;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Date;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LocalSinkTest {
+
+    private static Position createPosition(long deviceId) {
+        Position position = new Position();
+        position.setDeviceId(deviceId);
+        position.setDatabaseId(100 + deviceId);
+        position.restoreTime(new Date(1460000000000L), new Date(1460000000000L));
+        position.setValid(true);
+        position.setLatitude(48.8566);
+        position.setLongitude(2.3522);
+        position.setExtendedInfo("<info/>");
+        return position;
+    }
+
+    private static File createDirectory() throws Exception {
+        File directory = File.createTempFile("sink", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        return directory;
+    }
+
+    private static void verifyBinary(DataInputStream in, long deviceId) throws Exception {
+        assertEquals(8 * 3 + 1 + 8 * 5 + 4 + 7, in.readInt());
+        assertEquals(deviceId, in.readLong());
+        assertEquals(100 + deviceId, in.readLong());
+        assertEquals(1460000000000L, in.readLong());
+        assertEquals(1, in.readByte());
+        assertEquals(48.8566, in.readDouble(), 0);
+        assertEquals(2.3522, in.readDouble(), 0);
+        assertTrue(Double.isNaN(in.readDouble()));
+        assertTrue(Double.isNaN(in.readDouble()));
+        assertTrue(Double.isNaN(in.readDouble()));
+        byte[] extendedInfo = new byte[in.readInt()];
+        in.readFully(extendedInfo);
+        assertEquals("<info/>", new String(extendedInfo, "UTF-8"));
+    }
+
+    @Test
+    public void testBinaryFile() throws Exception {
+        File file = new File(createDirectory(), "positions.bin");
+        Properties properties = new Properties();
+        properties.setProperty("sink.local.path", file.getPath());
+        LocalSink sink = new LocalSink(null, properties);
+        sink.send(createPosition(1));
+        sink.send(createPosition(2));
+        sink.stop();
+
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            verifyBinary(in, 1);
+            verifyBinary(in, 2);
+            assertEquals(-1, in.read());
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testJsonRotation() throws Exception {
+        File directory = createDirectory();
+        File file = new File(directory, "positions.json");
+        Properties properties = new Properties();
+        properties.setProperty("sink.local.path", file.getPath());
+        properties.setProperty("sink.local.format", "json");
+        properties.setProperty("sink.local.fileSize", "1");
+        LocalSink sink = new LocalSink(null, properties);
+        sink.send(createPosition(1));
+        sink.send(createPosition(2));
+        sink.stop();
+
+        assertEquals(2, directory.listFiles().length);
+        assertTrue(!file.exists());
+        BufferedReader reader = new BufferedReader(new FileReader(directory.listFiles()[0]));
+        try {
+            String line = reader.readLine();
+            assertTrue(line.startsWith("{\"deviceId\":"));
+            assertTrue(line.endsWith(",\"time\":1460000000000,\"valid\":true,\"latitude\":48.8566,"
+                    + "\"longitude\":2.3522,\"extendedInfo\":\"\\u003cinfo/\\u003e\"}"));
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testRotationFailure() throws Exception {
+        File file = new File(createDirectory(), "positions.bin");
+        Properties properties = new Properties();
+        properties.setProperty("sink.local.path", file.getPath());
+        properties.setProperty("sink.local.fileSize", "100");
+        LocalSink sink = new LocalSink(null, properties);
+        sink.send(createPosition(1));
+        assertTrue(file.delete());
+
+        sink.send(createPosition(2));
+        assertEquals(2, sink.getRecords());
+        sink.stop();
+    }
+
+    @Test
+    public void testSocket() throws Exception {
+        ServerSocket server = new ServerSocket(0);
+        try {
+            Properties properties = new Properties();
+            properties.setProperty("sink.local.port", String.valueOf(server.getLocalPort()));
+            LocalSink sink = new LocalSink(null, properties);
+            sink.send(createPosition(1));
+            sink.stop();
+
+            Socket socket = server.accept();
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            verifyBinary(in, 1);
+            assertEquals(-1, in.read());
+            socket.close();
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testUnavailable() throws Exception {
+        ServerSocket server = new ServerSocket(0);
+        int port = server.getLocalPort();
+        server.close();
+
+        Properties properties = new Properties();
+        properties.setProperty("sink.local.port", String.valueOf(port));
+        LocalSink sink = new LocalSink(null, properties);
+        for (int i = 0; i < 2; i++) {
+            try {
+                sink.send(createPosition(1));
+                fail();
+            } catch (SinkUnavailableException error) {
+                assertEquals(0, sink.getRecords());
+            }
+        }
+        sink.stop();
+    }
+
+}
@@ -0,0 +1,182 @@
+package org.traccar.notification;
+
+import org.junit.Test;
+import org.traccar.model.Position;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NotificationDispatcherTest {
+
+    private static class StubSink implements PositionSink {
+
+        private final List<Long> received = new CopyOnWriteArrayList<Long>();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release;
+        private final CountDownLatch done;
+        private final Exception error;
+
+        StubSink(int expected, boolean block, Exception error) {
+            release = new CountDownLatch(block ? 1 : 0);
+            done = new CountDownLatch(expected);
+            this.error = error;
+        }
+
+        @Override
+        public String getName() {
+            return "stub";
+        }
+
+        @Override
+        public void send(Position position) throws Exception {
+            entered.countDown();
+            release.await();
+            received.add(position.getDeviceId());
+            done.countDown();
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+
+    private static Position createPosition(long deviceId) {
+        Position position = new Position();
+        position.setDeviceId(deviceId);
+        return position;
+    }
+
+    private static NotificationDispatcher createDispatcher(String policy, StubSink sink) {
+        Properties properties = new Properties();
+        properties.setProperty("notification.stub.queueSize", "2");
+        properties.setProperty("notification.stub.threads", "1");
+        properties.setProperty("notification.stub.policy", policy);
+        NotificationDispatcher dispatcher = new NotificationDispatcher(properties);
+        dispatcher.addSink(sink);
+        return dispatcher;
+    }
+
+    @Test
+    public void testDelivery() throws Exception {
+        StubSink sink = new StubSink(2, false, null);
+        NotificationDispatcher dispatcher = createDispatcher("drop", sink);
+
+        dispatcher.dispatch(createPosition(1));
+        dispatcher.dispatch(createPosition(2));
+        assertTrue(sink.done.await(5, TimeUnit.SECONDS));
+        dispatcher.stop();
+
+        assertEquals(2, dispatcher.getMetrics("stub").getSent());
+        assertEquals(0, dispatcher.getMetrics("stub").getDropped());
+    }
+
+    @Test
+    public void testDrop() throws Exception {
+        StubSink sink = new StubSink(3, true, null);
+        NotificationDispatcher dispatcher = createDispatcher("drop", sink);
+
+        // First position occupies the only thread, two more fill the queue
+        dispatcher.dispatch(createPosition(1));
+        assertTrue(sink.entered.await(5, TimeUnit.SECONDS));
+        for (long i = 2; i <= 4; i++) {
+            dispatcher.dispatch(createPosition(i));
+        }
+        assertEquals(1, dispatcher.getMetrics("stub").getDropped());
+
+        sink.release.countDown();
+        assertTrue(sink.done.await(5, TimeUnit.SECONDS));
+        dispatcher.stop();
+        assertEquals("[1, 2, 3]", sink.received.toString());
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        StubSink sink = new StubSink(3, true, null);
+        NotificationDispatcher dispatcher = createDispatcher("dropOldest", sink);
+
+        dispatcher.dispatch(createPosition(1));
+        assertTrue(sink.entered.await(5, TimeUnit.SECONDS));
+        for (long i = 2; i <= 4; i++) {
+            dispatcher.dispatch(createPosition(i));
+        }
+        assertEquals(1, dispatcher.getMetrics("stub").getDropped());
+
+        sink.release.countDown();
+        assertTrue(sink.done.await(5, TimeUnit.SECONDS));
+        dispatcher.stop();
+        assertEquals("[1, 3, 4]", sink.received.toString());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        StubSink sink = new StubSink(1, false, new Exception("Provider is down"));
+        NotificationDispatcher dispatcher = createDispatcher("block", sink);
+
+        dispatcher.dispatch(createPosition(1));
+        assertTrue(sink.done.await(5, TimeUnit.SECONDS));
+        dispatcher.stop();
+
+        assertEquals(0, dispatcher.getMetrics("stub").getSent());
+        assertEquals(1, dispatcher.getMetrics("stub").getFailed());
+    }
+
+    @Test
+    public void testUnavailable() throws Exception {
+        StubSink sink = new StubSink(1, false, new SinkUnavailableException("Target is down"));
+        NotificationDispatcher dispatcher = createDispatcher("block", sink);
+
+        dispatcher.dispatch(createPosition(1));
+        assertTrue(sink.done.await(5, TimeUnit.SECONDS));
+        dispatcher.stop();
+
+        assertEquals(0, dispatcher.getMetrics("stub").getSent());
+        assertEquals(0, dispatcher.getMetrics("stub").getFailed());
+        assertEquals(1, dispatcher.getMetrics("stub").getDropped());
+    }
+
+    @Test
+    public void testDeliveryMetrics() throws Exception {
+        final NotificationDispatcher.Metrics delivery = new NotificationDispatcher.Metrics();
+        DeferredSink sink = new DeferredSink() {
+            @Override
+            public NotificationDispatcher.Metrics getDeliveryMetrics() {
+                return delivery;
+            }
+
+            @Override
+            public String getName() {
+                return "deferred";
+            }
+
+            @Override
+            public void send(Position position) {
+            }
+
+            @Override
+            public void stop() {
+            }
+        };
+        NotificationDispatcher dispatcher = new NotificationDispatcher(null);
+        dispatcher.addSink(sink);
+        dispatcher.addSink(new StubSink(0, false, null));
+
+        delivery.record(0, 1000000, true);
+        delivery.record(0, 1000000, false);
+        dispatcher.stop();
+
+        assertEquals(1, dispatcher.getDeliveryMetrics("deferred").getFailed());
+        assertNull(dispatcher.getDeliveryMetrics("stub"));
+        assertTrue(dispatcher.report().contains("deferred delivery sent=1 failed=1 dropped=0"));
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.traccar.notification;
+
+import com.google.gson.Gson;
+import org.traccar.model.Device;
+import org.traccar.model.Position;
+import org.traccar.model.SNSMessage;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Compares SNS payloads serialized by Gson with the streaming writer, including date formatting
+ *
+ * Arguments: message count and number of rounds, the first rounds warm up the JIT.
+ */
+public class PayloadWriterBenchmark {
+
+    private static long sink;
+
+    private static Position createPosition(int index) {
+        Position position = new Position();
+        position.setDeviceId((long) index);
+        position.restoreTime(new Date(1460000000000L + index * 1000L), new Date(1450000000000L));
+        position.setLatitude(48.8566 + index * 0.0001);
+        position.setLongitude(2.3522 - index * 0.0001);
+        position.setAltitude(35.0);
+        position.setSpeed(12.5);
+        position.setCourse(270.0);
+        position.setExtendedInfo("<info><sat>9</sat><power>12.4</power><odometer>" + index + "</odometer></info>");
+        return position;
+    }
+
+    private static long runGson(Position[] positions, Device device) {
+        Gson gson = new Gson();
+        DateFormat dateFormat = new SimpleDateFormat("d/MM/yyyy h:mm:ssa");
+        long start = System.nanoTime();
+        for (Position position : positions) {
+            sink += gson.toJson(SNSMessage.fromPosition(position, device.getImei(), device.getExternalId())).length();
+            sink += dateFormat.format(position.getTime()).length();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runWriter(Position[] positions, Device device) {
+        long start = System.nanoTime();
+        for (Position position : positions) {
+            sink += PayloadWriter.snsMessage(position, device).length();
+            sink += PayloadWriter.formatDate(position.getTime()).length();
+        }
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Position[] positions = new Position[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = createPosition(i);
+        }
+        Device device = new Device();
+        device.setImei("123456789012345");
+        device.setExternalId("rider-1");
+
+        for (int round = 1; round <= rounds; round++) {
+            long gson = runGson(positions, device);
+            long writer = runWriter(positions, device);
+            System.out.println(String.format("round %d: gson %d ns/msg, writer %d ns/msg",
+                    round, gson / count, writer / count));
+        }
+        System.out.println("checksum " + sink);
+    }
+
+}
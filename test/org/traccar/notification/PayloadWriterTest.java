@@ -0,0 +1,63 @@
+package org.traccar.notification;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+import org.traccar.model.Device;
+import org.traccar.model.Position;
+import org.traccar.model.SNSMessage;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+public class PayloadWriterTest {
+
+    private static Position createPosition(String extendedInfo) {
+        Position position = new Position();
+        position.setDeviceId(1L);
+        position.restoreTime(new Date(1460000000000L), new Date(1450000000000L));
+        position.setLatitude(48.8566);
+        position.setLongitude(-0.000012);
+        position.setSpeed(12.5);
+        position.setExtendedInfo(extendedInfo);
+        return position;
+    }
+
+    private static Device createDevice(String externalId) {
+        Device device = new Device();
+        device.setId(1L);
+        device.setImei("123456789012345");
+        device.setExternalId(externalId);
+        return device;
+    }
+
+    private static void verify(Position position, Device device) {
+        assertEquals(
+                new Gson().toJson(SNSMessage.fromPosition(position, device.getImei(), device.getExternalId())),
+                PayloadWriter.snsMessage(position, device));
+    }
+
+    @Test
+    public void testSnsMessage() {
+        verify(createPosition(null), createDevice(null));
+        verify(createPosition("<info><status>\"a\" & 'b'\n\t=</status></info>"), createDevice("ext\u2028\u0001"));
+    }
+
+    @Test
+    public void testNested() {
+        String result = PayloadWriter.get().beginObject()
+                .object("data").field("uid", "1").field("time", 5L).endObject()
+                .field("time_to_live", 600L)
+                .endObject().toString();
+        assertEquals("{\"data\":{\"uid\":\"1\",\"time\":5},\"time_to_live\":600}", result);
+    }
+
+    @Test
+    public void testFormatDate() {
+        Date date = new Date(1460000000123L);
+        String expected = new java.text.SimpleDateFormat("d/MM/yyyy h:mm:ssa").format(date);
+        assertEquals(expected, PayloadWriter.formatDate(date));
+        assertEquals(expected, PayloadWriter.formatDate(new Date(1460000000999L)));
+    }
+
+}